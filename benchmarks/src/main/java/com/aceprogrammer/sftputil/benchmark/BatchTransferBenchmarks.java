@@ -0,0 +1,72 @@
+package com.aceprogrammer.sftputil.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Batch uploads and downloads of a folder of files, sequentially and over parallel channels
+ *
+ * @author Mohammed Salman Shaikh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchTransferBenchmarks {
+
+    private static final int FILE_COUNT = 32;
+
+    private static final int FILE_SIZE = 64 * 1024;
+
+    private static final long BATCH_SIZE = (long) FILE_COUNT * FILE_SIZE;
+
+    private static final String DOWNLOAD_FOLDER = "download";
+
+    private List <String> localFiles;
+
+    private Path downloadedFolder;
+
+    @Setup(Level.Trial)
+    public void createFiles(ParallelSftpServiceState state) throws IOException {
+        localFiles = BenchmarkFiles.createFiles(state.localFolder.resolve("upload"), FILE_COUNT, FILE_SIZE);
+        // the remote folder to be downloaded is written straight into the server root
+        BenchmarkFiles.createFiles(state.server.resolve(SftpServiceState.HOME_PATH + "/" + DOWNLOAD_FOLDER),
+                FILE_COUNT, FILE_SIZE);
+        downloadedFolder = Files.createDirectories(state.localFolder.resolve("downloaded"));
+    }
+
+    @Benchmark
+    public Map <String, List <String>> uploadMultipleFiles(ParallelSftpServiceState state, ByteCounter counter)
+            throws Exception {
+        Map <String, List <String>> result = state.sftpService.uploadMultipleFiles("upload", localFiles);
+        counter.bytes += BATCH_SIZE;
+        return result;
+    }
+
+    @Benchmark
+    public Map <String, List <String>> downloadAllFiles(ParallelSftpServiceState state, ByteCounter counter)
+            throws Exception {
+        Map <String, List <String>> result = state.sftpService.downloadAllFiles(downloadedFolder.toString(),
+                DOWNLOAD_FOLDER);
+        counter.bytes += BATCH_SIZE;
+        return result;
+    }
+}
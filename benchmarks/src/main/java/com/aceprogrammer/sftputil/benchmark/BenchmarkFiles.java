@@ -0,0 +1,57 @@
+package com.aceprogrammer.sftputil.benchmark;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Local file helpers for preparing benchmark data
+ *
+ * @author Mohammed Salman Shaikh
+ */
+public final class BenchmarkFiles {
+
+    private BenchmarkFiles() {
+    }
+
+    /**
+     * @return absolute paths of the created files, named file-N.bin so that they match the *.* listing
+     */
+    public static List <String> createFiles(Path folder, int count, int size) throws IOException {
+        Files.createDirectories(folder);
+        byte[] content = new byte[size];
+        new Random(size).nextBytes(content);
+        List <String> files = new ArrayList <>(count);
+        for (int i = 0; i < count; i++) {
+            Path file = folder.resolve("file-" + i + ".bin");
+            Files.write(file, content);
+            files.add(file.toString());
+        }
+        return files;
+    }
+
+    public static void deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        Files.walkFileTree(path, new SimpleFileVisitor <Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
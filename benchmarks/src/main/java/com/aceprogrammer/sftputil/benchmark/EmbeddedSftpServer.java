@@ -0,0 +1,74 @@
+package com.aceprogrammer.sftputil.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.sshd.common.NamedFactory;
+import org.apache.sshd.common.file.virtualfs.VirtualFileSystemFactory;
+import org.apache.sshd.common.kex.BuiltinDHFactories;
+import org.apache.sshd.common.signature.BuiltinSignatures;
+import org.apache.sshd.server.ServerBuilder;
+import org.apache.sshd.server.SshServer;
+import org.apache.sshd.server.keyprovider.SimpleGeneratorHostKeyProvider;
+import org.apache.sshd.sftp.server.SftpSubsystemFactory;
+
+/**
+ * Apache MINA SSHD server on a random localhost port serving a temporary folder over sftp,
+ * so that the benchmarks measure the library and not a network or a remote disk.
+ * <p>
+ * Jsch 0.1.54 only knows ssh-rsa host keys and the diffie-hellman group 14/1 key exchanges,
+ * hence the server is restricted to those.
+ *
+ * @author Mohammed Salman Shaikh
+ */
+public class EmbeddedSftpServer {
+
+    public static final String USER_NAME = "benchmark";
+
+    public static final String PASSWORD = "benchmark";
+
+    private final Path root;
+
+    private final SshServer sshServer;
+
+    public EmbeddedSftpServer() throws IOException {
+        this.root = Files.createTempDirectory("sftputil-benchmark-remote");
+        SimpleGeneratorHostKeyProvider hostKeyProvider = new SimpleGeneratorHostKeyProvider(
+                Files.createTempDirectory("sftputil-benchmark-key").resolve("hostkey.ser"));
+        hostKeyProvider.setAlgorithm("RSA");
+
+        sshServer = SshServer.setUpDefaultServer();
+        sshServer.setHost("localhost");
+        sshServer.setPort(0);
+        sshServer.setKeyPairProvider(hostKeyProvider);
+        sshServer.setPasswordAuthenticator((userName, password, session) ->
+                USER_NAME.equals(userName) && PASSWORD.equals(password));
+        sshServer.setSubsystemFactories(Collections.singletonList(new SftpSubsystemFactory()));
+        sshServer.setFileSystemFactory(new VirtualFileSystemFactory(root));
+        sshServer.setSignatureFactories(new ArrayList <>(Arrays.asList(BuiltinSignatures.rsa)));
+        sshServer.setKeyExchangeFactories(NamedFactory.setUpTransformedFactories(true,
+                Arrays.asList(BuiltinDHFactories.dhg14, BuiltinDHFactories.dhg1), ServerBuilder.DH2KEX));
+        sshServer.start();
+    }
+
+    public int getPort() {
+        return sshServer.getPort();
+    }
+
+    /**
+     * @param remotePath absolute sftp path
+     * @return the local path backing the remote path, for preparing and inspecting benchmark data directly
+     */
+    public Path resolve(String remotePath) {
+        return root.resolve(remotePath.startsWith("/") ? remotePath.substring(1) : remotePath);
+    }
+
+    public void stop() throws IOException {
+        sshServer.stop(true);
+        BenchmarkFiles.deleteRecursively(root);
+    }
+}
@@ -0,0 +1,64 @@
+package com.aceprogrammer.sftputil.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Upload and download of a single large file, through the local reads and writes of the transfer
+ * path. The bytes allocated per operation include those of the embedded server in the same jvm.
+ *
+ * @author Mohammed Salman Shaikh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 4)
+@Measurement(iterations = 5, time = 4)
+@Fork(1)
+public class LargeFileBenchmarks {
+
+    private static final int FILE_SIZE = 64 * 1024 * 1024;
+
+    private static final String DOWNLOAD_FOLDER = "large";
+
+    private File localFile;
+
+    private Path downloadedFolder;
+
+    @Setup(Level.Trial)
+    public void createFiles(SftpServiceState state) throws IOException {
+        localFile = new File(BenchmarkFiles.createFiles(state.localFolder.resolve("upload"), 1, FILE_SIZE).get(0));
+        // the remote file to be downloaded is written straight into the server root
+        BenchmarkFiles.createFiles(state.server.resolve(SftpServiceState.HOME_PATH + "/" + DOWNLOAD_FOLDER), 1,
+                FILE_SIZE);
+        downloadedFolder = Files.createDirectories(state.localFolder.resolve("downloaded"));
+    }
+
+    @Benchmark
+    public void uploadLargeFile(SftpServiceState state, ByteCounter counter) throws Exception {
+        state.sftpService.uploadFile("upload", localFile);
+        counter.bytes += FILE_SIZE;
+    }
+
+    @Benchmark
+    public void downloadLargeFile(SftpServiceState state, ByteCounter counter) throws Exception {
+        state.sftpService.downloadFile(downloadedFolder.toString(),
+                SftpServiceState.HOME_PATH + "/" + DOWNLOAD_FOLDER + "/file-0.bin");
+        counter.bytes += FILE_SIZE;
+    }
+}
@@ -0,0 +1,22 @@
+package com.aceprogrammer.sftputil.benchmark;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Service state of the batch benchmarks, which are run sequentially and over several channels
+ *
+ * @author Mohammed Salman Shaikh
+ */
+@State(Scope.Benchmark)
+public class ParallelSftpServiceState extends SftpServiceState {
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    @Override
+    protected int getParallelism() {
+        return parallelism;
+    }
+}
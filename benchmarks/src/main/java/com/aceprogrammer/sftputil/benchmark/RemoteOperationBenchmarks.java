@@ -0,0 +1,114 @@
+package com.aceprogrammer.sftputil.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Single file upload and the operations which do not transfer content.
+ * <p>
+ * Files to be deleted or moved are created directly in the server root before every
+ * invocation, which takes far less time than the sftp round trips being measured.
+ *
+ * @author Mohammed Salman Shaikh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RemoteOperationBenchmarks {
+
+    private static final int SMALL_FILE_SIZE = 4 * 1024;
+
+    private static final int FILE_COUNT = 16;
+
+    private File smallFile;
+
+    private int directoryCount;
+
+    /**
+     * Number of nested folders created by a single createDirectories call
+     */
+    @State(Scope.Benchmark)
+    public static class DirectoryDepth {
+
+        @Param({"1", "4", "16"})
+        public int depth;
+    }
+
+    /**
+     * Files to be deleted or moved and an empty folder to move them to, recreated before every invocation
+     */
+    @State(Scope.Benchmark)
+    public static class RemoteFiles {
+
+        private int invocation;
+
+        private List <String> paths;
+
+        private String moveTarget;
+
+        @Setup(Level.Invocation)
+        public void createRemoteFiles(SftpServiceState state) throws IOException {
+            invocation++;
+            String remoteFolder = SftpServiceState.HOME_PATH + "/files-" + invocation;
+            Path localFolder = state.server.resolve(remoteFolder);
+            paths = new ArrayList <>(FILE_COUNT);
+            for (String file : BenchmarkFiles.createFiles(localFolder, FILE_COUNT, 0)) {
+                paths.add(remoteFolder + "/" + localFolder.relativize(new File(file).toPath()));
+            }
+            moveTarget = "moved-" + invocation;
+            Files.createDirectories(state.server.resolve(SftpServiceState.HOME_PATH + "/" + moveTarget));
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void createSmallFile(SftpServiceState state) throws IOException {
+        smallFile = new File(BenchmarkFiles.createFiles(state.localFolder.resolve("small"), 1, SMALL_FILE_SIZE).get(0));
+    }
+
+    @Benchmark
+    public void uploadSmallFile(SftpServiceState state, ByteCounter counter) throws Exception {
+        state.sftpService.uploadFile("small", smallFile);
+        counter.bytes += SMALL_FILE_SIZE;
+    }
+
+    @Benchmark
+    public String createDirectories(SftpServiceState state, DirectoryDepth directoryDepth) throws Exception {
+        // a new path every time, otherwise the directory cache answers without a round trip
+        StringBuilder path = new StringBuilder("dirs-").append(++directoryCount);
+        for (int i = 1; i < directoryDepth.depth; i++) {
+            path.append(File.separator).append("level-").append(i);
+        }
+        return state.sftpService.createDirectories(path.toString());
+    }
+
+    @Benchmark
+    public List <String> deleteMultipleFiles(SftpServiceState state, RemoteFiles files) throws Exception {
+        return state.sftpService.deleteMultipleFiles(files.paths);
+    }
+
+    @Benchmark
+    public List <String> moveRemoteFiles(SftpServiceState state, RemoteFiles files) throws Exception {
+        return state.sftpService.moveRemoteFiles(files.paths, files.moveTarget);
+    }
+}
@@ -0,0 +1,73 @@
+package com.aceprogrammer.sftputil.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.aceprogrammer.sftputil.config.SftpConfig;
+import com.aceprogrammer.sftputil.config.SftpPoolConfig;
+import com.aceprogrammer.sftputil.config.TransportProfile;
+import com.aceprogrammer.sftputil.exception.SftpConfigException;
+import com.aceprogrammer.sftputil.service.SftpService;
+import com.aceprogrammer.sftputil.service.SftpServiceImpl;
+
+/**
+ * An embedded server and an initialized service shared by all iterations of a trial
+ *
+ * @author Mohammed Salman Shaikh
+ */
+@State(Scope.Benchmark)
+public class SftpServiceState {
+
+    public static final String HOME_PATH = "/home";
+
+    public EmbeddedSftpServer server;
+
+    public SftpService sftpService;
+
+    /**
+     * local scratch folder of the trial
+     */
+    public Path localFolder;
+
+    /**
+     * @return channels used by batch operations, see {@link SftpConfig#getParallelism()}
+     */
+    protected int getParallelism() {
+        return 1;
+    }
+
+    /**
+     * @return algorithms of the ssh transport, see {@link SftpConfig#getTransportProfile()}
+     */
+    protected TransportProfile getTransportProfile() {
+        return TransportProfile.DEFAULT;
+    }
+
+    @Setup(Level.Trial)
+    public void startServer() throws IOException, SftpConfigException {
+        int parallelism = getParallelism();
+        server = new EmbeddedSftpServer();
+        Files.createDirectories(server.resolve(HOME_PATH));
+        localFolder = Files.createTempDirectory("sftputil-benchmark-local");
+        sftpService = new SftpServiceImpl();
+        sftpService.initialize(SftpConfig.builder().host("localhost").port(server.getPort())
+                .userName(EmbeddedSftpServer.USER_NAME).password(EmbeddedSftpServer.PASSWORD).homePath(HOME_PATH)
+                .parallelism(parallelism).transportProfile(getTransportProfile())
+                .poolConfig(SftpPoolConfig.builder().maxTotal(Math.max(4, parallelism)).minIdle(parallelism).build())
+                .build());
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() throws IOException {
+        sftpService.shutdown();
+        server.stop();
+        BenchmarkFiles.deleteRecursively(localFolder);
+    }
+}
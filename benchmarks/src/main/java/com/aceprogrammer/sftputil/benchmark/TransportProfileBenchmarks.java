@@ -0,0 +1,93 @@
+package com.aceprogrammer.sftputil.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Upload and download throughput of a single stream per transport profile, for data which compresses
+ * well and for data which does not compress at all
+ *
+ * @author Mohammed Salman Shaikh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransportProfileBenchmarks {
+
+    private static final int DATA_SIZE = 4 * 1024 * 1024;
+
+    private static final String REMOTE_FILE = "transport.bin";
+
+    private static final byte[] CSV_LINE = "2024-01-31,ACME-4711,warehouse-7,shipped,00012,0000031.50\n"
+            .getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * COMPRESSIBLE repeats a csv line, RANDOM stands for already compressed or encrypted data
+     */
+    @Param({"COMPRESSIBLE", "RANDOM"})
+    public String data;
+
+    private byte[] payload;
+
+    @Setup(Level.Trial)
+    public void createPayload(TransportProfileState state) throws Exception {
+        payload = new byte[DATA_SIZE];
+        if ("RANDOM".equals(data)) {
+            new Random(42).nextBytes(payload);
+        } else {
+            for (int i = 0; i < payload.length; i++) {
+                payload[i] = CSV_LINE[i % CSV_LINE.length];
+            }
+        }
+        state.sftpService.upload(REMOTE_FILE, new ByteArrayInputStream(payload));
+    }
+
+    @Benchmark
+    public void upload(TransportProfileState state, ByteCounter counter) throws Exception {
+        state.sftpService.upload(REMOTE_FILE, new ByteArrayInputStream(payload));
+        counter.bytes += DATA_SIZE;
+    }
+
+    @Benchmark
+    public void download(TransportProfileState state, ByteCounter counter) throws Exception {
+        state.sftpService.download(REMOTE_FILE, DiscardingOutputStream.INSTANCE);
+        counter.bytes += DATA_SIZE;
+    }
+
+    /**
+     * Keeps the local side out of the measurement
+     */
+    private static class DiscardingOutputStream extends OutputStream {
+
+        private static final DiscardingOutputStream INSTANCE = new DiscardingOutputStream();
+
+        @Override
+        public void write(int b) {
+            // discarded
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            // discarded
+        }
+    }
+}
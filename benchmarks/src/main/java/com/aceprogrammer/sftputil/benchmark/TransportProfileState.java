@@ -0,0 +1,31 @@
+package com.aceprogrammer.sftputil.benchmark;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import com.aceprogrammer.sftputil.config.TransportProfile;
+
+/**
+ * Service state of the transport benchmarks, connected with each of the predefined profiles
+ *
+ * @author Mohammed Salman Shaikh
+ */
+@State(Scope.Benchmark)
+public class TransportProfileState extends SftpServiceState {
+
+    @Param({"DEFAULT", "FAST", "COMPRESSED"})
+    public String profile;
+
+    @Override
+    protected TransportProfile getTransportProfile() {
+        switch (profile) {
+            case "FAST":
+                return TransportProfile.FAST;
+            case "COMPRESSED":
+                return TransportProfile.COMPRESSED;
+            default:
+                return TransportProfile.DEFAULT;
+        }
+    }
+}
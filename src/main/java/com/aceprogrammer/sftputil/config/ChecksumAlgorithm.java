@@ -0,0 +1,63 @@
+package com.aceprogrammer.sftputil.config;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.CRC32;
+
+import com.aceprogrammer.sftputil.transfer.ChecksumDigest;
+
+/**
+ * Digest computed over the bytes of a transfer when {@link ChecksumVerification} is enabled.
+ * The crc variants are the cheapest and catch accidental corruption, the cryptographic ones
+ * are needed to compare with checksums produced by other tools, e.g. sha256sum.
+ *
+ * @author Mohammed Salman Shaikh
+ */
+public enum ChecksumAlgorithm {
+
+    CRC32(".crc32"),
+    /**
+     * uses the intrinsic of java 9 and later where available
+     */
+    CRC32C(".crc32c"),
+    MD5(".md5"),
+    SHA_256(".sha256");
+
+    private final String sidecarExtension;
+
+    ChecksumAlgorithm(String sidecarExtension) {
+        this.sidecarExtension = sidecarExtension;
+    }
+
+    /**
+     * @return extension appended to the remote file name for its checksum file, e.g. ".sha256"
+     */
+    public String getSidecarExtension() {
+        return sidecarExtension;
+    }
+
+    /**
+     * @return a new digest, not thread safe
+     */
+    public MessageDigest newDigest() {
+        switch (this) {
+            case CRC32:
+                return new ChecksumDigest(name(), new CRC32());
+            case CRC32C:
+                return new ChecksumDigest(name(), ChecksumDigest.newCrc32c());
+            case MD5:
+                return getMessageDigest("MD5");
+            default:
+                return getMessageDigest("SHA-256");
+        }
+    }
+
+    private static MessageDigest getMessageDigest(String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            // every java platform is required to support MD5 and SHA-256
+            throw new IllegalStateException("Digest " + algorithm + " is not available", e);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.aceprogrammer.sftputil.config;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Verifies uploads and downloads with a checksum computed while the bytes stream through the
+ * transfer, so that the local file is never read a second time.
+ * <p>
+ * The number of streamed bytes is always compared with the size of the remote file. Since sftp
+ * has no standard way to have the server compute a checksum, the remote side is compared
+ * through a checksum file next to the remote file, see {@link #isSidecar()}, or by reading the
+ * uploaded file back, see {@link #isReReadRemote()}.
+ *
+ * @author Mohammed Salman Shaikh
+ */
+@Getter
+@ToString
+@Builder
+public class ChecksumVerification {
+
+    /**
+     * transfers are not verified
+     */
+    public static final ChecksumVerification NONE = ChecksumVerification.builder().algorithm(null).build();
+
+    /**
+     * digest computed over the transferred bytes, null disables verification
+     */
+    @Builder.Default
+    private ChecksumAlgorithm algorithm = ChecksumAlgorithm.SHA_256;
+
+    /**
+     * uploads write the checksum to a file named after the remote file plus
+     * {@link ChecksumAlgorithm#getSidecarExtension()}, in the format of sha256sum. Downloads
+     * compare with such a file where it exists.
+     */
+    @Builder.Default
+    private boolean sidecar = false;
+
+    /**
+     * uploads read the remote file back and compare its checksum, which doubles the network
+     * traffic but catches corruption on the server
+     */
+    @Builder.Default
+    private boolean reReadRemote = false;
+
+    public boolean isEnabled() {
+        return algorithm != null;
+    }
+}
@@ -0,0 +1,50 @@
+package com.aceprogrammer.sftputil.config;
+
+import com.aceprogrammer.sftputil.listing.RemoteFileFilter;
+import com.aceprogrammer.sftputil.listing.RemoteFileType;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Timings and handling of the files of a {@link com.aceprogrammer.sftputil.watch.RemotePoller}
+ *
+ * @author Mohammed Salman Shaikh
+ */
+@Getter
+@ToString
+@Builder
+public class PollConfig {
+
+    /**
+     * delay between the end of a poll and the start of the next one
+     */
+    @Builder.Default
+    private long pollIntervalMillis = 5_000L;
+
+    /**
+     * number of consecutive listings in which a file must show the same size and modification
+     * time before it is downloaded, 1 downloads files as soon as they are listed
+     */
+    @Builder.Default
+    private int stableListings = 2;
+
+    /**
+     * files to be picked up, directories and links are never downloaded
+     */
+    @Builder.Default
+    private RemoteFileFilter filter = RemoteFileFilter.builder().type(RemoteFileType.FILE).build();
+
+    /**
+     * remote folder relative to the home directory into which downloaded files are moved, created
+     * if missing. Null leaves the files in place, they are downloaded again only when they change.
+     */
+    private String processedRelativePath;
+
+    /**
+     * files present at the first poll are downloaded as well, else only files arriving afterwards
+     */
+    @Builder.Default
+    private boolean downloadExisting = true;
+}
@@ -0,0 +1,72 @@
+package com.aceprogrammer.sftputil.config;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+import com.aceprogrammer.sftputil.transfer.TransferFailures;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Decides how often and after which delay a failed transfer is attempted again. Resumable uploads
+ * as well as the files of batch operations are retried, the latter only for the failed files.
+ *
+ * @author Mohammed Salman Shaikh
+ */
+@Getter
+@ToString
+@Builder
+public class RetryPolicy {
+
+    /**
+     * single attempt, failures are final
+     */
+    public static final RetryPolicy NONE = RetryPolicy.builder().maxAttempts(1).build();
+
+    /**
+     * total number of attempts including the first one, 1 disables retries
+     */
+    @Builder.Default
+    private int maxAttempts = 3;
+
+    @Builder.Default
+    private long initialBackoffMillis = 1_000L;
+
+    @Builder.Default
+    private long maxBackoffMillis = 30_000L;
+
+    @Builder.Default
+    private double multiplier = 2.0;
+
+    /**
+     * fraction of the backoff randomly taken off, so that clients failing together do not retry together
+     */
+    @Builder.Default
+    private double jitter = 0.2;
+
+    /**
+     * decides which failures are worth another attempt, the others are final at once
+     */
+    @Builder.Default
+    private Predicate <Throwable> retryable = TransferFailures::isTransient;
+
+    /**
+     * @param attempt the attempt which just failed, starting from 1
+     * @return delay before the next attempt
+     */
+    public long getBackoffMillis(int attempt) {
+        double backoff = Math.min(initialBackoffMillis * Math.pow(multiplier, Math.max(0, attempt - 1)),
+                maxBackoffMillis);
+        double factor = 1 - Math.min(1, Math.max(0, jitter)) * ThreadLocalRandom.current().nextDouble();
+        return (long) (backoff * factor);
+    }
+
+    /**
+     * @return true if the failure is worth another attempt
+     */
+    public boolean isRetryable(Throwable failure) {
+        return retryable.test(failure);
+    }
+}
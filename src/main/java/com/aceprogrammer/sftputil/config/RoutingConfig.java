@@ -0,0 +1,31 @@
+package com.aceprogrammer.sftputil.config;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Routing and health checking of a {@link com.aceprogrammer.sftputil.routing.SftpRouter}
+ *
+ * @author Mohammed Salman Shaikh
+ */
+@Getter
+@ToString
+@Builder
+public class RoutingConfig {
+
+    @Builder.Default
+    private RoutingStrategy strategy = RoutingStrategy.CONSISTENT_HASH;
+
+    /**
+     * points per endpoint on the hash ring, more points spread the paths more evenly
+     */
+    @Builder.Default
+    private int virtualNodes = 128;
+
+    /**
+     * delay between two probes of every endpoint, an endpoint failing a probe is tried last until it passes one
+     */
+    @Builder.Default
+    private long healthCheckIntervalMillis = 10_000L;
+}
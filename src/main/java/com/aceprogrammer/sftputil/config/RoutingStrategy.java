@@ -0,0 +1,21 @@
+package com.aceprogrammer.sftputil.config;
+
+/**
+ * Decides which endpoint of a {@link com.aceprogrammer.sftputil.routing.SftpRouter} an operation goes to
+ *
+ * @author Mohammed Salman Shaikh
+ */
+public enum RoutingStrategy {
+
+    /**
+     * the remote path is hashed onto a ring of the endpoints, so that a path always goes to the same
+     * endpoint and only the paths of an added or removed endpoint move. The next endpoints on the ring
+     * are the replicas to fail over to.
+     */
+    CONSISTENT_HASH,
+
+    /**
+     * the endpoint with the fewest operations in progress, for servers sharing a storage
+     */
+    LEAST_LOADED
+}
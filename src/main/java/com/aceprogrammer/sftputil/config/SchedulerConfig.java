@@ -0,0 +1,54 @@
+package com.aceprogrammer.sftputil.config;
+
+import com.aceprogrammer.sftputil.transfer.BandwidthLimiter;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Limits of a {@link com.aceprogrammer.sftputil.scheduler.TransferScheduler}
+ *
+ * @author Mohammed Salman Shaikh
+ */
+@Getter
+@ToString
+@Builder
+public class SchedulerConfig {
+
+    /**
+     * operations running at a time, should not exceed maxTotal of the pool
+     */
+    @Builder.Default
+    private int maxConcurrency = 4;
+
+    /**
+     * operations waiting to run, further submissions block until one is started
+     */
+    @Builder.Default
+    private int maxQueuedTransfers = 1000;
+
+    /**
+     * operations of a single tenant waiting to run, so that one tenant cannot fill the queue, must be
+     * less than maxQueuedTransfers. 0 for a quarter of maxQueuedTransfers
+     */
+    @Builder.Default
+    private int maxQueuedTransfersPerTenant = 0;
+
+    /**
+     * bandwidth cap of all transfers of the scheduler i.e. of its host, 0 for none
+     */
+    @Builder.Default
+    private long bytesPerSecond = 0;
+
+    /**
+     * bytes passing at full speed after the scheduler was idle, defaults to one second worth of bytesPerSecond
+     */
+    @Builder.Default
+    private long burstBytes = 0;
+
+    /**
+     * cap shared with the schedulers of other hosts, null for none
+     */
+    private BandwidthLimiter globalLimiter;
+}
@@ -1,5 +1,8 @@
 package com.aceprogrammer.sftputil.config;
 
+import com.aceprogrammer.sftputil.constants.SftpConstants;
+import com.aceprogrammer.sftputil.metrics.TransferListener;
+
 import lombok.Builder;
 import lombok.Getter;
 import lombok.ToString;
@@ -10,7 +13,7 @@ import lombok.ToString;
  */
 @Getter
 @ToString
-@Builder
+@Builder(toBuilder = true)
 public class SftpConfig {
 
     private String host;
@@ -22,4 +25,82 @@ public class SftpConfig {
     private int port;
 
     private String homePath;
+
+    @Builder.Default
+    private SftpPoolConfig poolConfig = SftpPoolConfig.builder().build();
+
+    /**
+     * number of channels used concurrently by batch operations, 1 keeps them sequential
+     */
+    @Builder.Default
+    private int parallelism = 1;
+
+    /**
+     * maximum number of files waiting for a free channel in a parallel batch
+     */
+    @Builder.Default
+    private int transferQueueCapacity = 1024;
+
+    /**
+     * files of at least this size are downloaded in segments over parallel channels
+     * when parallelism is more than 1
+     */
+    @Builder.Default
+    private long segmentedDownloadThreshold = 256L * 1024 * 1024;
+
+    /**
+     * size of the byte range fetched by a single channel in a segmented download
+     */
+    @Builder.Default
+    private long segmentSize = 32L * 1024 * 1024;
+
+    @Builder.Default
+    private RetryPolicy retryPolicy = RetryPolicy.builder().build();
+
+    /**
+     * local directory keeping the checkpoints of resumable uploads in flight
+     */
+    @Builder.Default
+    private String checkpointDirectory = System.getProperty("java.io.tmpdir") + "/sftputil-checkpoints";
+
+    /**
+     * receives connection timings, operation latencies and transfer progress,
+     * e.g. an {@link com.aceprogrammer.sftputil.metrics.InMemoryTransferMetrics}
+     */
+    @Builder.Default
+    private TransferListener transferListener = TransferListener.NOOP;
+
+    /**
+     * ciphers, macs, key exchanges and compression of the ssh transport, see {@link TransportProfile#FAST}
+     */
+    @Builder.Default
+    private TransportProfile transportProfile = TransportProfile.DEFAULT;
+
+    /**
+     * checksum computed while streaming uploads and downloads and compared with the remote file,
+     * {@link ChecksumVerification#NONE} to skip verification
+     */
+    @Builder.Default
+    private ChecksumVerification checksumVerification = ChecksumVerification.NONE;
+
+    /**
+     * uploads write to a hidden partial file next to the remote file and rename it when complete,
+     * so that readers of the remote folder never see a half written file
+     */
+    @Builder.Default
+    private boolean atomicUpload = false;
+
+    /**
+     * size of the pooled direct buffers through which local files are read and written, and of the
+     * chunks copied by segmented downloads and checksum comparisons
+     */
+    @Builder.Default
+    private int transferBufferSize = SftpConstants.TRANSFER_BUFFER_SIZE;
+
+    /**
+     * local files of at least this size are uploaded from memory mapped windows instead of through
+     * the buffers, {@link Long#MAX_VALUE} never maps files
+     */
+    @Builder.Default
+    private long memoryMapThreshold = 16L * 1024 * 1024;
 }
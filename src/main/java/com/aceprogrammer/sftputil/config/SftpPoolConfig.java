@@ -0,0 +1,77 @@
+package com.aceprogrammer.sftputil.config;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Tuning parameters of the pool of ssh sessions and sftp channels
+ * maintained for a single {@link SftpConfig}
+ *
+ * @author Mohammed Salman Shaikh
+ */
+@Getter
+@ToString
+@Builder
+public class SftpPoolConfig {
+
+    /**
+     * maximum number of connections (session + channel) open at the same time
+     */
+    @Builder.Default
+    private int maxTotal = 8;
+
+    /**
+     * number of connections opened eagerly while initializing the service
+     */
+    @Builder.Default
+    private int minIdle = 0;
+
+    /**
+     * time for which the caller waits for a free connection before giving up
+     */
+    @Builder.Default
+    private long borrowTimeoutMillis = 30_000L;
+
+    /**
+     * idle connections older than this are closed by the evictor
+     */
+    @Builder.Default
+    private long maxIdleMillis = 60_000L;
+
+    /**
+     * connections older than this are closed instead of being reused
+     */
+    @Builder.Default
+    private long maxLifetimeMillis = 30 * 60_000L;
+
+    /**
+     * interval of ssh keepalive messages, 0 disables keepalive
+     */
+    @Builder.Default
+    private int keepAliveIntervalMillis = 15_000;
+
+    /**
+     * interval at which the evictor looks for idle/expired connections
+     */
+    @Builder.Default
+    private long evictionIntervalMillis = 30_000L;
+
+    /**
+     * check that session and channel are still connected before handing them out
+     */
+    @Builder.Default
+    private boolean validateOnBorrow = true;
+
+    /**
+     * time for which a remote directory is trusted to exist once seen, 0 disables the cache
+     */
+    @Builder.Default
+    private long directoryCacheTtlMillis = 5 * 60_000L;
+
+    /**
+     * maximum number of remote directories remembered by the pool
+     */
+    @Builder.Default
+    private int directoryCacheMaxEntries = 10_000;
+}
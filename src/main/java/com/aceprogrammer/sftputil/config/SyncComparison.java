@@ -0,0 +1,27 @@
+package com.aceprogrammer.sftputil.config;
+
+/**
+ * Decides when a file present on both sides is unchanged and skipped by a sync.
+ * A file missing on the other side or differing in size is always transferred.
+ *
+ * @author Mohammed Salman Shaikh
+ */
+public enum SyncComparison {
+
+    /**
+     * files of the same size are unchanged
+     */
+    SIZE,
+
+    /**
+     * files of the same size and modification time, to the second, are unchanged.
+     * Synced files get the modification time of their source.
+     */
+    SIZE_AND_MTIME,
+
+    /**
+     * files of the same size are read on both sides and unchanged if their SHA-256 digests match,
+     * which saves writing the file but not reading it
+     */
+    CHECKSUM
+}
@@ -0,0 +1,113 @@
+package com.aceprogrammer.sftputil.config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.aceprogrammer.sftputil.constants.ConfigFields;
+import com.aceprogrammer.sftputil.constants.ConfigValues;
+import com.jcraft.jsch.JSch;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Algorithms negotiated by the ssh transport of every pooled session, in order of preference.
+ * Lists left null keep the defaults of jsch.
+ * <p>
+ * Only algorithms known to jsch can be used, which for the bundled version means no gcm or
+ * chacha20 ciphers. Compression pays off for compressible data on slow links and costs cpu on
+ * already compressed data, it requires com.jcraft:jzlib on the classpath.
+ *
+ * @author Mohammed Salman Shaikh
+ */
+@Getter
+@ToString
+@Builder
+public class TransportProfile {
+
+    /**
+     * defaults of jsch
+     */
+    public static final TransportProfile DEFAULT = TransportProfile.builder().build();
+
+    /**
+     * cheapest secure algorithms for bulk transfer, aes-ni makes aes128-ctr the fastest cipher of jsch
+     */
+    public static final TransportProfile FAST = TransportProfile.builder()
+            .ciphers(Arrays.asList("aes128-ctr", "aes256-ctr"))
+            .macs(Arrays.asList("hmac-sha1", "hmac-sha2-256"))
+            .keyExchanges(Arrays.asList("ecdh-sha2-nistp256", "diffie-hellman-group14-sha1",
+                    "diffie-hellman-group-exchange-sha256"))
+            .build();
+
+    /**
+     * {@link #FAST} with the fastest compression level, for compressible data such as text or csv
+     */
+    public static final TransportProfile COMPRESSED = TransportProfile.builder()
+            .ciphers(FAST.ciphers).macs(FAST.macs).keyExchanges(FAST.keyExchanges)
+            .compression(true).compressionLevel(1)
+            .build();
+
+    private List <String> ciphers;
+
+    private List <String> macs;
+
+    private List <String> keyExchanges;
+
+    /**
+     * offers zlib@openssh.com and zlib in both directions, falling back to none if the server has neither
+     */
+    @Builder.Default
+    private boolean compression = false;
+
+    /**
+     * zlib level from 1, fastest, to 9, smallest
+     */
+    @Builder.Default
+    private int compressionLevel = 6;
+
+    /**
+     * @return session config entries of jsch for the algorithms which are not left to the defaults
+     */
+    public Map <String, String> getSessionConfig() {
+        Map <String, String> sessionConfig = new LinkedHashMap <>();
+        if (ciphers != null) {
+            sessionConfig.put(ConfigFields.CIPHER_CLIENT_TO_SERVER, String.join(",", ciphers));
+            sessionConfig.put(ConfigFields.CIPHER_SERVER_TO_CLIENT, String.join(",", ciphers));
+        }
+        if (macs != null) {
+            sessionConfig.put(ConfigFields.MAC_CLIENT_TO_SERVER, String.join(",", macs));
+            sessionConfig.put(ConfigFields.MAC_SERVER_TO_CLIENT, String.join(",", macs));
+        }
+        if (keyExchanges != null) {
+            sessionConfig.put(ConfigFields.KEX, String.join(",", keyExchanges));
+        }
+        if (compression) {
+            sessionConfig.put(ConfigFields.COMPRESSION_CLIENT_TO_SERVER, ConfigValues.ZLIB_COMPRESSIONS);
+            sessionConfig.put(ConfigFields.COMPRESSION_SERVER_TO_CLIENT, ConfigValues.ZLIB_COMPRESSIONS);
+            sessionConfig.put(ConfigFields.COMPRESSION_LEVEL, String.valueOf(compressionLevel));
+        }
+        return sessionConfig;
+    }
+
+    /**
+     * @return the configured algorithms which jsch does not implement, empty if all are supported
+     */
+    public List <String> getUnsupportedAlgorithms() {
+        List <String> unsupported = new ArrayList <>();
+        for (List <String> algorithms : Arrays.asList(ciphers, macs, keyExchanges)) {
+            if (algorithms != null) {
+                for (String algorithm : algorithms) {
+                    if (JSch.getConfig(algorithm) == null) {
+                        unsupported.add(algorithm);
+                    }
+                }
+            }
+        }
+        return unsupported;
+    }
+}
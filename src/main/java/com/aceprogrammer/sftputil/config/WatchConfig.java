@@ -0,0 +1,53 @@
+package com.aceprogrammer.sftputil.config;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Timings and batching of a {@link com.aceprogrammer.sftputil.watch.FolderWatcher}
+ *
+ * @author Mohammed Salman Shaikh
+ */
+@Getter
+@ToString
+@Builder
+public class WatchConfig {
+
+    /**
+     * a file is considered complete once its size and modification time did not change for this long
+     */
+    @Builder.Default
+    private long stabilityMillis = 1_000L;
+
+    /**
+     * complete files are held back until no further file arrived for this long, so that files
+     * arriving together are uploaded in one batch
+     */
+    @Builder.Default
+    private long quietPeriodMillis = 200L;
+
+    /**
+     * complete files are uploaded at the latest after this long even if more files keep arriving
+     */
+    @Builder.Default
+    private long maxBatchDelayMillis = 2_000L;
+
+    /**
+     * maximum number of files uploaded by a single call to the service
+     */
+    @Builder.Default
+    private int maxBatchSize = 500;
+
+    /**
+     * only file names matching this glob are uploaded, names starting with a dot never are
+     */
+    @Builder.Default
+    private String glob = "*";
+
+    /**
+     * files already present when a folder is registered are uploaded as well
+     */
+    @Builder.Default
+    private boolean uploadExisting = false;
+}
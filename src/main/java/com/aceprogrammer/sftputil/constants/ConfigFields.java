@@ -8,4 +8,12 @@ public class ConfigFields {
 
     public static final String STRICT_HOSTKEY_CHECKING = "StrictHostKeyChecking";
     public static final String SFTP_CHANNEL = "sftp";
+    public static final String CIPHER_CLIENT_TO_SERVER = "cipher.c2s";
+    public static final String CIPHER_SERVER_TO_CLIENT = "cipher.s2c";
+    public static final String MAC_CLIENT_TO_SERVER = "mac.c2s";
+    public static final String MAC_SERVER_TO_CLIENT = "mac.s2c";
+    public static final String KEX = "kex";
+    public static final String COMPRESSION_CLIENT_TO_SERVER = "compression.c2s";
+    public static final String COMPRESSION_SERVER_TO_CLIENT = "compression.s2c";
+    public static final String COMPRESSION_LEVEL = "compression_level";
 }
@@ -8,4 +8,5 @@ public class ConfigValues {
 
     public static final String DISABLE_STRICT_HOSTKEY_CHECKING = "no";
     public static final String ENABLE_STRICT_HOSTKEY_CHECKING = "yes";
+    public static final String ZLIB_COMPRESSIONS = "zlib@openssh.com,zlib,none";
 }
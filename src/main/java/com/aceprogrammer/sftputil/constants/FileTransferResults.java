@@ -8,4 +8,6 @@ public class FileTransferResults {
 
     public static final String FAILURE = "failure";
     public static final String SUCCESS = "success";
+    public static final String SKIPPED = "skipped";
+    public static final String MISSING = "missing";
 }
@@ -9,6 +9,8 @@ public class SftpConstants {
 	public static final String FILE_SEPARATOR = "/";
 	public static final String SESSION_CONNECT = "Session Connected!";
 	public static final String CHANNEL_CONNECT = "Channel Connected!";
+	public static final int TRANSFER_BUFFER_SIZE = 32 * 1024;
+	public static final String PARTIAL_FILE_SUFFIX = ".part";
 	
 	private SftpConstants() {}
 
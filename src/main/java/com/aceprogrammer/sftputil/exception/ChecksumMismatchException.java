@@ -0,0 +1,16 @@
+package com.aceprogrammer.sftputil.exception;
+
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.SftpException;
+
+/**
+ * Exception class used to denote a transfer whose size or checksum
+ * does not match the remote file. Extends {@link SftpException} since
+ * it is thrown by the transfers in place of their sftp failures.
+ */
+public class ChecksumMismatchException extends SftpException {
+
+    public ChecksumMismatchException(String errorMessage) {
+        super(ChannelSftp.SSH_FX_FAILURE, errorMessage);
+    }
+}
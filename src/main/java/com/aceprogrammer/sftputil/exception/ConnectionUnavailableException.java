@@ -0,0 +1,20 @@
+package com.aceprogrammer.sftputil.exception;
+
+import com.jcraft.jsch.JSchException;
+
+/**
+ * Exception class used to denote that no pooled connection could be
+ * handed out, because the pool timed out, was interrupted or closed.
+ * Unlike other {@link JSchException}s it does not mean that the host
+ * is unreachable.
+ */
+public class ConnectionUnavailableException extends JSchException {
+
+    public ConnectionUnavailableException(String errorMessage) {
+        super(errorMessage);
+    }
+
+    public ConnectionUnavailableException(String errorMessage, Throwable cause) {
+        super(errorMessage, cause);
+    }
+}
@@ -0,0 +1,97 @@
+package com.aceprogrammer.sftputil.listing;
+
+import java.util.regex.Pattern;
+
+import com.aceprogrammer.sftputil.constants.SftpConstants;
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.SftpATTRS;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Conditions a listing entry must meet to be handed out by a {@link RemoteFileIterator}.
+ * Entries are filtered while the listing arrives, so rejected entries are never buffered.
+ * The entries . and .. are always rejected.
+ *
+ * @author Mohammed Salman Shaikh
+ */
+@Getter
+@ToString
+@Builder
+public class RemoteFileFilter {
+
+    /**
+     * accepts every entry except . and ..
+     */
+    public static final RemoteFileFilter ALL = RemoteFileFilter.builder().build();
+
+    /**
+     * glob with * and ? on the file name, matched by jsch before the entry is even created
+     */
+    private String glob;
+
+    /**
+     * regular expression the whole file name must match
+     */
+    private Pattern namePattern;
+
+    /**
+     * inclusive size bounds in bytes, not applied to directories
+     */
+    @Builder.Default
+    private long minSize = 0;
+
+    @Builder.Default
+    private long maxSize = Long.MAX_VALUE;
+
+    /**
+     * inclusive bounds of the modification time in epoch millis, the server keeps it to the second
+     */
+    @Builder.Default
+    private long modifiedFromMillis = Long.MIN_VALUE;
+
+    @Builder.Default
+    private long modifiedToMillis = Long.MAX_VALUE;
+
+    @Builder.Default
+    private RemoteFileType type = RemoteFileType.ANY;
+
+    /**
+     * @return path to be listed by jsch, with the glob pushed down as the pattern of the last segment
+     */
+    public String getListingPath(String remoteFolder) {
+        return glob == null ? remoteFolder : remoteFolder + SftpConstants.FILE_SEPARATOR + glob;
+    }
+
+    public boolean accept(ChannelSftp.LsEntry entry) {
+        String fileName = entry.getFilename();
+        if (".".equals(fileName) || "..".equals(fileName)) {
+            return false;
+        }
+        SftpATTRS attributes = entry.getAttrs();
+        if (!acceptType(attributes)) {
+            return false;
+        }
+        if (!attributes.isDir() && (attributes.getSize() < minSize || attributes.getSize() > maxSize)) {
+            return false;
+        }
+        long modifiedMillis = attributes.getMTime() * 1000L;
+        if (modifiedMillis < modifiedFromMillis || modifiedMillis > modifiedToMillis) {
+            return false;
+        }
+        return namePattern == null || namePattern.matcher(fileName).matches();
+    }
+
+    private boolean acceptType(SftpATTRS attributes) {
+        switch (type) {
+            case FILE:
+                return !attributes.isDir() && !attributes.isLink();
+            case DIRECTORY:
+                return attributes.isDir();
+            default:
+                return true;
+        }
+    }
+}
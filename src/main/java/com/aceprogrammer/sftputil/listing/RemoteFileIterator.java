@@ -0,0 +1,245 @@
+package com.aceprogrammer.sftputil.listing;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.aceprogrammer.sftputil.constants.ConfigFields;
+import com.aceprogrammer.sftputil.pool.PooledConnection;
+import com.aceprogrammer.sftputil.pool.SftpConnectionPool;
+import com.jcraft.jsch.Channel;
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.ChannelSftp.LsEntrySelector;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.SftpException;
+
+/**
+ * Lazy listing of a remote folder. Jsch hands the entries of every READDIR response to an
+ * {@link LsEntrySelector} on a background thread, which filters them and passes them through
+ * a bounded queue, so the first entries can be consumed while the rest are still arriving and
+ * at most capacity entries are held in memory.
+ * <p>
+ * The listing runs on its own pooled connection, which is given back once the listing ends or
+ * the iterator is closed, or on a channel of its own over the session of the caller when the
+ * pool has none to spare. Always close the iterator, e.g. with try-with-resources, when it is
+ * not consumed to the end. Failures of the listing are thrown by {@link #hasNext()} as
+ * {@link IllegalStateException} with the cause attached.
+ *
+ * @author Mohammed Salman Shaikh
+ */
+public class RemoteFileIterator implements Iterator <ChannelSftp.LsEntry>, Closeable {
+
+    /**
+     * entries buffered between the listing and the consumer by default
+     */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private static final Object END = new Object();
+
+    private static final long POLL_INTERVAL_MILLIS = 50L;
+
+    private final Log logger = LogFactory.getLog(this.getClass());
+
+    private final String remoteFolder;
+
+    private final BlockingQueue <Object> entries;
+
+    private volatile boolean closed;
+
+    /**
+     * set by the listing thread once it stopped, whether or not END was queued
+     */
+    private volatile boolean listingStopped;
+
+    private ChannelSftp.LsEntry next;
+
+    private boolean ended;
+
+    private RemoteFileIterator(String remoteFolder, BlockingQueue <Object> entries) {
+        this.remoteFolder = remoteFolder;
+        this.entries = entries;
+    }
+
+    /**
+     * Starts listing on a connection borrowed from the pool, waiting for one if necessary
+     *
+     * @param remoteFolder absolute path of the remote folder
+     * @throws JSchException if no connection could be borrowed
+     */
+    public static RemoteFileIterator open(SftpConnectionPool connectionPool, Executor executor, String remoteFolder,
+                                          RemoteFileFilter filter, int capacity) throws JSchException {
+        PooledConnection connection = connectionPool.borrow();
+        return start(connection.getChannel(), () -> connectionPool.release(connection), executor, remoteFolder,
+                filter, capacity);
+    }
+
+    /**
+     * Starts listing on a spare connection of the pool. If none is available without waiting, the
+     * folder is listed on another sftp channel opened over the ssh session of the caller, which
+     * never blocks on the pool and leaves the channel of the caller free for the transfers.
+     *
+     * @param callerChannel channel held by the caller, whose session is used only when the pool has no
+     *                      spare connection
+     * @throws JSchException if no channel could be opened over the session of the caller
+     */
+    public static RemoteFileIterator open(SftpConnectionPool connectionPool, Executor executor,
+                                          ChannelSftp callerChannel, String remoteFolder, RemoteFileFilter filter,
+                                          int capacity) throws JSchException {
+        PooledConnection connection = connectionPool.tryBorrow();
+        if (connection != null) {
+            return start(connection.getChannel(), () -> connectionPool.release(connection), executor, remoteFolder,
+                    filter, capacity);
+        }
+        Channel channel = callerChannel.getSession().openChannel(ConfigFields.SFTP_CHANNEL);
+        try {
+            channel.connect();
+        } catch (JSchException e) {
+            channel.disconnect();
+            throw e;
+        }
+        return start((ChannelSftp) channel, channel::disconnect, executor, remoteFolder, filter, capacity);
+    }
+
+    /**
+     * @param release gives the channel back once the listing stopped
+     */
+    private static RemoteFileIterator start(ChannelSftp sftp, Runnable release, Executor executor,
+                                            String remoteFolder, RemoteFileFilter filter, int capacity) {
+        RemoteFileIterator iterator = new RemoteFileIterator(remoteFolder,
+                new ArrayBlockingQueue <>(Math.max(1, capacity)));
+        try {
+            executor.execute(() -> {
+                try {
+                    iterator.list(sftp, filter);
+                } finally {
+                    release.run();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            release.run();
+            throw e;
+        }
+        return iterator;
+    }
+
+    private void list(ChannelSftp sftp, RemoteFileFilter filter) {
+        try {
+            sftp.ls(filter.getListingPath(remoteFolder), entry -> {
+                if (!closed && filter.accept(entry)) {
+                    enqueue(entry);
+                }
+                // jsch reads the rest of the response and closes the handle on BREAK
+                return closed ? LsEntrySelector.BREAK : LsEntrySelector.CONTINUE;
+            });
+            enqueue(END);
+        } catch (SftpException | RuntimeException e) {
+            logger.error("Exception while listing remote folder:" + remoteFolder, e);
+            enqueue(new ListingFailure(e));
+        } finally {
+            listingStopped = true;
+        }
+    }
+
+    /**
+     * Blocks the listing while the consumer is behind, which stops jsch from reading further responses
+     */
+    private void enqueue(Object element) {
+        try {
+            while (!closed && !entries.offer(element, POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+                logger.trace("Waiting for the consumer of the listing of:" + remoteFolder);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            closed = true;
+        }
+    }
+
+    /**
+     * @throws IllegalStateException if the listing failed or the waiting thread was interrupted
+     */
+    @Override
+    public boolean hasNext() {
+        if (next == null && !ended) {
+            Object element = take();
+            if (element == END) {
+                ended = true;
+            } else if (element instanceof ListingFailure) {
+                ended = true;
+                throw new IllegalStateException("Listing of remote folder:" + remoteFolder + " failed",
+                        ((ListingFailure) element).cause);
+            } else {
+                next = (ChannelSftp.LsEntry) element;
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public ChannelSftp.LsEntry next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        ChannelSftp.LsEntry entry = next;
+        next = null;
+        return entry;
+    }
+
+    /**
+     * @return the remaining entries, closing the stream closes this iterator
+     */
+    public Stream <ChannelSftp.LsEntry> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this,
+                Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(this::close);
+    }
+
+    /**
+     * Stops the listing at the next entry and discards the entries not consumed yet
+     */
+    @Override
+    public void close() {
+        closed = true;
+        ended = true;
+        next = null;
+        entries.clear();
+    }
+
+    private Object take() {
+        try {
+            Object element;
+            while ((element = entries.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+                if (listingStopped && entries.isEmpty()) {
+                    return new ListingFailure(new IllegalStateException("Listing was interrupted"));
+                }
+            }
+            return element;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new IllegalStateException("Interrupted while waiting for the listing of:" + remoteFolder, e);
+        }
+    }
+
+    /**
+     * Queued in place of END when the listing failed
+     */
+    private static class ListingFailure {
+
+        private final Exception cause;
+
+        private ListingFailure(Exception cause) {
+            this.cause = cause;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.aceprogrammer.sftputil.listing;
+
+/**
+ * Kinds of listing entries accepted by a {@link RemoteFileFilter}
+ *
+ * @author Mohammed Salman Shaikh
+ */
+public enum RemoteFileType {
+
+    /**
+     * regular files, neither directories nor symbolic links
+     */
+    FILE,
+
+    DIRECTORY,
+
+    ANY
+}
@@ -0,0 +1,99 @@
+package com.aceprogrammer.sftputil.metrics;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Default {@link TransferListener} keeping counters and latency histograms in memory,
+ * which can be read at any time through {@link #snapshot()}
+ *
+ * @author Mohammed Salman Shaikh
+ */
+public class InMemoryTransferMetrics implements TransferListener {
+
+    private final LatencyHistogram handshake = new LatencyHistogram();
+
+    private final LatencyHistogram channelOpen = new LatencyHistogram();
+
+    private final Map <OperationType, Counters> counters = new EnumMap <>(OperationType.class);
+
+    public InMemoryTransferMetrics() {
+        for (OperationType type : OperationType.values()) {
+            counters.put(type, new Counters());
+        }
+    }
+
+    @Override
+    public void handshakeCompleted(long nanos) {
+        handshake.record(nanos);
+    }
+
+    @Override
+    public void channelOpened(long nanos) {
+        channelOpen.record(nanos);
+    }
+
+    @Override
+    public void operationStarted(OperationType type, String path) {
+        counters.get(type).inFlight.incrementAndGet();
+    }
+
+    @Override
+    public void bytesTransferred(OperationType type, long bytes) {
+        counters.get(type).bytes.add(bytes);
+    }
+
+    @Override
+    public void operationCompleted(OperationType type, String path, long bytes, long nanos) {
+        Counters operation = counters.get(type);
+        operation.inFlight.decrementAndGet();
+        operation.completedBytes.add(bytes);
+        operation.latency.record(nanos);
+    }
+
+    @Override
+    public void operationFailed(OperationType type, String path, long nanos, Exception e) {
+        Counters operation = counters.get(type);
+        operation.inFlight.decrementAndGet();
+        operation.failed.increment();
+    }
+
+    public MetricsSnapshot snapshot() {
+        Map <OperationType, OperationStats> operations = new EnumMap <>(OperationType.class);
+        for (Map.Entry <OperationType, Counters> entry : counters.entrySet()) {
+            Counters operation = entry.getValue();
+            LatencySnapshot latency = operation.latency.snapshot();
+            double seconds = latency.getTotalNanos() / 1e9;
+            operations.put(entry.getKey(), OperationStats.builder()
+                    .completed(latency.getCount())
+                    .failed(operation.failed.sum())
+                    .inFlight(operation.inFlight.get())
+                    .bytes(operation.bytes.sum())
+                    .bytesPerSecond(seconds > 0 ? operation.completedBytes.sum() / seconds : 0)
+                    .latency(latency)
+                    .build());
+        }
+        return MetricsSnapshot.builder()
+                .takenAtMillis(System.currentTimeMillis())
+                .handshake(handshake.snapshot())
+                .channelOpen(channelOpen.snapshot())
+                .operations(Collections.unmodifiableMap(operations))
+                .build();
+    }
+
+    private static class Counters {
+
+        private final AtomicLong inFlight = new AtomicLong();
+
+        private final LongAdder bytes = new LongAdder();
+
+        private final LongAdder completedBytes = new LongAdder();
+
+        private final LongAdder failed = new LongAdder();
+
+        private final LatencyHistogram latency = new LatencyHistogram();
+    }
+}
@@ -0,0 +1,73 @@
+package com.aceprogrammer.sftputil.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock free histogram of durations with one bucket per power of two microseconds,
+ * which bounds the error of a percentile to a factor of two at a fixed memory cost
+ *
+ * @author Mohammed Salman Shaikh
+ */
+public class LatencyHistogram {
+
+    /**
+     * the last bucket holds everything from about 18 minutes upwards
+     */
+    private static final int BUCKETS = 31;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder totalNanos = new LongAdder();
+
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public void record(long nanos) {
+        long micros = Math.max(0, nanos) / 1000;
+        int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+        buckets.incrementAndGet(bucket);
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public LatencySnapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        long max = maxNanos.get();
+        return LatencySnapshot.builder()
+                .count(total)
+                .totalNanos(totalNanos.sum())
+                .meanNanos(total == 0 ? 0 : totalNanos.sum() / total)
+                .p50Nanos(percentile(counts, total, 0.50, max))
+                .p90Nanos(percentile(counts, total, 0.90, max))
+                .p99Nanos(percentile(counts, total, 0.99, max))
+                .maxNanos(max)
+                .build();
+    }
+
+    /**
+     * @return upper bound of the bucket holding the percentile, at most the maximum recorded
+     */
+    private long percentile(long[] counts, long total, double percentile, long max) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * percentile);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(max, (1L << i) * 1000);
+            }
+        }
+        return max;
+    }
+}
@@ -0,0 +1,31 @@
+package com.aceprogrammer.sftputil.metrics;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Durations recorded by a {@link LatencyHistogram} up to the time of the snapshot.
+ * Percentiles are accurate to the power of two bucket they fall into.
+ *
+ * @author Mohammed Salman Shaikh
+ */
+@Getter
+@ToString
+@Builder
+public class LatencySnapshot {
+
+    private long count;
+
+    private long totalNanos;
+
+    private long meanNanos;
+
+    private long p50Nanos;
+
+    private long p90Nanos;
+
+    private long p99Nanos;
+
+    private long maxNanos;
+}
@@ -0,0 +1,30 @@
+package com.aceprogrammer.sftputil.metrics;
+
+import java.util.Map;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Point in time copy of the metrics recorded by {@link InMemoryTransferMetrics}
+ *
+ * @author Mohammed Salman Shaikh
+ */
+@Getter
+@ToString
+@Builder
+public class MetricsSnapshot {
+
+    private long takenAtMillis;
+
+    private LatencySnapshot handshake;
+
+    private LatencySnapshot channelOpen;
+
+    private Map <OperationType, OperationStats> operations;
+
+    public OperationStats getOperation(OperationType type) {
+        return operations.get(type);
+    }
+}
@@ -0,0 +1,37 @@
+package com.aceprogrammer.sftputil.metrics;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Counters of a single {@link OperationType} at the time of a snapshot
+ *
+ * @author Mohammed Salman Shaikh
+ */
+@Getter
+@ToString
+@Builder
+public class OperationStats {
+
+    private long completed;
+
+    private long failed;
+
+    private long inFlight;
+
+    /**
+     * bytes sent or received so far, including operations still in flight or failed later
+     */
+    private long bytes;
+
+    /**
+     * bytes of completed operations divided by the time they took
+     */
+    private double bytesPerSecond;
+
+    /**
+     * durations of completed operations
+     */
+    private LatencySnapshot latency;
+}
@@ -0,0 +1,38 @@
+package com.aceprogrammer.sftputil.metrics;
+
+/**
+ * Reports a single operation to a {@link TransferListener}, started on creation and
+ * ended by either {@link #completed(long)} or {@link #failed(Exception)}
+ *
+ * @author Mohammed Salman Shaikh
+ */
+public class OperationTimer {
+
+    private final TransferListener listener;
+
+    private final OperationType type;
+
+    private final String path;
+
+    private final long startedAt;
+
+    private OperationTimer(TransferListener listener, OperationType type, String path) {
+        this.listener = listener;
+        this.type = type;
+        this.path = path;
+        this.startedAt = System.nanoTime();
+    }
+
+    public static OperationTimer start(TransferListener listener, OperationType type, String path) {
+        listener.operationStarted(type, path);
+        return new OperationTimer(listener, type, path);
+    }
+
+    public void completed(long bytes) {
+        listener.operationCompleted(type, path, bytes, System.nanoTime() - startedAt);
+    }
+
+    public void failed(Exception e) {
+        listener.operationFailed(type, path, System.nanoTime() - startedAt, e);
+    }
+}
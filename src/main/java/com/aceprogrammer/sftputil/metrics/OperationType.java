@@ -0,0 +1,19 @@
+package com.aceprogrammer.sftputil.metrics;
+
+/**
+ * Kinds of remote operations reported to a {@link TransferListener}
+ *
+ * @author Mohammed Salman Shaikh
+ */
+public enum OperationType {
+
+    UPLOAD,
+
+    DOWNLOAD,
+
+    DELETE,
+
+    MOVE,
+
+    MKDIR
+}
@@ -0,0 +1,66 @@
+package com.aceprogrammer.sftputil.metrics;
+
+/**
+ * Receives timings and progress of the connections and operations of an sftp service.
+ * <p>
+ * Methods are called on the transferring threads, concurrently for parallel transfers,
+ * hence implementations must be thread safe and must not block. All methods do nothing
+ * by default so that implementations only override what they record.
+ *
+ * @author Mohammed Salman Shaikh
+ */
+public interface TransferListener {
+
+    /**
+     * Listener ignoring all events
+     */
+    TransferListener NOOP = new TransferListener() {
+    };
+
+    /**
+     * @param nanos time taken to connect and authenticate a new ssh session
+     */
+    default void handshakeCompleted(long nanos) {
+    }
+
+    /**
+     * @param nanos time taken to open the sftp channel on a new session
+     */
+    default void channelOpened(long nanos) {
+    }
+
+    /**
+     * @param path absolute remote path the operation works on
+     */
+    default void operationStarted(OperationType type, String path) {
+    }
+
+    /**
+     * Called for every chunk sent or received by an upload or download
+     */
+    default void bytesTransferred(OperationType type, long bytes) {
+    }
+
+    /**
+     * @param bytes total bytes transferred by the operation, 0 for operations without content
+     * @param nanos time taken by the operation
+     */
+    default void operationCompleted(OperationType type, String path, long bytes, long nanos) {
+    }
+
+    /**
+     * Called before {@link #operationCompleted(OperationType, String, long, long)} of an upload or
+     * download which passed the checksum verification
+     *
+     * @param algorithm name of the {@link com.aceprogrammer.sftputil.config.ChecksumAlgorithm}
+     * @param checksum  hex checksum of the transferred bytes
+     */
+    default void checksumVerified(OperationType type, String path, String algorithm, String checksum) {
+    }
+
+    /**
+     * @param nanos time until the operation failed
+     */
+    default void operationFailed(OperationType type, String path, long nanos, Exception e) {
+    }
+}
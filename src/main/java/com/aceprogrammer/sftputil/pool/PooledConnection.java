@@ -0,0 +1,68 @@
+package com.aceprogrammer.sftputil.pool;
+
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.Session;
+
+/**
+ * A connected ssh session along with the sftp channel opened over it
+ * which is handed out by {@link SftpConnectionPool}
+ *
+ * @author Mohammed Salman Shaikh
+ */
+public class PooledConnection {
+
+    private final Session session;
+
+    private final ChannelSftp channel;
+
+    /**
+     * the directory in which the channel landed after login
+     * used to restore the channel state before reusing it
+     */
+    private final String loginDirectory;
+
+    private final long createdAt;
+
+    private volatile long lastUsedAt;
+
+    PooledConnection(Session session, ChannelSftp channel, String loginDirectory) {
+        this.session = session;
+        this.channel = channel;
+        this.loginDirectory = loginDirectory;
+        this.createdAt = System.currentTimeMillis();
+        this.lastUsedAt = createdAt;
+    }
+
+    public ChannelSftp getChannel() {
+        return channel;
+    }
+
+    public Session getSession() {
+        return session;
+    }
+
+    String getLoginDirectory() {
+        return loginDirectory;
+    }
+
+    long getCreatedAt() {
+        return createdAt;
+    }
+
+    long getLastUsedAt() {
+        return lastUsedAt;
+    }
+
+    void touch() {
+        lastUsedAt = System.currentTimeMillis();
+    }
+
+    public boolean isConnected() {
+        return session.isConnected() && channel.isConnected() && !channel.isClosed();
+    }
+
+    void disconnect() {
+        channel.disconnect();
+        session.disconnect();
+    }
+}
@@ -0,0 +1,98 @@
+package com.aceprogrammer.sftputil.pool;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.aceprogrammer.sftputil.constants.SftpConstants;
+
+/**
+ * Remembers remote directories known to exist, so that creating directories for
+ * every upload does not cost a stat per path segment. Shared by all connections of
+ * a pool since they all point to the same server.
+ * <p>
+ * Entries expire after the configured ttl, since directories may be removed by others,
+ * and are dropped as soon as an operation on them fails.
+ *
+ * @author Mohammed Salman Shaikh
+ */
+public class RemoteDirectoryCache {
+
+    private final Map <String, Long> expiryByPath = new ConcurrentHashMap <>();
+
+    private final long ttlMillis;
+
+    private final int maxEntries;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param ttlMillis  time for which a directory is trusted to exist, 0 disables the cache
+     * @param maxEntries the cache is cleared once it grows beyond this size
+     */
+    public RemoteDirectoryCache(long ttlMillis, int maxEntries) {
+        this.ttlMillis = ttlMillis;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * @param path absolute remote path
+     * @return true if the directory is known to exist
+     */
+    public boolean contains(String path) {
+        if (ttlMillis <= 0) {
+            return false;
+        }
+        Long expiry = expiryByPath.get(path);
+        if (expiry != null && expiry > System.currentTimeMillis()) {
+            hits.incrementAndGet();
+            return true;
+        }
+        if (expiry != null) {
+            expiryByPath.remove(path, expiry);
+        }
+        misses.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * @param path absolute remote path of a directory which exists or was just created
+     */
+    public void add(String path) {
+        if (ttlMillis <= 0) {
+            return;
+        }
+        if (expiryByPath.size() >= maxEntries) {
+            expiryByPath.clear();
+        }
+        expiryByPath.put(path, System.currentTimeMillis() + ttlMillis);
+    }
+
+    /**
+     * Forgets the directory along with all directories below it
+     *
+     * @param path absolute remote path
+     */
+    public void invalidate(String path) {
+        String prefix = path + SftpConstants.FILE_SEPARATOR;
+        expiryByPath.keySet().removeIf(cached -> cached.equals(path) || cached.startsWith(prefix));
+    }
+
+    public void invalidateAll() {
+        expiryByPath.clear();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public int size() {
+        return expiryByPath.size();
+    }
+}
@@ -0,0 +1,298 @@
+package com.aceprogrammer.sftputil.pool;
+
+import static com.aceprogrammer.sftputil.constants.SftpConstants.CHANNEL_CONNECT;
+import static com.aceprogrammer.sftputil.constants.SftpConstants.SESSION_CONNECT;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.aceprogrammer.sftputil.config.SftpConfig;
+import com.aceprogrammer.sftputil.config.SftpPoolConfig;
+import com.aceprogrammer.sftputil.constants.ConfigFields;
+import com.aceprogrammer.sftputil.constants.ConfigValues;
+import com.aceprogrammer.sftputil.exception.ConnectionUnavailableException;
+import com.aceprogrammer.sftputil.metrics.TransferListener;
+import com.jcraft.jsch.Channel;
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.JSch;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.Session;
+import com.jcraft.jsch.SftpException;
+
+/**
+ * Bounded pool of connected ssh sessions and sftp channels for a single {@link SftpConfig}.
+ * <p>
+ * Every connection holds its own session so that concurrent borrowers do not share
+ * the ssh window of a single tcp connection. Connections are validated on borrow,
+ * restored to their login directory on release and closed by a background evictor
+ * once they stay idle or live longer than configured in {@link SftpPoolConfig}.
+ *
+ * @author Mohammed Salman Shaikh
+ */
+public class SftpConnectionPool {
+
+    private final Log logger = LogFactory.getLog(this.getClass());
+
+    private final SftpConfig sftpConfig;
+
+    private final SftpPoolConfig poolConfig;
+
+    private final JSch jSch = new JSch();
+
+    /**
+     * idle connections, most recently used first
+     */
+    private final LinkedBlockingDeque <PooledConnection> idleConnections = new LinkedBlockingDeque <>();
+
+    /**
+     * one permit per connection which may be handed out
+     */
+    private final Semaphore permits;
+
+    private final ScheduledExecutorService evictor;
+
+    private final RemoteDirectoryCache directoryCache;
+
+    private volatile boolean closed;
+
+    public SftpConnectionPool(SftpConfig sftpConfig) {
+        this.sftpConfig = sftpConfig;
+        this.poolConfig = sftpConfig.getPoolConfig();
+        this.permits = new Semaphore(poolConfig.getMaxTotal(), true);
+        this.directoryCache = new RemoteDirectoryCache(poolConfig.getDirectoryCacheTtlMillis(),
+                poolConfig.getDirectoryCacheMaxEntries());
+        this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sftp-pool-evictor-" + sftpConfig.getHost());
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = poolConfig.getEvictionIntervalMillis();
+        evictor.scheduleWithFixedDelay(this::evict, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Opens {@link SftpPoolConfig#getMinIdle()} connections upfront so that
+     * the first operations do not pay for the handshake
+     *
+     * @throws JSchException if any of the connections could not be opened
+     */
+    public void prepare() throws JSchException {
+        int count = Math.min(poolConfig.getMinIdle(), poolConfig.getMaxTotal());
+        for (int i = idleConnections.size(); i < count; i++) {
+            idleConnections.offerLast(createConnection());
+        }
+        logger.info("Pre-warmed " + idleConnections.size() + " sftp connections for host:" + sftpConfig.getHost());
+    }
+
+    /**
+     * Waits up to {@link SftpPoolConfig#getBorrowTimeoutMillis()} for a connection
+     *
+     * @return a connected session and channel, which must be given back by {@link #release(PooledConnection)}
+     * @throws ConnectionUnavailableException if pool is closed or timed out
+     * @throws JSchException                   if a new connection could not be opened
+     */
+    public PooledConnection borrow() throws JSchException {
+        ensureOpen();
+        try {
+            if (!permits.tryAcquire(poolConfig.getBorrowTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                throw new ConnectionUnavailableException("Timed out after " + poolConfig.getBorrowTimeoutMillis()
+                        + "ms waiting for an sftp connection to host:" + sftpConfig.getHost());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConnectionUnavailableException("Interrupted while waiting for an sftp connection", e);
+        }
+        return obtain();
+    }
+
+    /**
+     * Hands out a connection only if one is available without waiting
+     *
+     * @return a connection or null if the pool is exhausted or a new connection could not be opened
+     */
+    public PooledConnection tryBorrow() {
+        if (closed || !permits.tryAcquire()) {
+            return null;
+        }
+        try {
+            return obtain();
+        } catch (JSchException e) {
+            logger.warn("Could not open additional sftp connection to host:" + sftpConfig.getHost(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Gives the connection back to the pool. Broken or expired connections are closed.
+     *
+     * @param connection the borrowed connection, null is ignored
+     */
+    public void release(PooledConnection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            if (closed || !isReusable(connection) || !restore(connection)) {
+                destroy(connection);
+            } else {
+                connection.touch();
+                idleConnections.offerFirst(connection);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Closes the borrowed connection instead of returning it for reuse
+     *
+     * @param connection the borrowed connection, null is ignored
+     */
+    public void invalidate(PooledConnection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            destroy(connection);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Closes all idle connections, borrowed connections are closed when released
+     */
+    public void close() {
+        closed = true;
+        evictor.shutdownNow();
+        PooledConnection connection;
+        while ((connection = idleConnections.pollFirst()) != null) {
+            destroy(connection);
+        }
+    }
+
+    /**
+     * @return directories known to exist on the server of this pool
+     */
+    public RemoteDirectoryCache getDirectoryCache() {
+        return directoryCache;
+    }
+
+    public int getIdleCount() {
+        return idleConnections.size();
+    }
+
+    public int getActiveCount() {
+        return poolConfig.getMaxTotal() - permits.availablePermits();
+    }
+
+    private PooledConnection obtain() throws JSchException {
+        try {
+            PooledConnection connection;
+            while ((connection = idleConnections.pollFirst()) != null) {
+                if (!poolConfig.isValidateOnBorrow() || isReusable(connection)) {
+                    return connection;
+                }
+                logger.debug("Discarding stale sftp connection to host:" + sftpConfig.getHost());
+                destroy(connection);
+            }
+            return createConnection();
+        } catch (JSchException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private PooledConnection createConnection() throws JSchException {
+        TransferListener listener = sftpConfig.getTransferListener();
+        long startedAt = System.nanoTime();
+        Session session = jSch.getSession(sftpConfig.getUserName(), sftpConfig.getHost(), sftpConfig.getPort());
+        session.setPassword(sftpConfig.getPassword());
+        session.setConfig(ConfigFields.STRICT_HOSTKEY_CHECKING, ConfigValues.DISABLE_STRICT_HOSTKEY_CHECKING);
+        for (Map.Entry <String, String> entry : sftpConfig.getTransportProfile().getSessionConfig().entrySet()) {
+            session.setConfig(entry.getKey(), entry.getValue());
+        }
+        if (poolConfig.getKeepAliveIntervalMillis() > 0) {
+            session.setServerAliveInterval(poolConfig.getKeepAliveIntervalMillis());
+        }
+        session.connect();
+        long connectedAt = System.nanoTime();
+        listener.handshakeCompleted(connectedAt - startedAt);
+        logger.debug(SESSION_CONNECT);
+        try {
+            Channel channel = session.openChannel(ConfigFields.SFTP_CHANNEL);
+            channel.connect();
+            listener.channelOpened(System.nanoTime() - connectedAt);
+            logger.debug(CHANNEL_CONNECT);
+            ChannelSftp sftp = (ChannelSftp) channel;
+            return new PooledConnection(session, sftp, sftp.pwd());
+        } catch (JSchException e) {
+            session.disconnect();
+            throw e;
+        } catch (SftpException e) {
+            session.disconnect();
+            throw new JSchException("Could not determine login directory on host:" + sftpConfig.getHost(), e);
+        }
+    }
+
+    private boolean isReusable(PooledConnection connection) {
+        long now = System.currentTimeMillis();
+        return connection.isConnected()
+                && now - connection.getCreatedAt() < poolConfig.getMaxLifetimeMillis();
+    }
+
+    private boolean isIdleExpired(PooledConnection connection) {
+        return System.currentTimeMillis() - connection.getLastUsedAt() >= poolConfig.getMaxIdleMillis();
+    }
+
+    /**
+     * Moves the channel back to its login directory so that relative paths behave
+     * the same as on a freshly opened channel. pwd() is answered locally by jsch.
+     */
+    private boolean restore(PooledConnection connection) {
+        ChannelSftp sftp = connection.getChannel();
+        try {
+            if (!connection.getLoginDirectory().equals(sftp.pwd())) {
+                sftp.cd(connection.getLoginDirectory());
+            }
+            return true;
+        } catch (SftpException e) {
+            logger.warn("Could not restore sftp channel to login directory, discarding it", e);
+            return false;
+        }
+    }
+
+    private void evict() {
+        Iterator <PooledConnection> iterator = idleConnections.descendingIterator();
+        while (iterator.hasNext()) {
+            PooledConnection connection = iterator.next();
+            boolean idleExpired = idleConnections.size() > poolConfig.getMinIdle() && isIdleExpired(connection);
+            if ((idleExpired || !isReusable(connection)) && idleConnections.removeLastOccurrence(connection)) {
+                logger.debug("Evicting sftp connection to host:" + sftpConfig.getHost());
+                destroy(connection);
+            }
+        }
+    }
+
+    private void destroy(PooledConnection connection) {
+        try {
+            connection.disconnect();
+        } catch (RuntimeException e) {
+            logger.warn("Error while closing sftp connection", e);
+        }
+    }
+
+    private void ensureOpen() throws JSchException {
+        if (closed) {
+            throw new ConnectionUnavailableException("Sftp connection pool for host:" + sftpConfig.getHost() + " is closed");
+        }
+    }
+}
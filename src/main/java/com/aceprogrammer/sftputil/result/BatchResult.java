@@ -0,0 +1,46 @@
+package com.aceprogrammer.sftputil.result;
+
+import java.util.List;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Summary of a batch of transfers. Only failed files are kept, the outcome of every file is handed to
+ * the {@link TransferResultListener} of the batch instead, so the summary stays small for any batch size.
+ *
+ * @author Mohammed Salman Shaikh
+ */
+@Getter
+@ToString
+@Builder
+public class BatchResult {
+
+    private long succeeded;
+
+    private long failed;
+
+    /**
+     * bytes of all successfully transferred files
+     */
+    private long bytes;
+
+    /**
+     * time from the start of the batch until its last file was done
+     */
+    private long durationNanos;
+
+    /**
+     * results of the failed files, in the order they failed
+     */
+    private List <TransferResult> failures;
+
+    public long getTotal() {
+        return succeeded + failed;
+    }
+
+    public boolean isAllSucceeded() {
+        return failed == 0;
+    }
+}
@@ -0,0 +1,62 @@
+package com.aceprogrammer.sftputil.result;
+
+import java.util.ArrayList;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Counts the results of a batch while handing each of them on to the listener of the caller,
+ * keeping only the failed ones
+ *
+ * @author Mohammed Salman Shaikh
+ */
+public class BatchResultCollector implements TransferResultListener {
+
+    private final Log logger = LogFactory.getLog(this.getClass());
+
+    private final TransferResultListener listener;
+
+    private final long startNanos = System.nanoTime();
+
+    private final AtomicLong succeeded = new AtomicLong();
+
+    private final AtomicLong bytes = new AtomicLong();
+
+    private final Queue <TransferResult> failures = new ConcurrentLinkedQueue <>();
+
+    /**
+     * @param listener receives every result as it is collected, may be null
+     */
+    public BatchResultCollector(TransferResultListener listener) {
+        this.listener = listener == null ? TransferResultListener.NOOP : listener;
+    }
+
+    @Override
+    public void onResult(TransferResult result) {
+        if (result.isSuccess()) {
+            succeeded.incrementAndGet();
+            bytes.addAndGet(result.getBytes());
+        } else {
+            failures.add(result);
+        }
+        try {
+            listener.onResult(result);
+        } catch (RuntimeException e) {
+            // the file is transferred already, a failing listener must not fail it
+            logger.error("Transfer result listener failed for:" + result, e);
+        }
+    }
+
+    /**
+     * @return summary of the results collected so far
+     */
+    public BatchResult toBatchResult() {
+        ArrayList <TransferResult> failed = new ArrayList <>(failures);
+        return BatchResult.builder().succeeded(succeeded.get()).failed(failed.size()).bytes(bytes.get())
+                .durationNanos(System.nanoTime() - startNanos).failures(failed).build();
+    }
+}
@@ -0,0 +1,60 @@
+package com.aceprogrammer.sftputil.result;
+
+import com.aceprogrammer.sftputil.config.ChecksumAlgorithm;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Outcome of the transfer of a single file of a batch
+ *
+ * @author Mohammed Salman Shaikh
+ */
+@Getter
+@ToString
+@Builder
+public class TransferResult {
+
+    /**
+     * path of the local file, or of the local folder a listed remote file was to be downloaded to
+     */
+    private String localPath;
+
+    /**
+     * absolute remote path of the file, null if its remote folder could not be created
+     */
+    private String remotePath;
+
+    private TransferStatus status;
+
+    /**
+     * size of the transferred file, 0 for a failed transfer
+     */
+    private long bytes;
+
+    /**
+     * time the final attempt took, including the rename of an atomic upload
+     */
+    private long durationNanos;
+
+    /**
+     * hex checksum computed while transferring the file, null if checksum verification is disabled,
+     * the transfer failed or the file was downloaded in segments
+     */
+    private String checksum;
+
+    /**
+     * algorithm of the checksum, null if there is no checksum
+     */
+    private ChecksumAlgorithm checksumAlgorithm;
+
+    /**
+     * failure of the final attempt, null for a successful transfer
+     */
+    private Exception error;
+
+    public boolean isSuccess() {
+        return status == TransferStatus.SUCCESS;
+    }
+}
@@ -0,0 +1,20 @@
+package com.aceprogrammer.sftputil.result;
+
+/**
+ * Receives the outcome of every file of a batch as soon as it is known, so that large batches can be
+ * consumed without holding a result per file. Called concurrently from all workers of the batch,
+ * hence implementations must be thread safe and should not block.
+ *
+ * @author Mohammed Salman Shaikh
+ */
+@FunctionalInterface
+public interface TransferResultListener {
+
+    /**
+     * Listener ignoring all results
+     */
+    TransferResultListener NOOP = result -> {
+    };
+
+    void onResult(TransferResult result);
+}
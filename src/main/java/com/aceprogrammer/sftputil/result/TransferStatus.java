@@ -0,0 +1,13 @@
+package com.aceprogrammer.sftputil.result;
+
+/**
+ * Final outcome of the transfer of a single file
+ *
+ * @author Mohammed Salman Shaikh
+ */
+public enum TransferStatus {
+
+    SUCCESS,
+
+    FAILURE
+}
@@ -0,0 +1,42 @@
+package com.aceprogrammer.sftputil.routing;
+
+import com.aceprogrammer.sftputil.metrics.MetricsSnapshot;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * State and throughput of a single endpoint of a {@link SftpRouter} at the time of a snapshot
+ *
+ * @author Mohammed Salman Shaikh
+ */
+@Getter
+@ToString
+@Builder
+public class EndpointStats {
+
+    /**
+     * user@host:port of the endpoint
+     */
+    private String name;
+
+    private boolean healthy;
+
+    /**
+     * operations routed to the endpoint and still in progress
+     */
+    private int activeOperations;
+
+    private long routedOperations;
+
+    /**
+     * operations which failed on the endpoint and were passed on to another one
+     */
+    private long failovers;
+
+    /**
+     * transfers of the endpoint, bytes per second per operation type included
+     */
+    private MetricsSnapshot metrics;
+}
@@ -0,0 +1,439 @@
+package com.aceprogrammer.sftputil.routing;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.aceprogrammer.sftputil.config.RoutingConfig;
+import com.aceprogrammer.sftputil.config.RoutingStrategy;
+import com.aceprogrammer.sftputil.config.SftpConfig;
+import com.aceprogrammer.sftputil.config.SftpPoolConfig;
+import com.aceprogrammer.sftputil.constants.FileTransferResults;
+import com.aceprogrammer.sftputil.constants.SftpConstants;
+import com.aceprogrammer.sftputil.exception.ConnectionUnavailableException;
+import com.aceprogrammer.sftputil.exception.SftpConfigException;
+import com.aceprogrammer.sftputil.metrics.InMemoryTransferMetrics;
+import com.aceprogrammer.sftputil.metrics.OperationType;
+import com.aceprogrammer.sftputil.metrics.TransferListener;
+import com.aceprogrammer.sftputil.pool.PooledConnection;
+import com.aceprogrammer.sftputil.pool.SftpConnectionPool;
+import com.aceprogrammer.sftputil.scheduler.SftpTask;
+import com.aceprogrammer.sftputil.service.SftpService;
+import com.aceprogrammer.sftputil.service.SftpServiceImpl;
+import com.aceprogrammer.sftputil.transfer.TransferExecutors;
+import com.aceprogrammer.sftputil.transfer.TransferFailures;
+import com.aceprogrammer.sftputil.transfer.TransferThreadFactory;
+import com.jcraft.jsch.JSchException;
+
+/**
+ * Spreads operations over several sftp endpoints, each with its own {@link SftpServiceImpl} and pool.
+ * <p>
+ * Every operation is routed by a remote path as per the {@link RoutingStrategy}. An operation
+ * failing because its endpoint could not be reached, i.e. a failed handshake or a lost connection,
+ * is run again on the next endpoint, the replica. Other failures such as a missing file, a pool
+ * with no connection to spare or an interrupt are thrown at once. Failed endpoints and endpoints
+ * failing the periodic health probe are tried last until they pass a probe again, so that they do
+ * not delay every operation. Every endpoint is probed on its own schedule over a connection of its
+ * own, so neither a busy pool nor a hanging endpoint delays the probes of the others.
+ * <p>
+ * With consistent hashing a file written to a replica during an outage is not found on its
+ * primary endpoint later, unless the endpoints replicate their files among each other.
+ *
+ * @author Mohammed Salman Shaikh
+ */
+public class SftpRouter {
+
+    private final Log logger = LogFactory.getLog(this.getClass());
+
+    private final RoutingConfig routingConfig;
+
+    private final List <Endpoint> endpoints = new ArrayList <>();
+
+    private final TreeMap <Long, Endpoint> ring = new TreeMap <>();
+
+    private final ScheduledExecutorService healthChecker;
+
+    private final ExecutorService executor;
+
+    /**
+     * @param sftpConfigs   one configuration per endpoint, the transfer listener of each is called as well
+     * @param routingConfig strategy and health checking of the router
+     * @throws SftpConfigException if any of the configurations is invalid
+     */
+    public SftpRouter(List <SftpConfig> sftpConfigs, RoutingConfig routingConfig) throws SftpConfigException {
+        if (sftpConfigs == null || sftpConfigs.isEmpty() || routingConfig == null
+                || routingConfig.getVirtualNodes() < 1 || routingConfig.getHealthCheckIntervalMillis() < 1) {
+            throw new SftpConfigException("At least one endpoint, one virtual node and a positive health check "
+                    + "interval are mandatory. Rejected object:" + routingConfig);
+        }
+        this.routingConfig = routingConfig;
+        try {
+            for (SftpConfig sftpConfig : sftpConfigs) {
+                endpoints.add(new Endpoint(sftpConfig));
+            }
+        } catch (SftpConfigException e) {
+            shutdown(endpoints);
+            throw e;
+        }
+        for (Endpoint endpoint : endpoints) {
+            for (int i = 0; i < routingConfig.getVirtualNodes(); i++) {
+                ring.put(hash(endpoint.name + "#" + i), endpoint);
+            }
+        }
+        this.executor = TransferExecutors.newVirtualOrFixedThreadExecutor(endpoints.size(), "router");
+        this.healthChecker = Executors.newScheduledThreadPool(endpoints.size(), new TransferThreadFactory("health"));
+        for (Endpoint endpoint : endpoints) {
+            healthChecker.scheduleWithFixedDelay(() -> checkHealth(endpoint),
+                    routingConfig.getHealthCheckIntervalMillis(), routingConfig.getHealthCheckIntervalMillis(),
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Runs the task on the endpoint of the remote path, failing over to the next endpoints
+     *
+     * @param remotePath decides the endpoint, e.g. the remote file path of an upload
+     * @return the result of the task
+     * @throws Exception the failure of the task, for unreachable endpoints the failure of the last endpoint
+     */
+    public <T> T execute(String remotePath, SftpTask <T> task) throws Exception {
+        Exception lastFailure = null;
+        for (Endpoint endpoint : route(remotePath)) {
+            endpoint.active.incrementAndGet();
+            endpoint.routed.increment();
+            try {
+                return task.execute(endpoint.service);
+            } catch (Exception e) {
+                if (!isEndpointFailure(e)) {
+                    throw e;
+                }
+                endpoint.failovers.increment();
+                markUnhealthy(endpoint, e);
+                lastFailure = e;
+            } finally {
+                endpoint.active.decrementAndGet();
+            }
+        }
+        throw lastFailure;
+    }
+
+    /**
+     * @see SftpService#uploadFile(String, File)
+     */
+    public void uploadFile(String destRelativePath, File file) throws Exception {
+        execute(getRemoteFilePath(destRelativePath, file.getName()), service -> {
+            service.uploadFile(destRelativePath, file);
+            return null;
+        });
+    }
+
+    /**
+     * Shards the files by their remote path and uploads the share of every endpoint concurrently
+     *
+     * @see SftpService#uploadMultipleFiles(String, List)
+     */
+    public Map <String, List <String>> uploadMultipleFiles(String destRelativePath, List <String> localFileList)
+            throws Exception {
+        if (localFileList == null || localFileList.isEmpty()) {
+            logger.info("No file uploaded");
+            logger.info("Destination path was " + destRelativePath);
+            return Collections.emptyMap();
+        }
+        Map <Endpoint, List <String>> shards = new LinkedHashMap <>();
+        for (String localFilePath : localFileList) {
+            String remoteFilePath = getRemoteFilePath(destRelativePath, new File(localFilePath).getName());
+            shards.computeIfAbsent(route(remoteFilePath).get(0), endpoint -> new ArrayList <>()).add(localFilePath);
+        }
+        List <Future <Map <String, List <String>>>> results = new ArrayList <>();
+        for (List <String> shard : shards.values()) {
+            // a shard is routed again so that a failed endpoint fails over as a whole
+            String shardKey = getRemoteFilePath(destRelativePath, new File(shard.get(0)).getName());
+            results.add(executor.submit(() -> execute(shardKey,
+                    service -> service.uploadMultipleFiles(destRelativePath, shard))));
+        }
+        Map <String, List <String>> uploadStatus = new LinkedHashMap <>();
+        uploadStatus.put(FileTransferResults.SUCCESS, new ArrayList <>());
+        uploadStatus.put(FileTransferResults.FAILURE, new ArrayList <>());
+        try {
+            for (Future <Map <String, List <String>>> result : results) {
+                for (Map.Entry <String, List <String>> entry : result.get().entrySet()) {
+                    if (entry.getValue() != null) {
+                        uploadStatus.computeIfAbsent(entry.getKey(), key -> new ArrayList <>())
+                                .addAll(entry.getValue());
+                    }
+                }
+            }
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+        return uploadStatus;
+    }
+
+    /**
+     * @see SftpService#downloadFile(String, String)
+     */
+    public void downloadFile(String sourcePath, String remoteFilePath) throws Exception {
+        execute(remoteFilePath, service -> {
+            service.downloadFile(sourcePath, remoteFilePath);
+            return null;
+        });
+    }
+
+    /**
+     * @return state and throughput of every endpoint, in the order of the configurations
+     */
+    public List <EndpointStats> getEndpointStats() {
+        List <EndpointStats> stats = new ArrayList <>();
+        for (Endpoint endpoint : endpoints) {
+            stats.add(EndpointStats.builder()
+                    .name(endpoint.name)
+                    .healthy(endpoint.healthy)
+                    .activeOperations(endpoint.active.get())
+                    .routedOperations(endpoint.routed.sum())
+                    .failovers(endpoint.failovers.sum())
+                    .metrics(endpoint.metrics.snapshot())
+                    .build());
+        }
+        return stats;
+    }
+
+    /**
+     * Stops the health checks and shuts down the services of all endpoints
+     */
+    public void shutdown() {
+        healthChecker.shutdownNow();
+        executor.shutdown();
+        shutdown(endpoints);
+    }
+
+    /**
+     * @return all endpoints, healthy ones first, each group in the order of the strategy
+     */
+    private List <Endpoint> route(String remotePath) {
+        Collection <Endpoint> ordered;
+        if (routingConfig.getStrategy() == RoutingStrategy.LEAST_LOADED) {
+            List <Endpoint> byLoad = new ArrayList <>(endpoints);
+            byLoad.sort(Comparator.comparingInt((Endpoint endpoint) -> endpoint.active.get())
+                    .thenComparingLong(endpoint -> endpoint.routed.sum()));
+            ordered = byLoad;
+        } else {
+            // walk the ring clockwise from the hash of the path, each endpoint once
+            Set <Endpoint> distinct = new LinkedHashSet <>();
+            long hash = hash(remotePath);
+            for (Endpoint endpoint : ring.tailMap(hash).values()) {
+                if (distinct.add(endpoint) && distinct.size() == endpoints.size()) {
+                    break;
+                }
+            }
+            for (Endpoint endpoint : ring.headMap(hash).values()) {
+                if (distinct.size() == endpoints.size()) {
+                    break;
+                }
+                distinct.add(endpoint);
+            }
+            ordered = distinct;
+        }
+        List <Endpoint> routed = new ArrayList <>(ordered.size());
+        List <Endpoint> unhealthy = new ArrayList <>();
+        for (Endpoint endpoint : ordered) {
+            (endpoint.healthy ? routed : unhealthy).add(endpoint);
+        }
+        routed.addAll(unhealthy);
+        return routed;
+    }
+
+    /**
+     * Stats the home directory over the connection reserved for the probes, a connection failing
+     * the probe is replaced for the next one
+     */
+    private void checkHealth(Endpoint endpoint) {
+        PooledConnection connection = null;
+        try {
+            connection = endpoint.probePool.borrow();
+            connection.getChannel().stat(endpoint.homePath);
+            if (!endpoint.healthy) {
+                logger.info("Endpoint:" + endpoint.name + " passed the health check, routing to it again");
+                endpoint.healthy = true;
+            }
+        } catch (Exception e) {
+            if (connection != null) {
+                endpoint.probePool.invalidate(connection);
+                connection = null;
+            }
+            markUnhealthy(endpoint, e);
+        } finally {
+            endpoint.probePool.release(connection);
+        }
+    }
+
+    private void markUnhealthy(Endpoint endpoint, Exception e) {
+        if (endpoint.healthy) {
+            logger.warn("Endpoint:" + endpoint.name + " is unreachable, routing to the other endpoints first", e);
+            endpoint.healthy = false;
+        }
+    }
+
+    /**
+     * A pool without a connection to spare or an interrupted operation says nothing about the endpoint,
+     * while any other {@link JSchException} is a failed connect, handshake or session.
+     *
+     * @return true if the endpoint could not be reached, as opposed to a failure of the operation itself
+     */
+    private boolean isEndpointFailure(Exception e) {
+        if (Thread.currentThread().isInterrupted()) {
+            return false;
+        }
+        for (Throwable cause = e; cause != null; cause = cause.getCause() == cause ? null : cause.getCause()) {
+            if (cause instanceof ConnectionUnavailableException || cause instanceof InterruptedException) {
+                return false;
+            }
+        }
+        return e instanceof JSchException || TransferFailures.isTransient(e);
+    }
+
+    private static void shutdown(List <Endpoint> endpoints) {
+        for (Endpoint endpoint : endpoints) {
+            endpoint.service.shutdown();
+            endpoint.probePool.close();
+        }
+    }
+
+    private static String getRemoteFilePath(String destRelativePath, String fileName) {
+        return destRelativePath + SftpConstants.FILE_SEPARATOR + fileName;
+    }
+
+    /**
+     * @return first 8 bytes of the md5 of the key, spread evenly unlike {@link String#hashCode()}
+     */
+    private static long hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            long hash = 0;
+            for (int i = 0; i < 8; i++) {
+                hash = (hash << 8) | (digest[i] & 0xFF);
+            }
+            return hash;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Digest MD5 is not available", e);
+        }
+    }
+
+    /**
+     * A single sftp server along with its routing state
+     */
+    private static class Endpoint {
+
+        private final String name;
+
+        private final InMemoryTransferMetrics metrics = new InMemoryTransferMetrics();
+
+        private final SftpService service = new SftpServiceImpl();
+
+        /**
+         * single connection of the health probes, apart from the pool of the operations
+         */
+        private final SftpConnectionPool probePool;
+
+        private final String homePath;
+
+        private final AtomicInteger active = new AtomicInteger();
+
+        private final LongAdder routed = new LongAdder();
+
+        private final LongAdder failovers = new LongAdder();
+
+        private volatile boolean healthy = true;
+
+        private Endpoint(SftpConfig sftpConfig) throws SftpConfigException {
+            this.name = sftpConfig.getUserName() + "@" + sftpConfig.getHost() + ":" + sftpConfig.getPort();
+            this.homePath = sftpConfig.getHomePath();
+            TransferListener listener = sftpConfig.getTransferListener();
+            service.initialize(sftpConfig.toBuilder()
+                    .transferListener(listener == null ? metrics : new EndpointListener(metrics, listener))
+                    .build());
+            this.probePool = new SftpConnectionPool(sftpConfig.toBuilder()
+                    .poolConfig(SftpPoolConfig.builder().maxTotal(1).build())
+                    .transferListener(TransferListener.NOOP)
+                    .build());
+        }
+    }
+
+    /**
+     * Records the transfers of an endpoint and passes them on to the listener of its configuration
+     */
+    private static class EndpointListener implements TransferListener {
+
+        private final TransferListener metrics;
+
+        private final TransferListener delegate;
+
+        private EndpointListener(TransferListener metrics, TransferListener delegate) {
+            this.metrics = metrics;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void handshakeCompleted(long nanos) {
+            metrics.handshakeCompleted(nanos);
+            delegate.handshakeCompleted(nanos);
+        }
+
+        @Override
+        public void channelOpened(long nanos) {
+            metrics.channelOpened(nanos);
+            delegate.channelOpened(nanos);
+        }
+
+        @Override
+        public void operationStarted(OperationType type, String path) {
+            metrics.operationStarted(type, path);
+            delegate.operationStarted(type, path);
+        }
+
+        @Override
+        public void bytesTransferred(OperationType type, long bytes) {
+            metrics.bytesTransferred(type, bytes);
+            delegate.bytesTransferred(type, bytes);
+        }
+
+        @Override
+        public void checksumVerified(OperationType type, String path, String algorithm, String checksum) {
+            metrics.checksumVerified(type, path, algorithm, checksum);
+            delegate.checksumVerified(type, path, algorithm, checksum);
+        }
+
+        @Override
+        public void operationCompleted(OperationType type, String path, long bytes, long nanos) {
+            metrics.operationCompleted(type, path, bytes, nanos);
+            delegate.operationCompleted(type, path, bytes, nanos);
+        }
+
+        @Override
+        public void operationFailed(OperationType type, String path, long nanos, Exception e) {
+            metrics.operationFailed(type, path, nanos, e);
+            delegate.operationFailed(type, path, nanos, e);
+        }
+    }
+}
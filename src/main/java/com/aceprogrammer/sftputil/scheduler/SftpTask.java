@@ -0,0 +1,15 @@
+package com.aceprogrammer.sftputil.scheduler;
+
+import com.aceprogrammer.sftputil.service.SftpService;
+
+/**
+ * One or more operations of {@link SftpService} run by the {@link TransferScheduler} as a unit
+ *
+ * @param <T> type of the result
+ * @author Mohammed Salman Shaikh
+ */
+@FunctionalInterface
+public interface SftpTask<T> {
+
+    T execute(SftpService sftpService) throws Exception;
+}
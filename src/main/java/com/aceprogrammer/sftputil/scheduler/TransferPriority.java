@@ -0,0 +1,21 @@
+package com.aceprogrammer.sftputil.scheduler;
+
+/**
+ * Queued operations of a higher priority always start before those of a lower one
+ *
+ * @author Mohammed Salman Shaikh
+ */
+public enum TransferPriority {
+
+    /**
+     * latency sensitive operations, e.g. a single file a user waits for
+     */
+    HIGH,
+
+    NORMAL,
+
+    /**
+     * bulk work such as backfills, which only runs while no other operation is waiting
+     */
+    LOW
+}
@@ -0,0 +1,305 @@
+package com.aceprogrammer.sftputil.scheduler;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.aceprogrammer.sftputil.config.SchedulerConfig;
+import com.aceprogrammer.sftputil.service.SftpService;
+import com.aceprogrammer.sftputil.transfer.BandwidthLimiter;
+import com.aceprogrammer.sftputil.transfer.TransferCancellation;
+import com.aceprogrammer.sftputil.transfer.TransferExecutors;
+import com.aceprogrammer.sftputil.transfer.TransferThrottle;
+
+/**
+ * Coordinates the operations of an initialized {@link SftpService} submitted by several tenants.
+ * <p>
+ * At most maxConcurrency operations run at a time. Waiting operations are started by priority,
+ * and within a priority the tenants take turns, so a tenant with a long backlog does not delay
+ * the single operation of another. The queue is bounded overall and per tenant, submitting to a
+ * full queue blocks the caller. All bytes sent or received by the running operations pass a
+ * token bucket per scheduler, which may in turn be limited by a global one shared between the
+ * schedulers of several hosts.
+ * <p>
+ * Running operations are never preempted, a bulk transfer which started keeps its share of
+ * the bandwidth until it ends.
+ *
+ * @author Mohammed Salman Shaikh
+ */
+public class TransferScheduler {
+
+    private final Log logger = LogFactory.getLog(this.getClass());
+
+    private final SftpService sftpService;
+
+    private final SchedulerConfig schedulerConfig;
+
+    private final BandwidthLimiter limiter;
+
+    /**
+     * operations of a single tenant waiting to run
+     */
+    private final int maxQueuedPerTenant;
+
+    private final ExecutorService workers;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition transferQueued = lock.newCondition();
+
+    private final Condition spaceFreed = lock.newCondition();
+
+    /**
+     * per priority the queues of the tenants, in the order in which the tenants take their next turn
+     */
+    private final Map <TransferPriority, LinkedHashMap <String, ArrayDeque <ScheduledTransfer <?>>>> queues =
+            new EnumMap <>(TransferPriority.class);
+
+    private final Map <String, Integer> queuedPerTenant = new HashMap <>();
+
+    private int queued;
+
+    private boolean shutdown;
+
+    /**
+     * @param sftpService     initialized service performing the operations, left running on {@link #shutdown()}
+     * @param schedulerConfig limits of the scheduler
+     */
+    public TransferScheduler(SftpService sftpService, SchedulerConfig schedulerConfig) {
+        if (schedulerConfig.getMaxConcurrency() < 1 || schedulerConfig.getMaxQueuedTransfers() < 1
+                || schedulerConfig.getMaxQueuedTransfersPerTenant() < 0) {
+            throw new IllegalArgumentException("Concurrency and queue sizes must be at least 1. Rejected object:"
+                    + schedulerConfig);
+        }
+        if (schedulerConfig.getMaxQueuedTransfersPerTenant() > 0
+                && schedulerConfig.getMaxQueuedTransfersPerTenant() >= schedulerConfig.getMaxQueuedTransfers()) {
+            throw new IllegalArgumentException("Queue size per tenant must be less than the queue size, else one "
+                    + "tenant can fill the queue. Rejected object:" + schedulerConfig);
+        }
+        this.sftpService = sftpService;
+        this.schedulerConfig = schedulerConfig;
+        this.maxQueuedPerTenant = schedulerConfig.getMaxQueuedTransfersPerTenant() > 0
+                ? schedulerConfig.getMaxQueuedTransfersPerTenant()
+                : Math.max(1, schedulerConfig.getMaxQueuedTransfers() / 4);
+        this.limiter = createLimiter(schedulerConfig);
+        for (TransferPriority priority : TransferPriority.values()) {
+            queues.put(priority, new LinkedHashMap <>());
+        }
+        this.workers = TransferExecutors.newVirtualOrFixedThreadExecutor(schedulerConfig.getMaxConcurrency(),
+                "scheduler");
+        for (int i = 0; i < schedulerConfig.getMaxConcurrency(); i++) {
+            workers.execute(this::runWorker);
+        }
+    }
+
+    /**
+     * Queues the task, blocking while the queue or the share of the tenant in it is full.
+     * Cancelling the returned future removes a waiting task from the queue, a running task
+     * stops at the next chunk of its transfers.
+     *
+     * @param tenant   name of the submitter the fair sharing is based on
+     * @param priority decides which waiting task is started first
+     * @param task     operations to be run
+     * @throws InterruptedException       if interrupted while waiting for space in the queue
+     * @throws RejectedExecutionException if the scheduler was shut down
+     */
+    public <T> CompletableFuture <T> submit(String tenant, TransferPriority priority, SftpTask <T> task)
+            throws InterruptedException {
+        ScheduledTransfer <T> transfer = new ScheduledTransfer <>(tenant, priority, task);
+        lock.lockInterruptibly();
+        try {
+            while (!shutdown && (queued >= schedulerConfig.getMaxQueuedTransfers()
+                    || queuedPerTenant.getOrDefault(tenant, 0) >= maxQueuedPerTenant)) {
+                spaceFreed.await();
+            }
+            if (shutdown) {
+                throw new RejectedExecutionException("Transfer scheduler was shut down");
+            }
+            queues.get(priority).computeIfAbsent(tenant, key -> new ArrayDeque <>()).add(transfer);
+            queuedPerTenant.merge(tenant, 1, Integer::sum);
+            queued++;
+            transferQueued.signal();
+        } finally {
+            lock.unlock();
+        }
+        return transfer;
+    }
+
+    /**
+     * @return operations waiting to be started
+     */
+    public int getQueuedTransfers() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops accepting tasks and cancels the waiting ones, running tasks complete normally.
+     * The {@link SftpService} is left to the caller.
+     */
+    public void shutdown() {
+        lock.lock();
+        try {
+            shutdown = true;
+            for (LinkedHashMap <String, ArrayDeque <ScheduledTransfer <?>>> tenants : queues.values()) {
+                for (ArrayDeque <ScheduledTransfer <?>> transfers : tenants.values()) {
+                    for (ScheduledTransfer <?> transfer : transfers) {
+                        transfer.completeExceptionally(new CancellationException("Transfer scheduler was shut down"));
+                    }
+                }
+                tenants.clear();
+            }
+            queuedPerTenant.clear();
+            queued = 0;
+            transferQueued.signalAll();
+            spaceFreed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        workers.shutdown();
+    }
+
+    private BandwidthLimiter createLimiter(SchedulerConfig schedulerConfig) {
+        long bytesPerSecond = schedulerConfig.getBytesPerSecond();
+        if (bytesPerSecond <= 0) {
+            return schedulerConfig.getGlobalLimiter();
+        }
+        long burstBytes = schedulerConfig.getBurstBytes() > 0 ? schedulerConfig.getBurstBytes() : bytesPerSecond;
+        return new BandwidthLimiter(bytesPerSecond, burstBytes, schedulerConfig.getGlobalLimiter());
+    }
+
+    private void runWorker() {
+        ScheduledTransfer <?> transfer;
+        while ((transfer = take()) != null) {
+            run(transfer);
+        }
+    }
+
+    /**
+     * @return the next transfer to be run, null once shut down
+     */
+    private ScheduledTransfer <?> take() {
+        lock.lock();
+        try {
+            while (!shutdown) {
+                ScheduledTransfer <?> transfer = poll();
+                if (transfer != null) {
+                    return transfer;
+                }
+                transferQueued.awaitUninterruptibly();
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes the head of the tenant whose turn it is in the highest non empty priority
+     */
+    private ScheduledTransfer <?> poll() {
+        for (LinkedHashMap <String, ArrayDeque <ScheduledTransfer <?>>> tenants : queues.values()) {
+            Iterator <Map.Entry <String, ArrayDeque <ScheduledTransfer <?>>>> iterator = tenants.entrySet().iterator();
+            if (iterator.hasNext()) {
+                Map.Entry <String, ArrayDeque <ScheduledTransfer <?>>> next = iterator.next();
+                ScheduledTransfer <?> transfer = next.getValue().poll();
+                iterator.remove();
+                if (!next.getValue().isEmpty()) {
+                    // the tenant takes its next turn after all others
+                    tenants.put(next.getKey(), next.getValue());
+                }
+                dequeued(transfer);
+                return transfer;
+            }
+        }
+        return null;
+    }
+
+    private void dequeued(ScheduledTransfer <?> transfer) {
+        queuedPerTenant.computeIfPresent(transfer.tenant, (tenant, count) -> count > 1 ? count - 1 : null);
+        queued--;
+        spaceFreed.signalAll();
+    }
+
+    private void remove(ScheduledTransfer <?> transfer) {
+        lock.lock();
+        try {
+            LinkedHashMap <String, ArrayDeque <ScheduledTransfer <?>>> tenants = queues.get(transfer.priority);
+            ArrayDeque <ScheduledTransfer <?>> transfers = tenants.get(transfer.tenant);
+            if (transfers != null && transfers.remove(transfer)) {
+                if (transfers.isEmpty()) {
+                    tenants.remove(transfer.tenant);
+                }
+                dequeued(transfer);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private <T> void run(ScheduledTransfer <T> transfer) {
+        AtomicBoolean previous = TransferCancellation.install(transfer.cancellation);
+        BandwidthLimiter previousThrottle = TransferThrottle.install(limiter);
+        try {
+            // cancelled after being taken from the queue
+            if (!transfer.isDone()) {
+                transfer.complete(transfer.task.execute(sftpService));
+            }
+        } catch (Exception e) {
+            if (!transfer.completeExceptionally(e)) {
+                logger.debug("Transfer failed after its future was completed", e);
+            }
+        } catch (Error e) {
+            transfer.completeExceptionally(e);
+            throw e;
+        } finally {
+            TransferThrottle.restore(previousThrottle);
+            TransferCancellation.restore(previous);
+        }
+    }
+
+    /**
+     * Future of a submitted task, which leaves the queue or aborts its running transfers when cancelled
+     */
+    private class ScheduledTransfer<T> extends CompletableFuture <T> {
+
+        private final String tenant;
+
+        private final TransferPriority priority;
+
+        private final SftpTask <T> task;
+
+        private final AtomicBoolean cancellation = new AtomicBoolean();
+
+        private ScheduledTransfer(String tenant, TransferPriority priority, SftpTask <T> task) {
+            this.tenant = tenant;
+            this.priority = priority;
+            this.task = task;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            cancellation.set(true);
+            boolean cancelled = super.cancel(false);
+            remove(this);
+            return cancelled;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.aceprogrammer.sftputil.service;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import com.aceprogrammer.sftputil.config.SyncComparison;
+import com.aceprogrammer.sftputil.result.BatchResult;
+import com.aceprogrammer.sftputil.result.TransferResultListener;
+
+/**
+ * Non blocking variant of {@link SftpService}. Every operation is run on an executor and
+ * completes the returned future with its result or the exception it failed with.
+ * <p>
+ * Cancelling a returned future skips the operation if it has not started yet, otherwise the
+ * running transfer is aborted at the next chunk and the pooled channel stays usable. Futures
+ * derived through thenApply, thenCompose etc. do not propagate cancellation upstream.
+ *
+ * @author Mohammed Salman Shaikh
+ */
+public interface AsyncSftpService {
+
+    /**
+     * @see SftpService#uploadFile(String, File)
+     */
+    CompletableFuture <Void> uploadFile(String destRelativePath, File file);
+
+    /**
+     * @see SftpService#uploadFile(String, String)
+     */
+    CompletableFuture <Void> uploadFile(String destRelativePath, String localFilePath);
+
+    /**
+     * @see SftpService#uploadFileResumable(String, File)
+     */
+    CompletableFuture <Void> uploadFileResumable(String destRelativePath, File file);
+
+    /**
+     * @see SftpService#uploadMultipleFiles(String, List)
+     */
+    CompletableFuture <Map <String, List <String>>> uploadMultipleFiles(String destRelativePath,
+                                                                        List <String> fileList);
+
+    /**
+     * @see SftpService#syncUploadFiles(String, List, SyncComparison)
+     */
+    CompletableFuture <Map <String, List <String>>> syncUploadFiles(String destRelativePath, List <String> fileList,
+                                                                    SyncComparison comparison);
+
+    /**
+     * @see SftpService#uploadMultipleFiles(Map)
+     */
+    CompletableFuture <Map <String, Map <String, List <String>>>> uploadMultipleFiles(
+            Map <String, List <String>> folderWiseFiles);
+
+    /**
+     * @see SftpService#uploadFiles(String, Iterable, TransferResultListener)
+     */
+    CompletableFuture <BatchResult> uploadFiles(String destRelativePath, Iterable <String> fileList,
+                                                TransferResultListener listener);
+
+    /**
+     * @see SftpService#uploadDirectoryTree(String, String)
+     */
+    CompletableFuture <Map <String, List <String>>> uploadDirectoryTree(String destRelativePath, String localDirectory);
+
+    /**
+     * @see SftpService#syncDownloadFiles(String, String, SyncComparison)
+     */
+    CompletableFuture <Map <String, List <String>>> syncDownloadFiles(String sourcePath, String destRelativePath,
+                                                                      SyncComparison comparison);
+
+    /**
+     * @see SftpService#downloadFile(String, String)
+     */
+    CompletableFuture <Void> downloadFile(String sourcePath, String remoteFilePath);
+
+    /**
+     * The stream is read on another thread and must not be used until the future completes
+     *
+     * @see SftpService#upload(String, InputStream)
+     */
+    CompletableFuture <Void> upload(String remoteFilePath, InputStream inputStream);
+
+    /**
+     * The stream is written on another thread and must not be used until the future completes
+     *
+     * @see SftpService#download(String, OutputStream)
+     */
+    CompletableFuture <Void> download(String remoteFilePath, OutputStream outputStream);
+
+    /**
+     * @see SftpService#downloadAllFiles(String, String)
+     */
+    CompletableFuture <Map <String, List <String>>> downloadAllFiles(String sourcePath, String remotePath);
+
+    /**
+     * @see SftpService#downloadFiles(String, String, TransferResultListener)
+     */
+    CompletableFuture <BatchResult> downloadFiles(String sourcePath, String destRelativePath,
+                                                  TransferResultListener listener);
+
+    /**
+     * @see SftpService#downloadDirectoryTree(String, String)
+     */
+    CompletableFuture <Map <String, List <String>>> downloadDirectoryTree(String sourcePath, String destRelativePath);
+
+    /**
+     * @see SftpService#createDirectory(String)
+     */
+    CompletableFuture <String> createDirectory(String dirName);
+
+    /**
+     * @see SftpService#createDirectories(String)
+     */
+    CompletableFuture <String> createDirectories(String destRelativePath);
+
+    /**
+     * @see SftpService#deleteFile(String)
+     */
+    CompletableFuture <Void> deleteFile(String filePath);
+
+    /**
+     * @see SftpService#deleteMultipleFiles(List)
+     */
+    CompletableFuture <List <String>> deleteMultipleFiles(List <String> fileList);
+
+    /**
+     * @see SftpService#batchDeleteFiles(List)
+     */
+    CompletableFuture <Map <String, List <String>>> batchDeleteFiles(List <String> fileList);
+
+    /**
+     * @see SftpService#moveRemoteFiles(List, String)
+     */
+    CompletableFuture <List <String>> moveRemoteFiles(List <String> fileList, String destRelativePath);
+
+    /**
+     * @see SftpService#batchMoveFiles(List, String, boolean)
+     */
+    CompletableFuture <Map <String, List <String>>> batchMoveFiles(List <String> fileList, String destRelativePath,
+                                                                   boolean overwrite);
+
+    /**
+     * Stops accepting operations and shuts down the wrapped {@link SftpService}.
+     * An executor handed in by the caller is left running.
+     */
+    void shutdown();
+}
@@ -0,0 +1,288 @@
+package com.aceprogrammer.sftputil.service;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.aceprogrammer.sftputil.config.SyncComparison;
+import com.aceprogrammer.sftputil.result.BatchResult;
+import com.aceprogrammer.sftputil.result.TransferResultListener;
+import com.aceprogrammer.sftputil.transfer.TransferCancellation;
+import com.aceprogrammer.sftputil.transfer.TransferExecutors;
+
+/**
+ * Runs the operations of an initialized {@link SftpService} on an executor.
+ * <p>
+ * At most maxConcurrency operations run at a time, the others wait for a slot before
+ * borrowing a connection so that queued operations do not run into the borrow timeout of
+ * the pool. Hence maxConcurrency should not exceed the maxTotal of the pool.
+ *
+ * @author Mohammed Salman Shaikh
+ */
+public class AsyncSftpServiceImpl implements AsyncSftpService {
+
+    private final Log logger = LogFactory.getLog(this.getClass());
+
+    private final SftpService sftpService;
+
+    private final Executor executor;
+
+    /**
+     * executor created by this service, null if handed in by the caller
+     */
+    private final ExecutorService ownedExecutor;
+
+    private final Semaphore slots;
+
+    /**
+     * Runs the operations on virtual threads where the jdk supports them,
+     * else on a fixed pool of maxConcurrency threads
+     *
+     * @param sftpService    initialized service performing the operations
+     * @param maxConcurrency maximum number of operations running at a time
+     */
+    public AsyncSftpServiceImpl(SftpService sftpService, int maxConcurrency) {
+        this(sftpService, TransferExecutors.newVirtualOrFixedThreadExecutor(maxConcurrency, "async"), maxConcurrency,
+                true);
+    }
+
+    /**
+     * @param sftpService    initialized service performing the operations
+     * @param executor       runs the operations, left running on {@link #shutdown()}
+     * @param maxConcurrency maximum number of operations running at a time
+     */
+    public AsyncSftpServiceImpl(SftpService sftpService, Executor executor, int maxConcurrency) {
+        this(sftpService, executor, maxConcurrency, false);
+    }
+
+    private AsyncSftpServiceImpl(SftpService sftpService, Executor executor, int maxConcurrency, boolean owned) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be at least 1");
+        }
+        this.sftpService = sftpService;
+        this.executor = executor;
+        this.ownedExecutor = owned ? (ExecutorService) executor : null;
+        this.slots = new Semaphore(maxConcurrency, true);
+    }
+
+    @Override
+    public CompletableFuture <Void> uploadFile(String destRelativePath, File file) {
+        return submit(() -> {
+            sftpService.uploadFile(destRelativePath, file);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture <Void> uploadFile(String destRelativePath, String localFilePath) {
+        return submit(() -> {
+            sftpService.uploadFile(destRelativePath, localFilePath);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture <Void> uploadFileResumable(String destRelativePath, File file) {
+        return submit(() -> {
+            sftpService.uploadFileResumable(destRelativePath, file);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture <Map <String, List <String>>> uploadMultipleFiles(String destRelativePath,
+                                                                               List <String> fileList) {
+        return submit(() -> sftpService.uploadMultipleFiles(destRelativePath, fileList));
+    }
+
+    @Override
+    public CompletableFuture <Map <String, List <String>>> syncUploadFiles(String destRelativePath,
+                                                                           List <String> fileList,
+                                                                           SyncComparison comparison) {
+        return submit(() -> sftpService.syncUploadFiles(destRelativePath, fileList, comparison));
+    }
+
+    @Override
+    public CompletableFuture <Map <String, Map <String, List <String>>>> uploadMultipleFiles(
+            Map <String, List <String>> folderWiseFiles) {
+        return submit(() -> sftpService.uploadMultipleFiles(folderWiseFiles));
+    }
+
+    @Override
+    public CompletableFuture <BatchResult> uploadFiles(String destRelativePath, Iterable <String> fileList,
+                                                       TransferResultListener listener) {
+        return submit(() -> sftpService.uploadFiles(destRelativePath, fileList, listener));
+    }
+
+    @Override
+    public CompletableFuture <Map <String, List <String>>> uploadDirectoryTree(String destRelativePath,
+                                                                               String localDirectory) {
+        return submit(() -> sftpService.uploadDirectoryTree(destRelativePath, localDirectory));
+    }
+
+    @Override
+    public CompletableFuture <Map <String, List <String>>> syncDownloadFiles(String sourcePath, String destRelativePath,
+                                                                             SyncComparison comparison) {
+        return submit(() -> sftpService.syncDownloadFiles(sourcePath, destRelativePath, comparison));
+    }
+
+    @Override
+    public CompletableFuture <Void> downloadFile(String sourcePath, String remoteFilePath) {
+        return submit(() -> {
+            sftpService.downloadFile(sourcePath, remoteFilePath);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture <Void> upload(String remoteFilePath, InputStream inputStream) {
+        return submit(() -> {
+            sftpService.upload(remoteFilePath, inputStream);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture <Void> download(String remoteFilePath, OutputStream outputStream) {
+        return submit(() -> {
+            sftpService.download(remoteFilePath, outputStream);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture <Map <String, List <String>>> downloadAllFiles(String sourcePath, String remotePath) {
+        return submit(() -> sftpService.downloadAllFiles(sourcePath, remotePath));
+    }
+
+    @Override
+    public CompletableFuture <BatchResult> downloadFiles(String sourcePath, String destRelativePath,
+                                                         TransferResultListener listener) {
+        return submit(() -> sftpService.downloadFiles(sourcePath, destRelativePath, listener));
+    }
+
+    @Override
+    public CompletableFuture <Map <String, List <String>>> downloadDirectoryTree(String sourcePath,
+                                                                                 String destRelativePath) {
+        return submit(() -> sftpService.downloadDirectoryTree(sourcePath, destRelativePath));
+    }
+
+    @Override
+    public CompletableFuture <String> createDirectory(String dirName) {
+        return submit(() -> sftpService.createDirectory(dirName));
+    }
+
+    @Override
+    public CompletableFuture <String> createDirectories(String destRelativePath) {
+        return submit(() -> sftpService.createDirectories(destRelativePath));
+    }
+
+    @Override
+    public CompletableFuture <Void> deleteFile(String filePath) {
+        return submit(() -> {
+            sftpService.deleteFile(filePath);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture <List <String>> deleteMultipleFiles(List <String> fileList) {
+        return submit(() -> sftpService.deleteMultipleFiles(fileList));
+    }
+
+    @Override
+    public CompletableFuture <Map <String, List <String>>> batchDeleteFiles(List <String> fileList) {
+        return submit(() -> sftpService.batchDeleteFiles(fileList));
+    }
+
+    @Override
+    public CompletableFuture <List <String>> moveRemoteFiles(List <String> fileList, String destRelativePath) {
+        return submit(() -> sftpService.moveRemoteFiles(fileList, destRelativePath));
+    }
+
+    @Override
+    public CompletableFuture <Map <String, List <String>>> batchMoveFiles(List <String> fileList,
+                                                                          String destRelativePath, boolean overwrite) {
+        return submit(() -> sftpService.batchMoveFiles(fileList, destRelativePath, overwrite));
+    }
+
+    @Override
+    public void shutdown() {
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+        sftpService.shutdown();
+    }
+
+    private <T> CompletableFuture <T> submit(SftpCall <T> call) {
+        CancellableFuture <T> future = new CancellableFuture <>();
+        try {
+            executor.execute(() -> run(call, future));
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private <T> void run(SftpCall <T> call, CancellableFuture <T> future) {
+        try {
+            slots.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.completeExceptionally(e);
+            return;
+        }
+        AtomicBoolean previous = TransferCancellation.install(future.cancellation);
+        try {
+            // cancelled while waiting for the executor or a slot
+            if (!future.isDone()) {
+                future.complete(call.call());
+            }
+        } catch (Exception e) {
+            if (!future.completeExceptionally(e)) {
+                logger.debug("Operation failed after its future was completed", e);
+            }
+        } catch (Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            TransferCancellation.restore(previous);
+            slots.release();
+        }
+    }
+
+    /**
+     * A blocking operation of {@link SftpService}
+     */
+    @FunctionalInterface
+    private interface SftpCall<T> {
+
+        T call() throws Exception;
+    }
+
+    /**
+     * Future which aborts the running transfers of its operation when cancelled,
+     * without interrupting the thread in the middle of an sftp request
+     */
+    private static class CancellableFuture<T> extends CompletableFuture <T> {
+
+        private final AtomicBoolean cancellation = new AtomicBoolean();
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            cancellation.set(true);
+            return super.cancel(false);
+        }
+    }
+}
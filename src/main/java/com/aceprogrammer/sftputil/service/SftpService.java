@@ -1,15 +1,27 @@
 package com.aceprogrammer.sftputil.service;
 
+import com.aceprogrammer.sftputil.config.PollConfig;
 import com.aceprogrammer.sftputil.config.SftpConfig;
+import com.aceprogrammer.sftputil.config.SyncComparison;
 import com.aceprogrammer.sftputil.exception.ChangeDirectoryException;
 import com.aceprogrammer.sftputil.exception.FileDeletionException;
 import com.aceprogrammer.sftputil.exception.LsCommandException;
+import com.aceprogrammer.sftputil.listing.RemoteFileFilter;
+import com.aceprogrammer.sftputil.listing.RemoteFileIterator;
 import com.aceprogrammer.sftputil.exception.SftpConfigException;
+import com.aceprogrammer.sftputil.result.BatchResult;
+import com.aceprogrammer.sftputil.result.TransferResultListener;
+import com.aceprogrammer.sftputil.watch.PollListener;
+import com.aceprogrammer.sftputil.watch.RemotePoller;
 import com.jcraft.jsch.JSchException;
 import com.jcraft.jsch.SftpException;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.List;
 import java.util.Map;
 
@@ -25,6 +37,12 @@ public interface SftpService {
      */
     void initialize(SftpConfig sftpConfig) throws SftpConfigException;
 
+    /**
+     * Closes all pooled sessions and channels. The service must be
+     * initialized again before performing further operations
+     */
+    void shutdown();
+
     /**
      * @param destRelativePath the relative path on destination server
      * @param file             the file to be copied
@@ -39,6 +57,17 @@ public interface SftpService {
      */
     void uploadFile(String destRelativePath, String localFilePath) throws IOException, SftpException, JSchException;
 
+    /**
+     * Use this method for large files. If a previous attempt of uploading the same unchanged file
+     * failed, the upload continues from the size already present on the remote server. Failed
+     * attempts are retried as per {@link SftpConfig#getRetryPolicy()}
+     *
+     * @param destRelativePath the relative path of the folder on destination server
+     * @param file             the file to be copied
+     * @throws IOException if the local file or its checkpoint could not be read
+     */
+    void uploadFileResumable(String destRelativePath, File file) throws JSchException, SftpException, IOException;
+
     /**
      * Use this method when subdirectories also need to be created for the given path
      *
@@ -61,6 +90,17 @@ public interface SftpService {
      */
     Map<String, List<String>> uploadMultipleFiles(String destRelativePath, List<String> fileList) throws SftpException, JSchException, IOException;
 
+    /**
+     * Use this method to upload only those files which are new or changed compared to the files already
+     * present in the remote directory, which is listed once
+     *
+     * @param destRelativePath the relative path on destination server, created if missing
+     * @param fileList         list of absolute local file path to be synced
+     * @param comparison       decides when a file present on both sides is unchanged
+     * @return map with SUCCESS -> uploaded, SKIPPED -> unchanged and FAILURE -> failed local file paths
+     */
+    Map<String, List<String>> syncUploadFiles(String destRelativePath, List<String> fileList, SyncComparison comparison) throws SftpException, JSchException;
+
     /**
      * Use this method to upload list of related files to a particular folder
      *
@@ -71,6 +111,17 @@ public interface SftpService {
      */
     Map<String, Map<String, List<String>>> uploadMultipleFiles(Map<String, List<String>> folderWiseFiles) throws JSchException, SftpException, IOException;
 
+    /**
+     * Use this method to upload any number of files to a single remote directory without a result per file
+     * being held, e.g. for batches of millions of files. Files are uploaded while the list is iterated.
+     *
+     * @param destRelativePath the relative path on destination server
+     * @param fileList         absolute local file paths to be uploaded, iterated once
+     * @param listener         receives the result of every file as soon as it is done, may be null
+     * @return counts and bytes of the batch along with the results of the failed files
+     */
+    BatchResult uploadFiles(String destRelativePath, Iterable<String> fileList, TransferResultListener listener) throws JSchException, SftpException;
+
     /**
      * Use this method when only a single directory needs to be created
      *
@@ -82,6 +133,114 @@ public interface SftpService {
 
     Map<String, List<String>> downloadAllFiles(String sourcePath, String remotePath)throws ChangeDirectoryException, JSchException, LsCommandException;
 
+    /**
+     * Use this method to download all files of a remote directory without a result per file being held.
+     * Files are downloaded while the listing of the folder is still arriving.
+     *
+     * @param sourcePath       the local folder to download to
+     * @param destRelativePath the relative path of the remote folder, empty for the home directory
+     * @param listener         receives the result of every file as soon as it is done, may be null
+     * @return counts and bytes of the batch along with the results of the failed files
+     */
+    BatchResult downloadFiles(String sourcePath, String destRelativePath, TransferResultListener listener) throws ChangeDirectoryException, JSchException, LsCommandException;
+
+    /**
+     * Use this method to walk through a large remote folder without holding its whole listing in memory.
+     * The listing runs on a pooled connection of its own and the filter is applied while it arrives,
+     * so the first entries can be consumed right away. The iterator must be closed once done with it.
+     *
+     * @param destRelativePath the relative path of the remote folder, home directory if empty
+     * @param filter           conditions the entries must meet, {@link RemoteFileFilter#ALL} for every entry
+     * @return lazy iterator over the accepted entries, which throws IllegalStateException if the listing fails
+     */
+    RemoteFileIterator listRemoteFiles(String destRelativePath, RemoteFileFilter filter) throws JSchException;
+
+    /**
+     * Use this method to download only those files of a remote folder which are new or changed
+     * compared to the files already present in the local folder. The remote folder is listed once.
+     *
+     * @param sourcePath       the local directory to which the files are downloaded, created if missing
+     * @param destRelativePath the relative path of the remote folder, home directory if empty
+     * @param comparison       decides when a file present on both sides is unchanged
+     * @return map with SUCCESS -> downloaded, SKIPPED -> unchanged and FAILURE -> failed remote file paths
+     * @throws IOException if the local directory could not be created
+     */
+    Map<String, List<String>> syncDownloadFiles(String sourcePath, String destRelativePath, SyncComparison comparison) throws SftpException, JSchException, IOException;
+
+    /**
+     * Use this method to pick up files arriving in a remote folder instead of downloading the whole
+     * folder on a schedule. The folder is listed every poll interval and only files which arrived
+     * or changed since the previous listing are downloaded once their size stopped changing.
+     *
+     * @param sourcePath       the local directory to which the files are downloaded, created if missing
+     * @param destRelativePath the relative path of the remote folder, home directory if empty
+     * @param pollConfig       timings of the polls and the folder receiving the downloaded files
+     * @param listener         receives the outcome of every download
+     * @return the started poller, close it to stop polling. Pollers are closed on {@link #shutdown()} as well.
+     * @throws IOException if the local directory could not be created
+     */
+    RemotePoller pollRemoteFolder(String sourcePath, String destRelativePath, PollConfig pollConfig, PollListener listener) throws JSchException, SftpException, IOException;
+
+    /**
+     * Use this method to download a single remote file. Files of at least
+     * {@link SftpConfig#getSegmentedDownloadThreshold()} are fetched in segments over parallel channels
+     *
+     * @param sourcePath     the local directory to which the file is downloaded
+     * @param remoteFilePath the remote absolute path of the file to be downloaded
+     * @throws IOException if the local file could not be written or verified
+     */
+    void downloadFile(String sourcePath, String remoteFilePath) throws JSchException, SftpException, IOException;
+
+    /**
+     * Use this method to upload data which is not present in a local file. The stream is read
+     * until its end and sent to the server without being spilled to disk, it is not closed.
+     *
+     * @param remoteFilePath path of the remote file relative to home directory using sftp file separator,
+     *                       missing folders are created
+     * @param inputStream    the data to be uploaded
+     */
+    void upload(String remoteFilePath, InputStream inputStream) throws JSchException, SftpException;
+
+    /**
+     * Same as {@link #upload(String, InputStream)} for a channel, which is not closed
+     */
+    void upload(String remoteFilePath, ReadableByteChannel channel) throws JSchException, SftpException;
+
+    /**
+     * Use this method to consume a remote file without writing it to a local file.
+     * The stream is not closed.
+     *
+     * @param remoteFilePath path of the remote file relative to home directory using sftp file separator
+     * @param outputStream   receives the content of the remote file
+     */
+    void download(String remoteFilePath, OutputStream outputStream) throws JSchException, SftpException;
+
+    /**
+     * Same as {@link #download(String, OutputStream)} for a channel, which is not closed
+     */
+    void download(String remoteFilePath, WritableByteChannel channel) throws JSchException, SftpException;
+
+    /**
+     * Use this method to download a remote folder along with all its subfolders
+     *
+     * @param sourcePath       the local directory under which the tree is recreated
+     * @param destRelativePath the relative path of the remote folder, home directory if empty
+     * @return map with SUCCESS -> remote paths of downloaded files and
+     * FAILURE -> remote paths of files or folders which could not be downloaded
+     */
+    Map<String, List<String>> downloadDirectoryTree(String sourcePath, String destRelativePath) throws ChangeDirectoryException, JSchException, LsCommandException;
+
+    /**
+     * Use this method to upload a local folder along with all its subfolders
+     *
+     * @param destRelativePath the relative path on destination server under which the tree is recreated
+     * @param localDirectory   the local folder to be uploaded
+     * @return map with SUCCESS -> local paths of uploaded files and
+     * FAILURE -> local paths of files or folders which could not be uploaded
+     * @throws IOException if the local folder could not be walked
+     */
+    Map<String, List<String>> uploadDirectoryTree(String destRelativePath, String localDirectory) throws JSchException, SftpException, IOException;
+
 	/**
 	 * Use this method to change to home directory as per sftpconfig
 	 * @throws ChangeDirectoryException
@@ -91,13 +250,22 @@ public interface SftpService {
 
 	/**
 	 * @param fileList
-	 * @return list of files which failed to be deleted
+	 * @return list of files which failed to be deleted or were not present, in the order of the given list
 	 * Note caller can easily determine success files by using set operations
 	 * of collections on the list passed by caller
 	 * @throws JSchException
 	 */
 	List<String> deleteMultipleFiles(List<String> fileList) throws JSchException;
 
+    /**
+     * Use this method to delete a large number of files. Every remote folder is listed once to find the
+     * existing files instead of checking each file, and the files are deleted over parallel channels.
+     *
+     * @param fileList absolute remote paths of the files to be deleted
+     * @return map with SUCCESS -> deleted, MISSING -> not present and FAILURE -> not deleted file paths
+     */
+    Map<String, List<String>> batchDeleteFiles(List<String> fileList) throws JSchException;
+
 	/**
 	 * @param filePath the remote absolute path of the file to be deleted
 	 * @throws FileDeletionException
@@ -108,8 +276,20 @@ public interface SftpService {
 	/**
 	 * @param fileList List of absolute path of the files to be moved on remote server
 	 * @param destRelativePath relative folder path from home directory where the files need to be moved
-	 * @return List of absolute file path of the files which failed to be moved
+	 * @return List of absolute file path of the files which failed to be moved, also if the target exists
 	 * @throws JSchException
 	 */
 	List<String> moveRemoteFiles(List<String> fileList, String destRelativePath) throws JSchException;
+
+    /**
+     * Use this method to move a large number of files into a folder. The folder is created if missing and
+     * the files are renamed over parallel channels.
+     *
+     * @param fileList         absolute remote paths of the files to be moved
+     * @param destRelativePath relative folder path from home directory where the files need to be moved
+     * @param overwrite        true to replace files of the same name in the folder, atomically if the server
+     *                         supports posix-rename@openssh.com, false to fail such files
+     * @return map with SUCCESS -> moved and FAILURE -> not moved file paths
+     */
+    Map<String, List<String>> batchMoveFiles(List<String> fileList, String destRelativePath, boolean overwrite) throws JSchException;
 }
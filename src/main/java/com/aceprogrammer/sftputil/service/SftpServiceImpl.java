@@ -1,20 +1,35 @@
 package com.aceprogrammer.sftputil.service;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
+import java.nio.file.NotDirectoryException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.TreeMap;
 import java.util.Vector;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.ObjectUtils;
@@ -22,34 +37,83 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import com.aceprogrammer.sftputil.config.ChecksumAlgorithm;
+import com.aceprogrammer.sftputil.config.PollConfig;
 import com.aceprogrammer.sftputil.config.SftpConfig;
-import com.aceprogrammer.sftputil.constants.ConfigFields;
-import com.aceprogrammer.sftputil.constants.ConfigValues;
+import com.aceprogrammer.sftputil.config.SyncComparison;
+import com.aceprogrammer.sftputil.config.TransportProfile;
 import com.aceprogrammer.sftputil.constants.FileTransferResults;
 import com.aceprogrammer.sftputil.constants.SftpConstants;
 import com.aceprogrammer.sftputil.exception.ChangeDirectoryException;
-import com.aceprogrammer.sftputil.exception.MoveFileException;
 import com.aceprogrammer.sftputil.exception.FileDeletionException;
 import com.aceprogrammer.sftputil.exception.LsCommandException;
 import com.aceprogrammer.sftputil.exception.SftpConfigException;
-import com.jcraft.jsch.Channel;
+import com.aceprogrammer.sftputil.listing.RemoteFileFilter;
+import com.aceprogrammer.sftputil.listing.RemoteFileIterator;
+import com.aceprogrammer.sftputil.metrics.OperationTimer;
+import com.aceprogrammer.sftputil.metrics.OperationType;
+import com.aceprogrammer.sftputil.pool.PooledConnection;
+import com.aceprogrammer.sftputil.pool.RemoteDirectoryCache;
+import com.aceprogrammer.sftputil.pool.SftpConnectionPool;
+import com.aceprogrammer.sftputil.result.BatchResult;
+import com.aceprogrammer.sftputil.result.BatchResultCollector;
+import com.aceprogrammer.sftputil.result.TransferResult;
+import com.aceprogrammer.sftputil.result.TransferResultListener;
+import com.aceprogrammer.sftputil.result.TransferStatus;
+import com.aceprogrammer.sftputil.transfer.BatchDeleter;
+import com.aceprogrammer.sftputil.transfer.BatchListener;
+import com.aceprogrammer.sftputil.transfer.BatchMover;
+import com.aceprogrammer.sftputil.transfer.DirectBufferPool;
+import com.aceprogrammer.sftputil.transfer.FolderSynchronizer;
+import com.aceprogrammer.sftputil.transfer.LocalFiles;
+import com.aceprogrammer.sftputil.transfer.ResumableUploader;
+import com.aceprogrammer.sftputil.transfer.SegmentedDownloader;
+import com.aceprogrammer.sftputil.transfer.TransferBatch;
+import com.aceprogrammer.sftputil.transfer.SftpTransfers;
+import com.aceprogrammer.sftputil.transfer.TransferThreadFactory;
+import com.aceprogrammer.sftputil.watch.PollListener;
+import com.aceprogrammer.sftputil.watch.RemotePoller;
 import com.jcraft.jsch.ChannelSftp;
-import com.jcraft.jsch.JSch;
 import com.jcraft.jsch.JSchException;
-import com.jcraft.jsch.Session;
 import com.jcraft.jsch.SftpException;
 
-import static com.aceprogrammer.sftputil.constants.SftpConstants.*;
-
 /**
  * @author Mohammed Salman Shaikh
  */
 public class SftpServiceImpl implements SftpService {
 
+    private static final String JZLIB_CLASS = "com.jcraft.jzlib.ZStream";
+
+    /**
+     * ****NOTE USING *.* TO ONLY GET FILES, matched by jsch while the listing arrives
+     */
+    private static final RemoteFileFilter DOWNLOAD_ALL_FILTER = RemoteFileFilter.builder().glob("*.*").build();
+
     private final Log logger = LogFactory.getLog(this.getClass());
 
     private SftpConfig sftpConfig;
 
+    private SftpConnectionPool connectionPool;
+
+    private ExecutorService transferExecutor;
+
+    private SegmentedDownloader segmentedDownloader;
+
+    private ResumableUploader resumableUploader;
+
+    private FolderSynchronizer folderSynchronizer;
+
+    private BatchDeleter batchDeleter;
+
+    private BatchMover batchMover;
+
+    private LocalFiles localFiles;
+
+    /**
+     * pollers started by this service, closed on shutdown
+     */
+    private final List <RemotePoller> remotePollers = new CopyOnWriteArrayList <>();
+
     @Override
     public void initialize(SftpConfig sftpConfig) throws SftpConfigException {
 
@@ -72,7 +136,83 @@ public class SftpServiceImpl implements SftpService {
                 throw new SftpConfigException(errorMsg);
             }
 
+            if (sftpConfig.getParallelism() < 1) {
+                String errorMsg = "Parallelism must be at least 1. Rejected object:" + sftpConfig;
+                logger.error(errorMsg);
+                throw new SftpConfigException(errorMsg);
+            }
+
+            if (Objects.isNull(sftpConfig.getRetryPolicy()) || sftpConfig.getRetryPolicy().getMaxAttempts() < 1
+                    || StringUtils.isEmpty(sftpConfig.getCheckpointDirectory())) {
+                String errorMsg = "Retry policy with at least 1 attempt and checkpoint directory are mandatory!"
+                        + "Rejected object:" + sftpConfig;
+                logger.error(errorMsg);
+                throw new SftpConfigException(errorMsg);
+            }
+
+            if (Objects.isNull(sftpConfig.getTransferListener())) {
+                String errorMsg = "Transfer listener must not be null, use TransferListener.NOOP instead";
+                logger.error(errorMsg);
+                throw new SftpConfigException(errorMsg);
+            }
+
+            validateTransportProfile(sftpConfig.getTransportProfile());
+
+            if (Objects.isNull(sftpConfig.getChecksumVerification())) {
+                String errorMsg = "Checksum verification must not be null, use ChecksumVerification.NONE instead";
+                logger.error(errorMsg);
+                throw new SftpConfigException(errorMsg);
+            }
+
+            if (sftpConfig.getTransferBufferSize() < 1 || sftpConfig.getMemoryMapThreshold() < 0) {
+                String errorMsg = "Transfer buffer size must be at least 1 and memory map threshold must not be "
+                        + "negative. Rejected object:" + sftpConfig;
+                logger.error(errorMsg);
+                throw new SftpConfigException(errorMsg);
+            }
+
+            if (Objects.isNull(sftpConfig.getPoolConfig()) || sftpConfig.getPoolConfig().getMaxTotal() < 1) {
+                String errorMsg = "Pool size must be at least 1. Rejected object:" + sftpConfig.getPoolConfig();
+                logger.error(errorMsg);
+                throw new SftpConfigException(errorMsg);
+            }
+
+            if (sftpConfig.getPoolConfig().getEvictionIntervalMillis() <= 0) {
+                // the evictor is scheduled with this delay, which must be positive
+                String errorMsg = "Eviction interval must be positive. Rejected object:" + sftpConfig.getPoolConfig();
+                logger.error(errorMsg);
+                throw new SftpConfigException(errorMsg);
+            }
+
+            if (sftpConfig.getParallelism() > sftpConfig.getPoolConfig().getMaxTotal()) {
+                logger.warn("Parallelism:" + sftpConfig.getParallelism() + " exceeds pool size:"
+                        + sftpConfig.getPoolConfig().getMaxTotal() + ", batches will use at most the pool size");
+            }
+
+            // close connections of a previous configuration, if any
+            shutdown();
             this.sftpConfig = sftpConfig;
+            this.connectionPool = new SftpConnectionPool(sftpConfig);
+            this.transferExecutor = Executors.newCachedThreadPool(new TransferThreadFactory(host));
+            // every pooled connection transfers at most one local file at a time
+            DirectBufferPool bufferPool = new DirectBufferPool(sftpConfig.getTransferBufferSize(),
+                    sftpConfig.getPoolConfig().getMaxTotal());
+            this.localFiles = new LocalFiles(bufferPool, sftpConfig.getMemoryMapThreshold());
+            this.segmentedDownloader = new SegmentedDownloader(connectionPool, transferExecutor,
+                    sftpConfig.getParallelism(), sftpConfig.getSegmentSize(), bufferPool,
+                    sftpConfig.getRetryPolicy(), sftpConfig.getTransferListener());
+            this.resumableUploader = new ResumableUploader(connectionPool, localFiles, sftpConfig.getRetryPolicy(),
+                    Paths.get(sftpConfig.getCheckpointDirectory()), sftpConfig.getTransferListener());
+            this.folderSynchronizer = new FolderSynchronizer(connectionPool, transferExecutor, localFiles,
+                    sftpConfig);
+            this.batchDeleter = new BatchDeleter(connectionPool, transferExecutor, sftpConfig);
+            this.batchMover = new BatchMover(connectionPool, transferExecutor, sftpConfig);
+            try {
+                connectionPool.prepare();
+            } catch (JSchException e) {
+                // pre-warming is best effort, connections will be opened on demand
+                logger.warn("Could not pre-warm sftp connections for host:" + host, e);
+            }
         } else {
             logger.error("SftpConfig is null");
             throw new SftpConfigException("Please provide sftpConfiguration!");
@@ -80,6 +220,57 @@ public class SftpServiceImpl implements SftpService {
 
     }
 
+    private void validateTransportProfile(TransportProfile transportProfile) throws SftpConfigException {
+        if (Objects.isNull(transportProfile)) {
+            String errorMsg = "Transport profile must not be null, use TransportProfile.DEFAULT instead";
+            logger.error(errorMsg);
+            throw new SftpConfigException(errorMsg);
+        }
+        List <String> unsupported = transportProfile.getUnsupportedAlgorithms();
+        if (!unsupported.isEmpty()) {
+            String errorMsg = "Algorithms:" + unsupported + " are not supported by jsch. Rejected object:"
+                    + transportProfile;
+            logger.error(errorMsg);
+            throw new SftpConfigException(errorMsg);
+        }
+        int level = transportProfile.getCompressionLevel();
+        if (transportProfile.isCompression() && (level < 1 || level > 9)) {
+            String errorMsg = "Compression level must be between 1 and 9. Rejected object:" + transportProfile;
+            logger.error(errorMsg);
+            throw new SftpConfigException(errorMsg);
+        }
+        if (transportProfile.isCompression()) {
+            try {
+                Class.forName(JZLIB_CLASS);
+            } catch (ClassNotFoundException e) {
+                String errorMsg = "Compression requires com.jcraft:jzlib on the classpath";
+                logger.error(errorMsg);
+                throw new SftpConfigException(errorMsg);
+            }
+        }
+    }
+
+    /**
+     * @return the cache of remote directories known to exist, along with its hit and miss counts
+     */
+    public RemoteDirectoryCache getDirectoryCache() {
+        return connectionPool.getDirectoryCache();
+    }
+
+    @Override
+    public void shutdown() {
+        for (RemotePoller remotePoller : remotePollers) {
+            remotePoller.close();
+        }
+        remotePollers.clear();
+        if (transferExecutor != null) {
+            transferExecutor.shutdown();
+        }
+        if (connectionPool != null) {
+            connectionPool.close();
+        }
+    }
+
     @Override
     public void uploadFile(String destRelativePath, File file) throws JSchException, SftpException, IOException {
 
@@ -106,35 +297,26 @@ public class SftpServiceImpl implements SftpService {
                 destFileName = file.getName();
             }
             // declare necessary stuff
-            Session session = null;
-            Channel channel = null;
+            PooledConnection connection = null;
             try {
-                // connect session and channel
-                session = getSession();
-                session.connect();
-                logger.debug(SESSION_CONNECT);
-                channel = session.openChannel(ConfigFields.SFTP_CHANNEL);
-                channel.connect();
-                logger.debug(CHANNEL_CONNECT);
-                ChannelSftp sftp = (ChannelSftp) channel;
+                // borrow a connected session and channel from the pool
+                connection = connectionPool.borrow();
+                ChannelSftp sftp = connection.getChannel();
 
                 String remoteAbsolutePath = createDirectories(destRelativePath, sftp);
-                sftp.cd(remoteAbsolutePath);
 
-                try (InputStream inputStream = new FileInputStream(file)) {
+                try (InputStream inputStream = localFiles.newInputStream(file.toPath())) {
                     logger.debug("Trying to upload File:" + file.getName() + " to: " + remoteAbsolutePath);
                     // if given path doesn't have file name then use the file name of the given file
                     // itself
-                    sftp.put(inputStream, destFileName);
+                    putFile(inputStream, getDestinationFilePath(remoteAbsolutePath, destFileName), sftp);
                     logger.info("File:" + file.getName() + " was uploaded successfully to: " + remoteAbsolutePath);
+                } catch (SftpException e) {
+                    invalidateIfFolderMissing(e, remoteAbsolutePath);
+                    throw e;
                 }
             } finally {
-                if (channel != null) {
-                    channel.disconnect();
-                }
-                if (session != null) {
-                    session.disconnect();
-                }
+                connectionPool.release(connection);
             }
 
         }
@@ -146,6 +328,25 @@ public class SftpServiceImpl implements SftpService {
         uploadFile(destRelativePath, new File(localFilePath));
     }
 
+    @Override
+    public void uploadFileResumable(String destRelativePath, File file) throws JSchException, SftpException, IOException {
+        if (!ObjectUtils.allNotNull(destRelativePath, file)) {
+            logger.info("No file uploaded!");
+            logger.info("Destination path was " + destRelativePath);
+            logger.info("File was:" + file);
+            return;
+        }
+        String remoteFolder;
+        PooledConnection connection = null;
+        try {
+            connection = connectionPool.borrow();
+            remoteFolder = createDirectories(destRelativePath, connection.getChannel());
+        } finally {
+            connectionPool.release(connection);
+        }
+        resumableUploader.upload(file, getDestinationFilePath(remoteFolder, file.getName()));
+    }
+
     @Override
     public Map <String, List <String>> uploadMultipleFiles(String destRelativePath, List <String> localFileList)
             throws SftpException, JSchException {
@@ -155,51 +356,34 @@ public class SftpServiceImpl implements SftpService {
             logger.info("Destination path was " + destRelativePath);
             logger.info("FileList was " + localFileList);
             return Collections.emptyMap();
-        } else {
-            Session session = null;
-            Channel channel = null;
-
-            Map <String, List <String>> fileUploadStatus = new TreeMap <>();
-            List <String> uploadedFiles;
-            List <String> failedFiles;
+        }
+        // spread over up to parallelism channels, retrying only the failed files
+        return uploadMultipleFilesInBatch(destRelativePath, localFileList);
+    }
 
+    @Override
+    public Map <String, List <String>> syncUploadFiles(String destRelativePath, List <String> localFileList,
+                                                       SyncComparison comparison) throws SftpException, JSchException {
+        if (Objects.isNull(localFileList) || localFileList.isEmpty() || Objects.isNull(comparison)) {
+            logger.info("No file synced");
+            logger.info("Destination path was " + destRelativePath);
+            logger.info("FileList was " + localFileList);
+            return Collections.emptyMap();
+        }
+        PooledConnection connection = null;
+        try {
+            connection = connectionPool.borrow();
+            ChannelSftp sftp = connection.getChannel();
+            String remoteFolder = createDirectories(destRelativePath, sftp);
+            logger.info("Syncing files:" + localFileList + " to " + remoteFolder + " comparing " + comparison);
             try {
-                session = getSession();
-                session.connect();
-                logger.debug(SESSION_CONNECT);
-                channel = session.openChannel(ConfigFields.SFTP_CHANNEL);
-                channel.connect();
-                logger.debug(CHANNEL_CONNECT);
-                ChannelSftp sftp = (ChannelSftp) channel;
-
-                // create the destination directory first
-                String remoteFolder = createDirectories(destRelativePath, sftp);
-
-                sftp.cd(remoteFolder);
-
-                // then upload all files to that directory
-
-                // loop through each file and keep uploading
-                // will fail if any of the filepath doesn't contain a filename
-                logger.info("Uploading files:" + localFileList + " to " + remoteFolder);
-                failedFiles = uploadMultipleFilesToFolder(sftp, localFileList, remoteFolder);
-
-                // subtract uploadedFiles from original list
-                localFileList.removeAll(failedFiles);
-                uploadedFiles = localFileList;
-
-                // put them in map
-                fileUploadStatus.put(FileTransferResults.SUCCESS, uploadedFiles);
-                fileUploadStatus.put(FileTransferResults.FAILURE, failedFiles);
-                return fileUploadStatus;
-            } finally {
-                if (channel != null) {
-                    channel.disconnect();
-                }
-                if (session != null) {
-                    session.disconnect();
-                }
+                return folderSynchronizer.upload(localFileList, remoteFolder, comparison, sftp);
+            } catch (SftpException e) {
+                invalidateIfFolderMissing(e, remoteFolder);
+                throw e;
             }
+        } finally {
+            connectionPool.release(connection);
         }
     }
 
@@ -207,466 +391,1015 @@ public class SftpServiceImpl implements SftpService {
     public Map <String, Map <String, List <String>>> uploadMultipleFiles(Map <String, List <String>> folderWiseFiles)
             throws JSchException {
 
-        if (!Objects.isNull(folderWiseFiles)) {
+        if (Objects.isNull(folderWiseFiles)) {
+            return null;
+        }
+        return uploadMultipleFilesInBatch(folderWiseFiles);
+    }
 
-            Map <String, Map <String, List <String>>> finalMap = new TreeMap <>();
-            Session session = null;
-            Channel channel = null;
-            try {
-                session = getSession();
-                session.connect();
-                logger.debug(SESSION_CONNECT);
-                channel = session.openChannel(ConfigFields.SFTP_CHANNEL);
-                channel.connect();
-                logger.debug(CHANNEL_CONNECT);
-                ChannelSftp sftp = (ChannelSftp) channel;
-
-                for (Map.Entry <String, List <String>> entry : folderWiseFiles.entrySet()) {
-
-                    String folder = entry.getKey();
-                    List <String> localFileList = entry.getValue();
-
-                    Map <String, List <String>> fileUploadStatus = new TreeMap <>();
-                    List <String> uploadedFiles = null;
-                    List <String> failedFiles = null;
-                    try {
-                        if (!localFileList.isEmpty()) {
-                            // create folder first
-                            String remoteFolder = createDirectories(folder, sftp);
-
-                            // move to the folder
-                            sftp.cd(remoteFolder);
-
-                            // loop list of files and upload them
-                            logger.info("Uploading files:" + localFileList + " to " + remoteFolder);
-                            failedFiles = uploadMultipleFilesToFolder(sftp, localFileList, remoteFolder);
-
-                            // subtract uploadedFiles from original list
-                            localFileList.removeAll(failedFiles);
-                            uploadedFiles = localFileList;
+    @Override
+    public BatchResult uploadFiles(String destRelativePath, Iterable <String> fileList,
+                                   TransferResultListener listener) throws JSchException, SftpException {
+        BatchResultCollector collector = new BatchResultCollector(listener);
+        if (Objects.isNull(fileList)) {
+            logger.info("No file uploaded");
+            logger.info("Destination path was " + destRelativePath);
+            return collector.toBatchResult();
+        }
+        PooledConnection connection = null;
+        try {
+            connection = connectionPool.borrow();
+            ChannelSftp sftp = connection.getChannel();
+            String remoteFolder = createDirectories(destRelativePath, sftp);
+            logger.info("Uploading files to " + remoteFolder);
+
+            // files are handed to the workers while iterating, an atomic upload is renamed right after its data
+            TransferBatch <UploadItem> batch = new TransferBatch <>(connectionPool, transferExecutor,
+                    sftpConfig.getParallelism(), sftpConfig.getTransferQueueCapacity(), this::uploadAndCommitItem,
+                    new BatchListener <UploadItem>() {
+                        @Override
+                        public void onSuccess(UploadItem item) {
+                            collector.onResult(toTransferResult(item, null));
                         }
-                    } catch (Exception e) {
-                        logger.error("Error while uploading files:" + localFileList + " to relative path:" + folder);
-                        logger.error(e);
-                    }
-
-                    logger.info("Successfully uploaded files list for folder " + folder + "is " + uploadedFiles);
-                    logger.info("Failed files list for folder " + folder + "is " + failedFiles);
-
-                    // put them in map
-                    fileUploadStatus.put(FileTransferResults.SUCCESS, uploadedFiles);
-                    fileUploadStatus.put(FileTransferResults.FAILURE, failedFiles);
 
-                    // update final map
-                    finalMap.put(folder, fileUploadStatus);
+                        @Override
+                        public void onFailure(UploadItem item, Exception e) {
+                            logger.error("Failed to upload file:" + item.localFilePath, e);
+                            invalidateIfFolderMissing(e, item.remoteFolder);
+                            collector.onResult(toTransferResult(item, e));
+                        }
+                    }, sftp, sftpConfig.getRetryPolicy());
+            try {
+                for (String localFilePath : fileList) {
+                    batch.submit(new UploadItem(localFilePath, remoteFolder));
                 }
-                return finalMap;
             } finally {
-                if (channel != null) {
-                    channel.disconnect();
-                }
-                if (session != null) {
-                    session.disconnect();
-                }
+                batch.await();
             }
+        } finally {
+            connectionPool.release(connection);
         }
-
-        return null;
+        BatchResult batchResult = collector.toBatchResult();
+        logger.info("Uploaded " + batchResult.getSucceeded() + " files, " + batchResult.getFailed() + " failed");
+        return batchResult;
     }
 
     @Override
     public String createDirectory(String dirName) throws JSchException, SftpException {
-        Session session = null;
-        Channel channel = null;
+        PooledConnection connection = null;
         try {
-            session = getSession();
-            session.connect();
-            logger.debug(SESSION_CONNECT);
-            channel = session.openChannel(ConfigFields.SFTP_CHANNEL);
-            channel.connect();
-            logger.debug(CHANNEL_CONNECT);
-            ChannelSftp sftp = (ChannelSftp) channel;
+            connection = connectionPool.borrow();
+            ChannelSftp sftp = connection.getChannel();
             return createDirectory(dirName, sftp);
         } finally {
-            if (channel != null) {
-                channel.disconnect();
-            }
-            if (session != null) {
-                session.disconnect();
-            }
+            connectionPool.release(connection);
         }
     }
 
     @Override
     public Map <String, List <String>> downloadAllFiles(String sourcePath, String destRelativePath)
             throws ChangeDirectoryException, JSchException, LsCommandException {
-        Session session = null;
-        Channel channel = null;
+        List <String> sucessFiles = Collections.synchronizedList(new ArrayList <>());
+        List <String> failedFiles = Collections.synchronizedList(new ArrayList <>());
+
+        // consumes the lazy listing, with a single worker unless parallelism is configured
+        downloadFiles(sourcePath, destRelativePath, result -> {
+            if (result.isSuccess()) {
+                sucessFiles.add(result.getRemotePath());
+            } else {
+                failedFiles.add(result.getRemotePath()
+                        .substring(result.getRemotePath().lastIndexOf(SftpConstants.FILE_SEPARATOR) + 1));
+            }
+        });
+
+        Map <String, List <String>> downloadStatus = new HashMap <>();
+        downloadStatus.put(FileTransferResults.SUCCESS, new ArrayList <>(sucessFiles));
+        downloadStatus.put(FileTransferResults.FAILURE, new ArrayList <>(failedFiles));
+        return downloadStatus;
+    }
+
+    @Override
+    public BatchResult downloadFiles(String sourcePath, String destRelativePath, TransferResultListener listener)
+            throws ChangeDirectoryException, JSchException, LsCommandException {
+        BatchResultCollector collector = new BatchResultCollector(listener);
+        Path localFolder = Paths.get(sourcePath);
+        PooledConnection connection = null;
         try {
-            session = getSession();
-            session.connect();
-            logger.debug(SESSION_CONNECT);
-            channel = session.openChannel(ConfigFields.SFTP_CHANNEL);
-            channel.connect();
-            logger.debug(CHANNEL_CONNECT);
-            ChannelSftp sftp = (ChannelSftp) channel;
-            return downloadAllFiles(sourcePath, destRelativePath, sftp);
-        } finally {
-            if (channel != null) {
-                channel.disconnect();
+            connection = connectionPool.borrow();
+            ChannelSftp sftp = connection.getChannel();
+            String remotePath = changeToDownloadDirectory(destRelativePath, sftp);
+
+            // files are fanned out over the channels while the listing is still arriving, the
+            // listing takes a spare connection first so that the helpers of the batch cannot starve it,
+            // without one it opens another channel over the session of this thread
+            RemoteFileIterator fileIterator = RemoteFileIterator.open(connectionPool, transferExecutor, sftp,
+                    remotePath, DOWNLOAD_ALL_FILTER, sftpConfig.getTransferQueueCapacity());
+            TransferBatch <RemoteFile> batch = new TransferBatch <>(connectionPool, transferExecutor,
+                    sftpConfig.getParallelism(), sftpConfig.getTransferQueueCapacity(), this::downloadRemoteFile,
+                    new BatchListener <RemoteFile>() {
+                        @Override
+                        public void onSuccess(RemoteFile file) {
+                            collector.onResult(toTransferResult(file, null));
+                        }
+
+                        @Override
+                        public void onFailure(RemoteFile file, Exception e) {
+                            logger.error("Error while downloading remote file" + file.fileName, e);
+                            collector.onResult(toTransferResult(file, e));
+                        }
+                    }, sftp, sftpConfig.getRetryPolicy());
+            IllegalStateException listingFailure = null;
+            try {
+                while (fileIterator.hasNext()) {
+                    ChannelSftp.LsEntry entry = fileIterator.next();
+                    batch.submit(new RemoteFile(getDestinationFilePath(remotePath, entry.getFilename()),
+                            entry.getFilename(), entry.getAttrs().getSize(), localFolder));
+                }
+            } catch (IllegalStateException e) {
+                listingFailure = e;
+            } finally {
+                fileIterator.close();
+                batch.await();
+            }
+            if (listingFailure != null) {
+                String errorMsg = "Exception while trying to list all files from directory:" + remotePath;
+                logger.error(errorMsg, listingFailure);
+                throw new LsCommandException(errorMsg);
             }
-            if (session != null) {
-                session.disconnect();
+            if (collector.toBatchResult().getTotal() == 0) {
+                logger.warn("No files found to download on remotePath:" + remotePath);
             }
+        } finally {
+            connectionPool.release(connection);
+        }
+        return collector.toBatchResult();
+    }
+
+    @Override
+    public RemoteFileIterator listRemoteFiles(String destRelativePath, RemoteFileFilter filter) throws JSchException {
+        String remoteFolder = StringUtils.isEmpty(destRelativePath) ? sftpConfig.getHomePath()
+                : getAbsoluteRemotePath(destRelativePath);
+        logger.info("Listing remote folder:" + remoteFolder + " with filter:" + filter);
+        return RemoteFileIterator.open(connectionPool, transferExecutor, remoteFolder,
+                filter == null ? RemoteFileFilter.ALL : filter, RemoteFileIterator.DEFAULT_CAPACITY);
+    }
+
+    @Override
+    public RemotePoller pollRemoteFolder(String sourcePath, String destRelativePath, PollConfig pollConfig,
+                                         PollListener listener) throws JSchException, SftpException, IOException {
+        if (!ObjectUtils.allNotNull(sourcePath, pollConfig, listener)) {
+            throw new IllegalArgumentException("Local path, poll config and listener are mandatory");
+        }
+        Path localDirectory = Files.createDirectories(Paths.get(sourcePath));
+        String remoteFolder = StringUtils.isEmpty(destRelativePath) ? sftpConfig.getHomePath()
+                : getAbsoluteRemotePath(destRelativePath);
+        String processedFolder = pollConfig.getProcessedRelativePath() == null ? null
+                : createDirectories(pollConfig.getProcessedRelativePath());
+        RemotePoller remotePoller = new RemotePoller(connectionPool, batchMover, localFiles, sftpConfig, remoteFolder,
+                processedFolder, localDirectory, pollConfig, listener);
+        remotePollers.add(remotePoller);
+        remotePoller.start();
+        return remotePoller;
+    }
+
+    @Override
+    public Map <String, List <String>> syncDownloadFiles(String sourcePath, String destRelativePath,
+                                                         SyncComparison comparison)
+            throws SftpException, JSchException, IOException {
+        if (!ObjectUtils.allNotNull(sourcePath, comparison)) {
+            logger.info("No file synced");
+            logger.info("Local path was " + sourcePath);
+            return Collections.emptyMap();
+        }
+        Path localFolder = Files.createDirectories(Paths.get(sourcePath));
+        String remoteFolder = StringUtils.isEmpty(destRelativePath) ? sftpConfig.getHomePath()
+                : getAbsoluteRemotePath(destRelativePath);
+        PooledConnection connection = null;
+        try {
+            connection = connectionPool.borrow();
+            logger.info("Syncing files of remote folder:" + remoteFolder + " to " + localFolder + " comparing "
+                    + comparison);
+            return folderSynchronizer.download(remoteFolder, localFolder, comparison, connection.getChannel());
+        } finally {
+            connectionPool.release(connection);
+        }
+    }
+
+    @Override
+    public void downloadFile(String sourcePath, String remoteFilePath) throws JSchException, SftpException, IOException {
+        PooledConnection connection = null;
+        try {
+            connection = connectionPool.borrow();
+            ChannelSftp sftp = connection.getChannel();
+            String fileName = remoteFilePath.substring(remoteFilePath.lastIndexOf(SftpConstants.FILE_SEPARATOR) + 1);
+            long size = sftp.stat(remoteFilePath).getSize();
+            downloadFile(sourcePath, fileName, remoteFilePath, size, sftp);
+        } finally {
+            connectionPool.release(connection);
+        }
+    }
+
+    @Override
+    public void upload(String remoteFilePath, InputStream inputStream) throws JSchException, SftpException {
+        if (!ObjectUtils.allNotNull(remoteFilePath, inputStream)) {
+            logger.info("No stream uploaded!");
+            logger.info("Remote file path was " + remoteFilePath);
+            return;
+        }
+        PooledConnection connection = null;
+        try {
+            connection = connectionPool.borrow();
+            ChannelSftp sftp = connection.getChannel();
+            String absoluteFilePath = getAbsoluteRemoteFilePath(remoteFilePath);
+            String remoteFolder = createParentDirectories(absoluteFilePath, sftp);
+            try {
+                // jsch reads the stream straight into its outgoing packets
+                putFile(inputStream, absoluteFilePath, sftp);
+            } catch (SftpException e) {
+                invalidateIfFolderMissing(e, remoteFolder);
+                throw e;
+            }
+            logger.info("Stream was uploaded successfully to: " + absoluteFilePath);
+        } finally {
+            connectionPool.release(connection);
+        }
+    }
+
+    @Override
+    public void upload(String remoteFilePath, ReadableByteChannel channel) throws JSchException, SftpException {
+        upload(remoteFilePath, Objects.isNull(channel) ? null : Channels.newInputStream(channel));
+    }
+
+    @Override
+    public void download(String remoteFilePath, OutputStream outputStream) throws JSchException, SftpException {
+        if (!ObjectUtils.allNotNull(remoteFilePath, outputStream)) {
+            logger.info("Nothing downloaded!");
+            logger.info("Remote file path was " + remoteFilePath);
+            return;
+        }
+        PooledConnection connection = null;
+        try {
+            connection = connectionPool.borrow();
+            String absoluteFilePath = getAbsoluteRemoteFilePath(remoteFilePath);
+            // jsch writes the incoming packets straight into the stream
+            getFile(absoluteFilePath, outputStream, connection.getChannel());
+            logger.info("Remote file:" + absoluteFilePath + " was downloaded successfully to stream");
+        } finally {
+            connectionPool.release(connection);
+        }
+    }
+
+    @Override
+    public void download(String remoteFilePath, WritableByteChannel channel) throws JSchException, SftpException {
+        download(remoteFilePath, Objects.isNull(channel) ? null : Channels.newOutputStream(channel));
+    }
+
+    @Override
+    public Map <String, List <String>> downloadDirectoryTree(String sourcePath, String destRelativePath)
+            throws ChangeDirectoryException, JSchException, LsCommandException {
+        PooledConnection connection = null;
+        try {
+            connection = connectionPool.borrow();
+            ChannelSftp sftp = connection.getChannel();
+            String remoteRoot = changeToDownloadDirectory(destRelativePath, sftp);
+            return downloadDirectoryTree(Paths.get(sourcePath), remoteRoot, sftp);
+        } finally {
+            connectionPool.release(connection);
+        }
+    }
+
+    @Override
+    public Map <String, List <String>> uploadDirectoryTree(String destRelativePath, String localDirectory)
+            throws JSchException, SftpException, IOException {
+        Path localRoot = Paths.get(localDirectory);
+        if (!Files.isDirectory(localRoot)) {
+            throw new NotDirectoryException(localDirectory);
+        }
+        PooledConnection connection = null;
+        try {
+            connection = connectionPool.borrow();
+            ChannelSftp sftp = connection.getChannel();
+            String remoteRoot = createDirectories(destRelativePath, sftp);
+            return uploadDirectoryTree(localRoot, remoteRoot, sftp);
+        } finally {
+            connectionPool.release(connection);
         }
     }
 
     @Override
     public String createDirectories(String destRelativePath) throws JSchException, SftpException {
-        Session session = null;
-        Channel channel = null;
+        PooledConnection connection = null;
         try {
-            session = getSession();
-            session.connect();
-            logger.debug(SESSION_CONNECT);
-            channel = session.openChannel(ConfigFields.SFTP_CHANNEL);
-            channel.connect();
-            logger.debug(CHANNEL_CONNECT);
-            ChannelSftp sftp = (ChannelSftp) channel;
+            connection = connectionPool.borrow();
+            ChannelSftp sftp = connection.getChannel();
             return createDirectories(destRelativePath, sftp);
 
         } finally {
-            if (channel != null) {
-                channel.disconnect();
-            }
-            if (session != null) {
-                session.disconnect();
-            }
+            connectionPool.release(connection);
         }
     }
 
     @Override
     public void changeToHomeDirectory() throws ChangeDirectoryException, JSchException {
 
-        Session session = null;
-        Channel channel = null;
+        PooledConnection connection = null;
         try {
-            session = getSession();
-            session.connect();
-            logger.debug(SESSION_CONNECT);
-            channel = session.openChannel(ConfigFields.SFTP_CHANNEL);
-            channel.connect();
-            logger.debug(CHANNEL_CONNECT);
-            ChannelSftp sftp = (ChannelSftp) channel;
+            connection = connectionPool.borrow();
+            ChannelSftp sftp = connection.getChannel();
             changeToHomeDirectory(sftp);
         } finally {
-            if (channel != null) {
-                channel.disconnect();
-            }
-            if (session != null) {
-                session.disconnect();
-            }
+            connectionPool.release(connection);
         }
 
     }
 
     @Override
     public List <String> deleteMultipleFiles(List <String> fileList) throws JSchException {
+        Set <String> deletedFiles = new HashSet <>(batchDeleteFiles(fileList).get(FileTransferResults.SUCCESS));
+        // missing and failed files in the order of the given list
+        List <String> failedFiles = new ArrayList <>();
+        if (fileList != null) {
+            for (String filePath : fileList) {
+                if (!deletedFiles.contains(filePath)) {
+                    failedFiles.add(filePath);
+                }
+            }
+        }
+        return failedFiles;
+    }
 
-        Session session = null;
-        Channel channel = null;
+    @Override
+    public Map <String, List <String>> batchDeleteFiles(List <String> fileList) throws JSchException {
+        if (fileList == null || fileList.isEmpty()) {
+            logger.info("No file deleted");
+            Map <String, List <String>> deleteStatus = new HashMap <>();
+            deleteStatus.put(FileTransferResults.SUCCESS, new ArrayList <>());
+            deleteStatus.put(FileTransferResults.MISSING, new ArrayList <>());
+            deleteStatus.put(FileTransferResults.FAILURE, new ArrayList <>());
+            return deleteStatus;
+        }
+        PooledConnection connection = null;
         try {
-            session = getSession();
-            session.connect();
-            logger.debug(SESSION_CONNECT);
-            channel = session.openChannel(ConfigFields.SFTP_CHANNEL);
-            channel.connect();
-            logger.debug(CHANNEL_CONNECT);
-            ChannelSftp sftp = (ChannelSftp) channel;
-            return deleteMultipleFiles(fileList, sftp);
+            connection = connectionPool.borrow();
+            return batchDeleter.delete(fileList, connection.getChannel());
         } finally {
-            if (channel != null) {
-                channel.disconnect();
-            }
-            if (session != null) {
-                session.disconnect();
-            }
+            connectionPool.release(connection);
         }
     }
 
     @Override
     public void deleteFile(String filePath) throws FileDeletionException, JSchException {
 
-        Session session = null;
-        Channel channel = null;
+        PooledConnection connection = null;
         try {
-            session = getSession();
-            session.connect();
-            logger.debug(SESSION_CONNECT);
-            channel = session.openChannel(ConfigFields.SFTP_CHANNEL);
-            channel.connect();
-            logger.debug(CHANNEL_CONNECT);
-            ChannelSftp sftp = (ChannelSftp) channel;
+            connection = connectionPool.borrow();
+            ChannelSftp sftp = connection.getChannel();
             deleteFile(filePath, sftp);
         } finally {
-            if (channel != null) {
-                channel.disconnect();
-            }
-            if (session != null) {
-                session.disconnect();
-            }
+            connectionPool.release(connection);
         }
 
     }
 
     @Override
     public List <String> moveRemoteFiles(List <String> fileList, String destRelativePath) throws JSchException {
+        return batchMoveFiles(fileList, destRelativePath, false).get(FileTransferResults.FAILURE);
+    }
 
-        List <String> failedFiles = new ArrayList <>();
+    @Override
+    public Map <String, List <String>> batchMoveFiles(List <String> fileList, String destRelativePath,
+                                                      boolean overwrite) throws JSchException {
+        Map <String, List <String>> moveStatus = new HashMap <>();
+        if (fileList == null || fileList.isEmpty()) {
+            logger.info("No file moved");
+            moveStatus.put(FileTransferResults.SUCCESS, new ArrayList <>());
+            moveStatus.put(FileTransferResults.FAILURE, new ArrayList <>());
+            return moveStatus;
+        }
+        PooledConnection connection = null;
+        try {
+            connection = connectionPool.borrow();
+            ChannelSftp sftp = connection.getChannel();
+            // if path is empty then move files to home directory
+            String remotePath;
+            try {
+                remotePath = StringUtils.isEmpty(destRelativePath) ? sftpConfig.getHomePath()
+                        : createDirectories(destRelativePath, sftp);
+            } catch (SftpException e) {
+                logger.error("Could not create destination folder:" + destRelativePath + " to move files", e);
+                moveStatus.put(FileTransferResults.SUCCESS, new ArrayList <>());
+                moveStatus.put(FileTransferResults.FAILURE, new ArrayList <>(fileList));
+                return moveStatus;
+            }
+            return batchMover.move(fileList, remotePath, overwrite, sftp);
+        } finally {
+            connectionPool.release(connection);
+        }
+    }
 
-        // if path is empty then move files to home directory
+    private String createDirectory(String dirName, ChannelSftp sftp) throws SftpException {
+        String absoluteRemotePath = getDestinationFilePath(sftpConfig.getHomePath(), dirName);
+        checkAndCreateDirectory(sftp, absoluteRemotePath);
+        return absoluteRemotePath;
+    }
 
-        // use rename command to move each file to given directory
-        Session session = null;
-        Channel channel = null;
+    private void deleteFile(String filePath, ChannelSftp sftp) throws FileDeletionException {
+        OperationTimer timer = OperationTimer.start(sftpConfig.getTransferListener(), OperationType.DELETE, filePath);
         try {
-            session = getSession();
-            session.connect();
-            logger.debug(SESSION_CONNECT);
-            channel = session.openChannel(ConfigFields.SFTP_CHANNEL);
-            channel.connect();
-            logger.debug(CHANNEL_CONNECT);
-            ChannelSftp sftp = (ChannelSftp) channel;
-
-            // get absolute remotepath
-            String remotePath = getAbsoluteRemotePath(destRelativePath);
-            for (String file : fileList) {
+            logger.info("Trying to delete file:" + filePath + " from remote");
+            sftp.rm(filePath);
+            timer.completed(0);
+            logger.info("File:" + filePath + " deleted successfully from remote!");
+        } catch (SftpException e) {
+            timer.failed(e);
+            String errorMsg = "Error while deleting file:" + filePath + " from remote";
+            logger.error(errorMsg, e);
+            throw new FileDeletionException(errorMsg);
+        }
+
+    }
+
+    private Map <String, List <String>> uploadMultipleFilesInBatch(String destRelativePath,
+                                                                      List <String> localFileList)
+            throws SftpException, JSchException {
+
+        // create the destination directory once before spreading the files over channels
+        String remoteFolder;
+        PooledConnection connection = null;
+        try {
+            connection = connectionPool.borrow();
+            remoteFolder = createDirectories(destRelativePath, connection.getChannel());
+        } finally {
+            connectionPool.release(connection);
+        }
+
+        List <UploadItem> items = new ArrayList <>(localFileList.size());
+        for (String localFilePath : localFileList) {
+            items.add(new UploadItem(localFilePath, remoteFolder));
+        }
+        logger.info("Uploading files:" + localFileList + " to " + remoteFolder);
+        uploadInParallel(items);
+        return toUploadStatus(items);
+    }
+
+    private Map <String, Map <String, List <String>>> uploadMultipleFilesInBatch(
+            Map <String, List <String>> folderWiseFiles) throws JSchException {
+
+        Map <String, List <UploadItem>> folderWiseItems = new TreeMap <>();
+        List <UploadItem> allItems = new ArrayList <>();
+
+        // create all folders first over a single channel
+        PooledConnection connection = null;
+        try {
+            connection = connectionPool.borrow();
+            ChannelSftp sftp = connection.getChannel();
+            for (Map.Entry <String, List <String>> entry : folderWiseFiles.entrySet()) {
+                String folder = entry.getKey();
+                List <String> localFileList = entry.getValue();
+                if (localFileList.isEmpty()) {
+                    folderWiseItems.put(folder, null);
+                    continue;
+                }
+                List <UploadItem> items = new ArrayList <>(localFileList.size());
                 try {
-                    moveRemoteFile(file, remotePath, sftp);
-                } catch (MoveFileException e) {
-                    logger.error("Exception while moving remote file:" + file + " to" + remotePath, e);
-                    failedFiles.add(file);
+                    String remoteFolder = createDirectories(folder, sftp);
+                    for (String localFilePath : localFileList) {
+                        UploadItem item = new UploadItem(localFilePath, remoteFolder);
+                        items.add(item);
+                        allItems.add(item);
+                    }
+                } catch (SftpException e) {
+                    logger.error("Error while creating remote folder for relative path:" + folder, e);
+                    for (String localFilePath : localFileList) {
+                        UploadItem item = new UploadItem(localFilePath, null);
+                        item.failed = true;
+                        items.add(item);
+                    }
                 }
+                folderWiseItems.put(folder, items);
             }
+        } finally {
+            connectionPool.release(connection);
+        }
 
-            return failedFiles;
+        uploadInParallel(allItems);
 
-        } finally {
-            if (channel != null) {
-                channel.disconnect();
-            }
-            if (session != null) {
-                session.disconnect();
+        Map <String, Map <String, List <String>>> finalMap = new TreeMap <>();
+        for (Map.Entry <String, List <UploadItem>> entry : folderWiseItems.entrySet()) {
+            Map <String, List <String>> fileUploadStatus;
+            if (entry.getValue() == null) {
+                fileUploadStatus = new TreeMap <>();
+                fileUploadStatus.put(FileTransferResults.SUCCESS, null);
+                fileUploadStatus.put(FileTransferResults.FAILURE, null);
+            } else {
+                fileUploadStatus = toUploadStatus(entry.getValue());
             }
+            logger.info("Successfully uploaded files list for folder " + entry.getKey() + " is "
+                    + fileUploadStatus.get(FileTransferResults.SUCCESS));
+            logger.info("Failed files list for folder " + entry.getKey() + " is "
+                    + fileUploadStatus.get(FileTransferResults.FAILURE));
+            finalMap.put(entry.getKey(), fileUploadStatus);
         }
+        return finalMap;
     }
 
-    private void moveRemoteFile(String oldFilePath, String remotePath, ChannelSftp sftp) throws MoveFileException {
-        // first get file name from full path
-        Path path = Paths.get(oldFilePath);
+    /**
+     * Uploads the items over {@link SftpConfig#getParallelism()} channels, largest files first
+     * so that a big file picked up last does not keep a single channel busy after all others are done
+     */
+    private void uploadInParallel(List <UploadItem> items) throws JSchException {
+        if (items.isEmpty()) {
+            return;
+        }
+        List <UploadItem> orderedItems = new ArrayList <>(items);
+        orderedItems.sort(Comparator.comparingLong((UploadItem item) -> item.size).reversed());
+
+        int workers = Math.min(sftpConfig.getParallelism(), orderedItems.size());
+        logger.debug("Uploading " + orderedItems.size() + " files over " + workers + " channels");
+        TransferBatch <UploadItem> batch = new TransferBatch <>(connectionPool, transferExecutor, workers,
+                sftpConfig.getTransferQueueCapacity(), this::uploadItem, new BatchListener <UploadItem>() {
+            @Override
+            public void onSuccess(UploadItem item) {
+                logger.info("File:" + item.localFilePath + " was uploaded successfully to: " + item.remoteFolder);
+            }
 
-        String fileName = path.getFileName().toString();
+            @Override
+            public void onFailure(UploadItem item, Exception e) {
+                logger.error("Failed to upload file:" + item.localFilePath, e);
+                invalidateIfFolderMissing(e, item.remoteFolder);
+                item.failed = true;
+            }
+        }, null, sftpConfig.getRetryPolicy());
+        for (UploadItem item : orderedItems) {
+            batch.submit(item);
+        }
+        batch.await();
+        if (sftpConfig.isAtomicUpload()) {
+            commitInParallel(orderedItems);
+        }
+    }
 
-        // then add filename to remote path
-        String newFilePath = getDestinationFilePath(remotePath, fileName);
+    /**
+     * Renames the partial files of the uploaded items once the data of the whole batch is transferred,
+     * so that a rename does not hold up the next upload of its channel and the files appear together
+     */
+    private void commitInParallel(List <UploadItem> items) throws JSchException {
+        List <UploadItem> uploadedItems = new ArrayList <>(items.size());
+        for (UploadItem item : items) {
+            if (!item.failed) {
+                uploadedItems.add(item);
+            }
+        }
+        if (uploadedItems.isEmpty()) {
+            return;
+        }
+        TransferBatch <UploadItem> batch = new TransferBatch <>(connectionPool, transferExecutor,
+                Math.min(sftpConfig.getParallelism(), uploadedItems.size()), sftpConfig.getTransferQueueCapacity(),
+                this::commitItem, new BatchListener <UploadItem>() {
+            @Override
+            public void onSuccess(UploadItem item) {
+                logger.debug("Renamed the partial file of:" + item.localFilePath + " in: " + item.remoteFolder);
+            }
 
-        // then try renaming f
-        // ile trick
-        try {
-            sftp.rename(oldFilePath, newFilePath);
-            logger.info("Successfully moved file from " + oldFilePath + " to " + newFilePath);
-        } catch (SftpException e) {
-            String errorMsg = "Could not move file from " + oldFilePath + " to " + newFilePath;
-            logger.error(errorMsg, e);
-            throw new MoveFileException(errorMsg);
+            @Override
+            public void onFailure(UploadItem item, Exception e) {
+                logger.error("Failed to rename the partial file of:" + item.localFilePath, e);
+                item.failed = true;
+            }
+        }, null, sftpConfig.getRetryPolicy());
+        for (UploadItem item : uploadedItems) {
+            batch.submit(item);
         }
+        batch.await();
+    }
 
+    /**
+     * Uploads the file of the item, to its partial file when uploads are atomic, see {@link #commitItem}
+     */
+    private void uploadItem(UploadItem item, ChannelSftp sftp) throws SftpException, IOException {
+        item.startNanos = System.nanoTime();
+        try (InputStream inputStream = localFiles.newInputStream(Paths.get(item.localFilePath))) {
+            if (sftpConfig.isAtomicUpload()) {
+                item.checksum = putPartialFile(inputStream, getRemoteFilePath(item), sftp);
+            } else {
+                item.checksum = putFile(inputStream, getRemoteFilePath(item), sftp);
+            }
+        }
     }
 
-    private String createDirectory(String dirName, ChannelSftp sftp) throws SftpException {
-        String absoluteRemotePath = getDestinationFilePath(sftpConfig.getHomePath(), dirName);
-        checkAndCreateDirectory(sftp, dirName);
-        return absoluteRemotePath;
+    private void commitItem(UploadItem item, ChannelSftp sftp) throws SftpException {
+        SftpTransfers.commit(getRemoteFilePath(item), item.checksum, sftp, sftpConfig.getTransferListener(),
+                sftpConfig.getChecksumVerification());
     }
 
-    private List <String> deleteMultipleFiles(List <String> fileList, ChannelSftp sftp) {
+    private void uploadAndCommitItem(UploadItem item, ChannelSftp sftp) throws SftpException, IOException {
+        uploadItem(item, sftp);
+        if (sftpConfig.isAtomicUpload()) {
+            commitItem(item, sftp);
+        }
+    }
 
-        List <String> failedFiles = new ArrayList <>();
+    private void downloadRemoteFile(RemoteFile file, ChannelSftp sftp)
+            throws SftpException, IOException, JSchException {
+        file.startNanos = System.nanoTime();
+        file.checksum = downloadFile(file.localFolder.toString(), file.fileName, file.remoteFilePath, file.size,
+                sftp);
+    }
 
-        for (String filePath : fileList) {
+    /**
+     * @param e failure of the final attempt, null if the upload succeeded
+     */
+    private TransferResult toTransferResult(UploadItem item, Exception e) {
+        return TransferResult.builder().localPath(item.localFilePath)
+                .remotePath(item.remoteFolder == null ? null : getRemoteFilePath(item))
+                .status(e == null ? TransferStatus.SUCCESS : TransferStatus.FAILURE).bytes(e == null ? item.size : 0)
+                .durationNanos(System.nanoTime() - item.startNanos).error(e)
+                .checksum(e == null ? item.checksum : null)
+                .checksumAlgorithm(e == null ? getChecksumAlgorithm(item.checksum) : null).build();
+    }
 
-            try {
-                // check if file exists first
-                boolean fileExists = checkIfFileOrFolderExists(filePath, sftp);
+    /**
+     * @param e failure of the final attempt, null if the download succeeded
+     */
+    private TransferResult toTransferResult(RemoteFile file, Exception e) {
+        return TransferResult.builder().localPath(file.localFolder.resolve(file.fileName).toString())
+                .remotePath(file.remoteFilePath).status(e == null ? TransferStatus.SUCCESS : TransferStatus.FAILURE)
+                .bytes(e == null ? file.size : 0).durationNanos(System.nanoTime() - file.startNanos).error(e)
+                .checksum(e == null ? file.checksum : null)
+                .checksumAlgorithm(e == null ? getChecksumAlgorithm(file.checksum) : null).build();
+    }
 
-                // if not then add it to failed files list
-                // then delete file
-                if (fileExists) {
-                    failedFiles.add(filePath);
-                } else {
-                    deleteFile(filePath, sftp);
-                }
-            } catch (Exception e) {
-                logger.error("Exception while deleting file:" + filePath, e);
-                failedFiles.add(filePath);
-            }
+    /**
+     * @return algorithm of the checksum, null if there is none
+     */
+    private ChecksumAlgorithm getChecksumAlgorithm(String checksum) {
+        return checksum == null ? null : sftpConfig.getChecksumVerification().getAlgorithm();
+    }
 
-        }
-        return failedFiles;
+    private String getRemoteFilePath(UploadItem item) {
+        return getDestinationFilePath(item.remoteFolder, Paths.get(item.localFilePath).getFileName().toString());
     }
 
-    private void deleteFile(String filePath, ChannelSftp sftp) throws FileDeletionException {
-        try {
-            logger.info("Trying to delete file:" + filePath + " from remote");
-            sftp.rm(filePath);
-            logger.info("File:" + filePath + " deleted successfully from remote!");
-        } catch (SftpException e) {
-            String errorMsg = "Error while deleting file:" + filePath + " from remote";
-            logger.error(errorMsg, e);
-            throw new FileDeletionException(errorMsg);
+    /**
+     * @return SUCCESS and FAILURE lists in the order in which the files were given
+     */
+    private Map <String, List <String>> toUploadStatus(List <UploadItem> items) {
+        List <String> uploadedFiles = new ArrayList <>();
+        List <String> failedFiles = new ArrayList <>();
+        for (UploadItem item : items) {
+            if (item.failed) {
+                failedFiles.add(item.localFilePath);
+            } else {
+                uploadedFiles.add(item.localFilePath);
+            }
         }
-
+        Map <String, List <String>> fileUploadStatus = new TreeMap <>();
+        fileUploadStatus.put(FileTransferResults.SUCCESS, uploadedFiles);
+        fileUploadStatus.put(FileTransferResults.FAILURE, failedFiles);
+        return fileUploadStatus;
     }
 
-    private boolean checkIfFileOrFolderExists(String path, ChannelSftp sftp) {
-        boolean fileExists = false;
+    /**
+     * Walks the remote tree one folder at a time and hands every file to the workers as soon as
+     * its folder is listed, so transfers start before the rest of the tree is known
+     */
+    private Map <String, List <String>> downloadDirectoryTree(Path localRoot, String remoteRoot, ChannelSftp sftp)
+            throws JSchException, LsCommandException {
+
+        List <String> sucessFiles = Collections.synchronizedList(new ArrayList <>());
+        List <String> failedFiles = Collections.synchronizedList(new ArrayList <>());
+
+        TransferBatch <RemoteFile> batch = new TransferBatch <>(connectionPool, transferExecutor,
+                sftpConfig.getParallelism(), sftpConfig.getTransferQueueCapacity(), this::downloadRemoteFile,
+                new BatchListener <RemoteFile>() {
+                    @Override
+                    public void onSuccess(RemoteFile file) {
+                        sucessFiles.add(file.remoteFilePath);
+                    }
+
+                    @Override
+                    public void onFailure(RemoteFile file, Exception e) {
+                        logger.error("Error while downloading remote file" + file.remoteFilePath, e);
+                        failedFiles.add(file.remoteFilePath);
+                    }
+                }, sftp, sftpConfig.getRetryPolicy());
 
         try {
-            logger.info("Checking if path:" + path + " exists on remote.");
-            sftp.stat(path);
-        } catch (Exception e) {
-            logger.error("Path:" + path + " already exists");
-            fileExists = true;
+            Deque <String> pendingFolders = new ArrayDeque <>();
+            pendingFolders.add(remoteRoot);
+            while (!pendingFolders.isEmpty()) {
+                String remoteFolder = pendingFolders.poll();
+                Path localFolder = localRoot.resolve(remoteFolder.substring(remoteRoot.length())
+                        .replaceFirst("^" + Pattern.quote(SftpConstants.FILE_SEPARATOR), ""));
+
+                List <ChannelSftp.LsEntry> entries;
+                try {
+                    @SuppressWarnings("unchecked")
+                    Vector <ChannelSftp.LsEntry> listing = sftp.ls(remoteFolder);
+                    entries = listing;
+                } catch (SftpException e) {
+                    String errorMsg = "Exception while trying to list all files from directory:" + remoteFolder;
+                    logger.error(errorMsg, e);
+                    if (remoteFolder.equals(remoteRoot)) {
+                        throw new LsCommandException(errorMsg);
+                    }
+                    failedFiles.add(remoteFolder);
+                    continue;
+                }
+
+                // create the local folder once per level
+                try {
+                    Files.createDirectories(localFolder);
+                } catch (IOException e) {
+                    logger.error("Could not create local folder:" + localFolder, e);
+                    failedFiles.add(remoteFolder);
+                    continue;
+                }
+
+                for (ChannelSftp.LsEntry entry : entries) {
+                    String fileName = entry.getFilename();
+                    if (".".equals(fileName) || "..".equals(fileName)) {
+                        continue;
+                    }
+                    String remotePath = getDestinationFilePath(remoteFolder, fileName);
+                    if (entry.getAttrs().isDir()) {
+                        pendingFolders.add(remotePath);
+                    } else if (entry.getAttrs().isLink()) {
+                        logger.debug("Skipping symbolic link:" + remotePath);
+                    } else {
+                        batch.submit(new RemoteFile(remotePath, fileName, entry.getAttrs().getSize(), localFolder));
+                    }
+                }
+            }
+        } finally {
+            batch.await();
         }
 
-        return fileExists;
+        Map <String, List <String>> downloadStatus = new HashMap <>();
+        downloadStatus.put(FileTransferResults.SUCCESS, new ArrayList <>(sucessFiles));
+        downloadStatus.put(FileTransferResults.FAILURE, new ArrayList <>(failedFiles));
+        return downloadStatus;
     }
 
     /**
-     * @param sftp
-     * @param localFileList local files to be uploaded
-     * @param remoteFolder
-     * @return list of files which failed to be uploaded
+     * Creates each remote folder once while visiting it and uploads its files as they are visited
      */
-    private List <String> uploadMultipleFilesToFolder(ChannelSftp sftp, List <String> localFileList,
-                                                      String remoteFolder) {
+    private Map <String, List <String>> uploadDirectoryTree(Path localRoot, String remoteRoot, ChannelSftp sftp)
+            throws JSchException, IOException {
+
+        List <String> uploadedFiles = Collections.synchronizedList(new ArrayList <>());
+        List <String> failedFiles = Collections.synchronizedList(new ArrayList <>());
+
+        TransferBatch <UploadItem> batch = new TransferBatch <>(connectionPool, transferExecutor,
+                sftpConfig.getParallelism(), sftpConfig.getTransferQueueCapacity(), this::uploadAndCommitItem,
+                new BatchListener <UploadItem>() {
+                    @Override
+                    public void onSuccess(UploadItem item) {
+                        uploadedFiles.add(item.localFilePath);
+                    }
 
-        // add logic to upload files to SFTP HOME FOLDER if it is null
+                    @Override
+                    public void onFailure(UploadItem item, Exception e) {
+                        logger.error("Failed to upload file:" + item.localFilePath, e);
+                        invalidateIfFolderMissing(e, item.remoteFolder);
+                        failedFiles.add(item.localFilePath);
+                    }
+                }, sftp, sftpConfig.getRetryPolicy());
 
-        List <String> failedFiles = new ArrayList <>();
-        for (String localFilePath : localFileList) {
-            try {
-                logger.info("Trying to upload file with local path:" + localFilePath);
-                Path filePath = Paths.get(localFilePath);
-                String fileName = filePath.getFileName().toString();
-                try (InputStream inputStream = new FileInputStream(localFilePath)) {
-                    sftp.put(inputStream, fileName);
+        try {
+            Files.walkFileTree(localRoot, new SimpleFileVisitor <Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    if (!dir.equals(localRoot)) {
+                        String remoteFolder = toRemotePath(remoteRoot, localRoot.relativize(dir));
+                        try {
+                            checkAndCreateDirectory(sftp, remoteFolder);
+                        } catch (SftpException e) {
+                            logger.error("Could not create remote folder:" + remoteFolder, e);
+                            failedFiles.add(dir.toString());
+                            return FileVisitResult.SKIP_SUBTREE;
+                        }
+                    }
+                    return FileVisitResult.CONTINUE;
                 }
-                logger.info("File:" + fileName + " was uploaded successfully to: " + remoteFolder);
-            } catch (Exception e) {
-                logger.error("Failed to upload file:" + localFilePath);
-                logger.error(e);
-                failedFiles.add(localFilePath);
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    if (attrs.isRegularFile()) {
+                        String remoteFolder = toRemotePath(remoteRoot, localRoot.relativize(file.getParent()));
+                        try {
+                            batch.submit(new UploadItem(file.toString(), remoteFolder));
+                        } catch (JSchException e) {
+                            throw new IOException(e);
+                        }
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    logger.error("Could not read local file:" + file, e);
+                    failedFiles.add(file.toString());
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            if (e.getCause() instanceof JSchException) {
+                throw (JSchException) e.getCause();
             }
+            throw e;
+        } finally {
+            batch.await();
         }
-        return failedFiles;
+
+        Map <String, List <String>> fileUploadStatus = new TreeMap <>();
+        fileUploadStatus.put(FileTransferResults.SUCCESS, new ArrayList <>(uploadedFiles));
+        fileUploadStatus.put(FileTransferResults.FAILURE, new ArrayList <>(failedFiles));
+        return fileUploadStatus;
+    }
+
+    /**
+     * @return remote path of the given local relative path, which may use the local os file separator
+     */
+    private String toRemotePath(String remoteRoot, Path relativePath) {
+        StringBuilder remotePath = new StringBuilder(remoteRoot);
+        for (Path name : relativePath) {
+            if (!name.toString().isEmpty()) {
+                remotePath.append(SftpConstants.FILE_SEPARATOR).append(name);
+            }
+        }
+        return remotePath.toString();
     }
 
     private String createDirectories(String destRelativePath, ChannelSftp sftp) throws SftpException {
+        // nothing to do if the terminal directory is already known to exist
+        String absoluteRemotePath = getAbsoluteRemotePath(destRelativePath);
+        if (connectionPool.getDirectoryCache().contains(absoluteRemotePath)) {
+            return absoluteRemotePath;
+        }
+
         // get list of folders which need to be created at remote
         String[] folders = destRelativePath.split(Pattern.quote(File.separator));
         logger.debug("Folders list is:" + folders);
 
         StringBuilder remoteRelativePath = new StringBuilder();
-        // create directories if not created already
-        for (String folder : folders) {
-            remoteRelativePath.append(SftpConstants.FILE_SEPARATOR).append(folder);
-            checkAndCreateDirectory(sftp, sftpConfig.getHomePath() + remoteRelativePath.toString());
+        // create directories if not created already, the terminal one was just looked up
+        for (int i = 0; i < folders.length; i++) {
+            remoteRelativePath.append(SftpConstants.FILE_SEPARATOR).append(folders[i]);
+            checkAndCreateDirectory(sftp, sftpConfig.getHomePath() + remoteRelativePath.toString(),
+                    i < folders.length - 1);
         }
         return sftpConfig.getHomePath() + remoteRelativePath.toString();
     }
 
+    /**
+     * @param absoluteFilePath absolute remote path of a file below the home directory
+     * @return the absolute remote folder of the file, created along with its missing parents
+     */
+    private String createParentDirectories(String absoluteFilePath, ChannelSftp sftp) throws SftpException {
+        String remoteFolder = absoluteFilePath.substring(0, absoluteFilePath.lastIndexOf(SftpConstants.FILE_SEPARATOR));
+        if (connectionPool.getDirectoryCache().contains(remoteFolder)) {
+            return remoteFolder;
+        }
+        StringBuilder path = new StringBuilder(sftpConfig.getHomePath());
+        String relativeFolder = remoteFolder.substring(sftpConfig.getHomePath().length());
+        String[] folders = StringUtils.split(relativeFolder, SftpConstants.FILE_SEPARATOR);
+        for (int i = 0; i < folders.length; i++) {
+            path.append(SftpConstants.FILE_SEPARATOR).append(folders[i]);
+            // the terminal folder was just looked up
+            checkAndCreateDirectory(sftp, path.toString(), i < folders.length - 1);
+        }
+        return remoteFolder;
+    }
+
     private void checkAndCreateDirectory(ChannelSftp sftp, String path) throws SftpException {
+        checkAndCreateDirectory(sftp, path, true);
+    }
+
+    /**
+     * @param lookup false if the caller already missed the path in the directory cache, so that
+     *               the miss is not counted twice
+     */
+    private void checkAndCreateDirectory(ChannelSftp sftp, String path, boolean lookup) throws SftpException {
+        RemoteDirectoryCache directoryCache = connectionPool.getDirectoryCache();
+        if (lookup && directoryCache.contains(path)) {
+            return;
+        }
         try {
             logger.info("Checking if path:" + path + " exists on remote.");
             sftp.stat(path);
         } catch (Exception e) {
             logger.info("Trying to create directory for path:" + path);
-            sftp.mkdir(path);
+            OperationTimer timer = OperationTimer.start(sftpConfig.getTransferListener(), OperationType.MKDIR, path);
+            try {
+                sftp.mkdir(path);
+                timer.completed(0);
+            } catch (SftpException mkdirException) {
+                timer.failed(mkdirException);
+                // a parent assumed to exist may have been removed in the meantime
+                directoryCache.invalidate(path.substring(0, Math.max(0, path.lastIndexOf(SftpConstants.FILE_SEPARATOR))));
+                throw mkdirException;
+            }
             logger.info("Created path:" + path + "successfully");
         }
+        directoryCache.add(path);
     }
 
-    private Map <String, List <String>> downloadAllFiles(String sourcePath, String destRelativePath, ChannelSftp sftp)
-            throws ChangeDirectoryException, LsCommandException {
+    /**
+     * Drops the remote folder from the directory cache when the failure says it does not exist
+     */
+    private void invalidateIfFolderMissing(Exception e, String remoteFolder) {
+        if (e instanceof SftpException && ((SftpException) e).id == ChannelSftp.SSH_FX_NO_SUCH_FILE
+                && remoteFolder != null) {
+            connectionPool.getDirectoryCache().invalidate(remoteFolder);
+        }
+    }
 
-        String remotePath = null;
+    /**
+     * @return the absolute remote path of the directory to download from
+     */
+    private String changeToDownloadDirectory(String destRelativePath, ChannelSftp sftp)
+            throws ChangeDirectoryException {
         // if destination path is null then that means we need to download all files
         // from SFTP HOME
         if (StringUtils.isEmpty(destRelativePath)) {
             changeToHomeDirectory(sftp);
-            remotePath = sftpConfig.getHomePath();
+            return sftpConfig.getHomePath();
         } else {
             // change to the given directory
-            remotePath = getAbsoluteRemotePath(destRelativePath);
+            String remotePath = getAbsoluteRemotePath(destRelativePath);
             changeDirectory(sftp, remotePath);
+            return remotePath;
         }
+    }
 
-        // now get all files by ls command ****NOTE USING *.* TO ONLY GET FILES
-        // may provide another method in future to download all files within subfolders
-        // as well
-        try {
-            @SuppressWarnings("unchecked")
-            Vector <ChannelSftp.LsEntry> fileList = sftp.ls("*.*");
-            List <String> sucessFiles = new ArrayList <>();
-            List <String> failedFiles = new ArrayList <>();
-
-            if (fileList.isEmpty()) {
-                logger.warn("No files found to download on remotePath:" + remotePath);
+    /**
+     * @param size size of the remote file as per listing, decides whether to download in segments
+     */
+    /**
+     * @return hex checksum of the downloaded bytes, null if verification is disabled or the file was downloaded
+     * in segments
+     */
+    private String downloadFile(String sourcePath, String fileName, String remoteFilePath, long size,
+                                ChannelSftp sftp) throws SftpException, IOException, JSchException {
+        Path localFilePath = Paths.get(sourcePath, fileName);
+        logger.info("Starting download of remote file:" + fileName + " to localPath:" + localFilePath);
+        String checksum = null;
+        if (sftpConfig.getParallelism() > 1 && size >= sftpConfig.getSegmentedDownloadThreshold()) {
+            OperationTimer timer = OperationTimer.start(sftpConfig.getTransferListener(), OperationType.DOWNLOAD,
+                    remoteFilePath);
+            try {
+                segmentedDownloader.download(remoteFilePath, localFilePath, sftp);
+                timer.completed(size);
+            } catch (SftpException | IOException | JSchException | RuntimeException e) {
+                timer.failed(e);
+                throw e;
             }
-
-            for (ChannelSftp.LsEntry file : fileList) {
-                String fileName = file.getFilename();
-                if (!StringUtils.isEmpty(fileName)) {
-                    // ********* ALSO PROVIDE ANOTHER ARGUEMENT SAY OVERRITE FLAG
-                    // IF THAT IS TRUE THEN PROCEED TO BELOW OPERATION ELSE ADD THE FILE TO FAILED
-                    // LIST
-                    downloadAllFiles(sourcePath, remotePath, sftp, sucessFiles, failedFiles, fileName);
-                }
+        } else {
+            try (OutputStream outputStream = localFiles.newOutputStream(localFilePath)) {
+                checksum = getFile(remoteFilePath, outputStream, sftp);
             }
+        }
+        logger.info("Downloaded remote file:" + fileName + " successfully to localPath:" + localFilePath);
+        return checksum;
+    }
 
-            Map <String, List <String>> downloadStatus = new HashMap <>();
-            downloadStatus.put(FileTransferResults.SUCCESS, sucessFiles);
-            downloadStatus.put(FileTransferResults.FAILURE, failedFiles);
-            return downloadStatus;
-
-        } catch (SftpException e) {
-            String errorMsg = "Exception while trying to list all files from directory:" + remotePath;
-            logger.error(errorMsg);
-            logger.error(e);
-            throw new LsCommandException(errorMsg);
+    /**
+     * Uploads under the remote name, or under the partial name followed by the rename when uploads are atomic
+     *
+     * @return hex checksum of the uploaded bytes, null if verification is disabled
+     */
+    private String putFile(InputStream inputStream, String remoteFilePath, ChannelSftp sftp) throws SftpException {
+        if (sftpConfig.isAtomicUpload()) {
+            String checksum = putPartialFile(inputStream, remoteFilePath, sftp);
+            SftpTransfers.commit(remoteFilePath, checksum, sftp, sftpConfig.getTransferListener(),
+                    sftpConfig.getChecksumVerification());
+            return checksum;
         }
+        return SftpTransfers.put(inputStream, remoteFilePath, sftp, sftpConfig.getTransferListener(),
+                sftpConfig.getChecksumVerification());
     }
 
-    private void downloadAllFiles(String sourcePath, String remotePath, ChannelSftp sftp, List <String> sucessFiles,
-                                  List <String> failedFiles, String fileName) {
+    /**
+     * @return hex checksum of the partial file, null if verification is disabled
+     */
+    private String putPartialFile(InputStream inputStream, String remoteFilePath, ChannelSftp sftp)
+            throws SftpException {
         try {
-            String remoteFilePath = remotePath + SftpConstants.FILE_SEPARATOR + fileName;
-            downloadFile(sourcePath, fileName, remoteFilePath, sftp);
-            sucessFiles.add(remoteFilePath);
-        } catch (Exception e) {
-            logger.error("Error while downloading remote file" + fileName);
-            logger.error(e);
-            failedFiles.add(fileName);
+            return SftpTransfers.putPartial(inputStream, remoteFilePath, sftp, sftpConfig.getTransferListener(),
+                    sftpConfig.getChecksumVerification());
+        } catch (SftpException | RuntimeException e) {
+            SftpTransfers.discardPartial(remoteFilePath, sftp);
+            throw e;
         }
     }
 
-    private void downloadFile(String sourcePath, String fileName, String remoteFilePath, ChannelSftp sftp)
-            throws SftpException, IOException {
-        Path localFilePath = Paths.get(sourcePath, fileName);
-        logger.info("Starting download of remote file:" + fileName + " to localPath:" + localFilePath);
-        sftp.get(remoteFilePath, Files.newOutputStream(localFilePath));
-        logger.info("Downloaded remote file:" + fileName + " successfully to localPath:" + localFilePath);
+    /**
+     * @return hex checksum of the downloaded bytes, null if verification is disabled
+     */
+    private String getFile(String remoteFilePath, OutputStream outputStream, ChannelSftp sftp) throws SftpException {
+        return SftpTransfers.get(remoteFilePath, outputStream, sftp, sftpConfig.getTransferListener(),
+                sftpConfig.getChecksumVerification());
     }
 
     /**
@@ -686,6 +1419,15 @@ public class SftpServiceImpl implements SftpService {
         return sftpConfig.getHomePath() + remoteRelativePath.toString();
     }
 
+    /**
+     * @param remoteFilePath remote path relative to home directory which uses the sftp file separator
+     * @return absolute remote path of the file
+     */
+    private String getAbsoluteRemoteFilePath(String remoteFilePath) {
+        return getDestinationFilePath(sftpConfig.getHomePath(),
+                StringUtils.removeStart(remoteFilePath, SftpConstants.FILE_SEPARATOR));
+    }
+
     private void changeDirectory(ChannelSftp sftp, String remoteAbsolutePath) throws ChangeDirectoryException {
         try {
             sftp.cd(remoteAbsolutePath);
@@ -708,24 +1450,68 @@ public class SftpServiceImpl implements SftpService {
         }
     }
 
-    private Session getSession() throws JSchException {
-        JSch jSch = new JSch();
-        Session session = jSch.getSession(sftpConfig.getUserName(), sftpConfig.getHost(), sftpConfig.getPort());
-        session.setPassword(sftpConfig.getPassword());
-        session.setConfig(ConfigFields.STRICT_HOSTKEY_CHECKING, ConfigValues.DISABLE_STRICT_HOSTKEY_CHECKING);
-        return session;
-    }
-
     private String getDestinationFilePath(String destinationPath, String fileName) {
         return destinationPath + SftpConstants.FILE_SEPARATOR + fileName;
     }
 
-    /*
-     * Session session = null; Channel channel = null; try { session = getSession();
-     * session.connect(); logger.debug(SESSION_CONNECT); channel =
-     * session.openChannel(ConfigFields.SFTP_CHANNEL); channel.connect();
-     * logger.debug(CHANNEL_CONNECT); ChannelSftp sftp = (ChannelSftp) channel; }
-     * finally { if (channel != null) { channel.disconnect(); } if (session != null)
-     * { session.disconnect(); } }
+    /**
+     * Local file to be uploaded to a remote folder by a parallel batch
+     */
+    private static class UploadItem {
+
+        private final String localFilePath;
+
+        private final String remoteFolder;
+
+        private final long size;
+
+        private volatile boolean failed;
+
+        /**
+         * checksum of the uploaded bytes, for an atomic upload written on rename
+         */
+        private volatile String checksum;
+
+        /**
+         * start of the latest attempt
+         */
+        private volatile long startNanos;
+
+        private UploadItem(String localFilePath, String remoteFolder) {
+            this.localFilePath = localFilePath;
+            this.remoteFolder = remoteFolder;
+            this.size = new File(localFilePath).length();
+        }
+    }
+
+    /**
+     * Remote file discovered while walking a remote tree
      */
+    private static class RemoteFile {
+
+        private final String remoteFilePath;
+
+        private final String fileName;
+
+        private final long size;
+
+        private final Path localFolder;
+
+        /**
+         * start of the latest attempt
+         */
+        private volatile long startNanos;
+
+        /**
+         * checksum of the downloaded bytes
+         */
+        private volatile String checksum;
+
+        private RemoteFile(String remoteFilePath, String fileName, long size, Path localFolder) {
+            this.remoteFilePath = remoteFilePath;
+            this.fileName = fileName;
+            this.size = size;
+            this.localFolder = localFolder;
+        }
+    }
 }
@@ -0,0 +1,96 @@
+package com.aceprogrammer.sftputil.transfer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket capping the bytes per second of all transfers sharing it. The bucket holds at
+ * most burstBytes, so an idle limiter lets a short burst through at full speed.
+ * <p>
+ * Tokens are reserved before waiting, hence a transfer which overdraws the bucket makes the
+ * transfers after it wait in turn and the rate holds under any number of concurrent transfers.
+ * A limiter may have a parent, e.g. a per host limiter below a global one, and a transfer
+ * waits for both.
+ *
+ * @author Mohammed Salman Shaikh
+ */
+public class BandwidthLimiter {
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * longest single sleep, so that a cancelled transfer stops waiting soon
+     */
+    private static final long MAX_SLEEP_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final long bytesPerSecond;
+
+    private final long burstBytes;
+
+    private final BandwidthLimiter parent;
+
+    private long availableBytes;
+
+    private long refilledAtNanos;
+
+    /**
+     * @param bytesPerSecond sustained rate, also allowed as burst
+     */
+    public BandwidthLimiter(long bytesPerSecond) {
+        this(bytesPerSecond, bytesPerSecond, null);
+    }
+
+    /**
+     * @param bytesPerSecond sustained rate
+     * @param burstBytes     bytes which may pass at once after the limiter was idle
+     * @param parent         limiter to be respected as well, null if none
+     */
+    public BandwidthLimiter(long bytesPerSecond, long burstBytes, BandwidthLimiter parent) {
+        if (bytesPerSecond < 1 || burstBytes < 1) {
+            throw new IllegalArgumentException("Rate and burst must be at least 1 byte");
+        }
+        this.bytesPerSecond = bytesPerSecond;
+        this.burstBytes = burstBytes;
+        this.parent = parent;
+        this.availableBytes = burstBytes;
+        this.refilledAtNanos = System.nanoTime();
+    }
+
+    /**
+     * Waits until the bytes may pass. Returns early without error if the transfers of the current
+     * thread are cancelled or the thread is interrupted, whose flag is kept set.
+     */
+    public void acquire(long bytes) {
+        long waitNanos = reserve(bytes);
+        long deadline = System.nanoTime() + waitNanos;
+        while (waitNanos > 0 && !TransferCancellation.isCancelled()) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(Math.min(waitNanos, MAX_SLEEP_NANOS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            waitNanos = deadline - System.nanoTime();
+        }
+        if (parent != null) {
+            parent.acquire(bytes);
+        }
+    }
+
+    public long getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    /**
+     * @return nanos to wait until the reserved bytes are covered by the rate
+     */
+    private synchronized long reserve(long bytes) {
+        long now = System.nanoTime();
+        long refill = (now - refilledAtNanos) * bytesPerSecond / NANOS_PER_SECOND;
+        if (refill > 0) {
+            availableBytes = Math.min(burstBytes, availableBytes + refill);
+            refilledAtNanos = now;
+        }
+        availableBytes -= bytes;
+        return availableBytes >= 0 ? 0 : -availableBytes * NANOS_PER_SECOND / bytesPerSecond;
+    }
+}
@@ -0,0 +1,223 @@
+package com.aceprogrammer.sftputil.transfer;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.aceprogrammer.sftputil.config.SftpConfig;
+import com.aceprogrammer.sftputil.constants.FileTransferResults;
+import com.aceprogrammer.sftputil.constants.SftpConstants;
+import com.aceprogrammer.sftputil.metrics.OperationTimer;
+import com.aceprogrammer.sftputil.metrics.OperationType;
+import com.aceprogrammer.sftputil.pool.SftpConnectionPool;
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.SftpException;
+
+/**
+ * Deletes many remote files with as few round trips as possible.
+ * <p>
+ * The files are grouped by their folder and every folder is listed once to find out which files
+ * exist, instead of a stat per file. The existing files are then removed over
+ * {@link SftpConfig#getParallelism()} channels. Both the listings and the removals are spread
+ * over the channels.
+ *
+ * @author Mohammed Salman Shaikh
+ */
+public class BatchDeleter {
+
+    private final Log logger = LogFactory.getLog(this.getClass());
+
+    private final SftpConnectionPool connectionPool;
+
+    private final ExecutorService executor;
+
+    private final SftpConfig sftpConfig;
+
+    public BatchDeleter(SftpConnectionPool connectionPool, ExecutorService executor, SftpConfig sftpConfig) {
+        this.connectionPool = connectionPool;
+        this.executor = executor;
+        this.sftpConfig = sftpConfig;
+    }
+
+    /**
+     * @param filePaths absolute remote paths of the files, duplicates are deleted once
+     * @param sftp      channel of the calling thread, which lists and deletes as well
+     * @return SUCCESS -> deleted, MISSING -> not present and FAILURE -> not deleted file paths,
+     * each in the order of the given list
+     */
+    public Map <String, List <String>> delete(List <String> filePaths, ChannelSftp sftp) throws JSchException {
+        Map <String, DeleteItem> items = new LinkedHashMap <>();
+        Map <String, Folder> folders = new LinkedHashMap <>();
+        for (String filePath : filePaths) {
+            if (filePath == null || items.containsKey(filePath)) {
+                continue;
+            }
+            int separator = filePath.lastIndexOf(SftpConstants.FILE_SEPARATOR);
+            String folderPath = separator < 0 ? "." : separator == 0 ? SftpConstants.FILE_SEPARATOR
+                    : filePath.substring(0, separator);
+            DeleteItem item = new DeleteItem(filePath, filePath.substring(separator + 1));
+            items.put(filePath, item);
+            folders.computeIfAbsent(folderPath, Folder::new).items.add(item);
+        }
+
+        TransferBatch <Folder> listings = new TransferBatch <>(connectionPool, executor,
+                Math.min(sftpConfig.getParallelism(), Math.max(1, folders.size())),
+                sftpConfig.getTransferQueueCapacity(), this::list, new BatchListener <Folder>() {
+            @Override
+            public void onSuccess(Folder folder) {
+                logger.debug("Listed folder:" + folder.path + " for deletion");
+            }
+
+            @Override
+            public void onFailure(Folder folder, Exception e) {
+                logger.error("Could not list folder:" + folder.path + " for deletion", e);
+                for (DeleteItem item : folder.items) {
+                    item.status = isNoSuchFile(e) ? FileTransferResults.MISSING : FileTransferResults.FAILURE;
+                }
+            }
+        }, sftp, sftpConfig.getRetryPolicy());
+        for (Folder folder : folders.values()) {
+            listings.submit(folder);
+        }
+        listings.await();
+
+        List <DeleteItem> existing = new ArrayList <>();
+        for (DeleteItem item : items.values()) {
+            if (item.status == null) {
+                existing.add(item);
+            }
+        }
+        logger.info("Deleting " + existing.size() + " of " + items.size() + " files in " + folders.size() + " folders");
+        if (!existing.isEmpty()) {
+            TransferBatch <DeleteItem> removals = new TransferBatch <>(connectionPool, executor,
+                    Math.min(sftpConfig.getParallelism(), existing.size()), sftpConfig.getTransferQueueCapacity(),
+                    this::remove, new BatchListener <DeleteItem>() {
+                @Override
+                public void onSuccess(DeleteItem item) {
+                    item.status = FileTransferResults.SUCCESS;
+                    logger.info("File:" + item.path + " deleted successfully from remote!");
+                }
+
+                @Override
+                public void onFailure(DeleteItem item, Exception e) {
+                    // removed by someone else since the listing
+                    if (isNoSuchFile(e)) {
+                        item.status = FileTransferResults.MISSING;
+                    } else {
+                        logger.error("Error while deleting file:" + item.path + " from remote", e);
+                        item.status = FileTransferResults.FAILURE;
+                    }
+                }
+            }, sftp, sftpConfig.getRetryPolicy());
+            for (DeleteItem item : existing) {
+                removals.submit(item);
+            }
+            removals.await();
+        }
+        return toDeleteStatus(items.values());
+    }
+
+    /**
+     * Marks the files of the folder which are not present, directories are marked failed since rm cannot remove them
+     */
+    private void list(Folder folder, ChannelSftp sftp) throws SftpException {
+        Set <String> wanted = new HashSet <>();
+        for (DeleteItem item : folder.items) {
+            wanted.add(item.fileName);
+        }
+        Set <String> files = new HashSet <>();
+        Set <String> directories = new HashSet <>();
+        sftp.ls(folder.path, entry -> {
+            // only the names asked for are kept, folders may hold far more files than are deleted
+            if (wanted.contains(entry.getFilename())) {
+                (entry.getAttrs().isDir() ? directories : files).add(entry.getFilename());
+            }
+            return ChannelSftp.LsEntrySelector.CONTINUE;
+        });
+        for (DeleteItem item : folder.items) {
+            if (directories.contains(item.fileName)) {
+                logger.error("Path:" + item.path + " is a directory and was not deleted");
+                item.status = FileTransferResults.FAILURE;
+            } else if (!files.contains(item.fileName)) {
+                logger.warn("File:" + item.path + " does not exist on remote");
+                item.status = FileTransferResults.MISSING;
+            }
+        }
+    }
+
+    private void remove(DeleteItem item, ChannelSftp sftp) throws SftpException {
+        TransferCancellation.throwIfCancelled("deletion of " + item.path);
+        OperationTimer timer = OperationTimer.start(sftpConfig.getTransferListener(), OperationType.DELETE, item.path);
+        try {
+            sftp.rm(item.path);
+            timer.completed(0);
+        } catch (SftpException | RuntimeException e) {
+            timer.failed(e);
+            throw e;
+        }
+    }
+
+    private boolean isNoSuchFile(Exception e) {
+        return e instanceof SftpException && ((SftpException) e).id == ChannelSftp.SSH_FX_NO_SUCH_FILE;
+    }
+
+    private Map <String, List <String>> toDeleteStatus(Iterable <DeleteItem> items) {
+        List <String> deletedFiles = new ArrayList <>();
+        List <String> missingFiles = new ArrayList <>();
+        List <String> failedFiles = new ArrayList <>();
+        for (DeleteItem item : items) {
+            if (FileTransferResults.SUCCESS.equals(item.status)) {
+                deletedFiles.add(item.path);
+            } else if (FileTransferResults.MISSING.equals(item.status)) {
+                missingFiles.add(item.path);
+            } else {
+                failedFiles.add(item.path);
+            }
+        }
+        Map <String, List <String>> deleteStatus = new TreeMap <>();
+        deleteStatus.put(FileTransferResults.SUCCESS, deletedFiles);
+        deleteStatus.put(FileTransferResults.MISSING, missingFiles);
+        deleteStatus.put(FileTransferResults.FAILURE, failedFiles);
+        return deleteStatus;
+    }
+
+    /**
+     * Remote folder listed once for all of its files to be deleted
+     */
+    private static class Folder {
+
+        private final String path;
+
+        private final List <DeleteItem> items = new ArrayList <>();
+
+        private Folder(String path) {
+            this.path = path;
+        }
+    }
+
+    private static class DeleteItem {
+
+        private final String path;
+
+        private final String fileName;
+
+        /**
+         * one of {@link FileTransferResults}, null while the file is known to exist but not deleted yet
+         */
+        private volatile String status;
+
+        private DeleteItem(String path, String fileName) {
+            this.path = path;
+            this.fileName = fileName;
+        }
+    }
+}
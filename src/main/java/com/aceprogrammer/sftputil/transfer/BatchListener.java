@@ -0,0 +1,15 @@
+package com.aceprogrammer.sftputil.transfer;
+
+/**
+ * Receives the outcome of every item of a {@link TransferBatch}.
+ * Methods are called concurrently from all worker threads of the batch.
+ *
+ * @param <T> type of the item
+ * @author Mohammed Salman Shaikh
+ */
+public interface BatchListener<T> {
+
+    void onSuccess(T item);
+
+    void onFailure(T item, Exception e);
+}
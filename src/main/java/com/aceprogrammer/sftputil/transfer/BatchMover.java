@@ -0,0 +1,184 @@
+package com.aceprogrammer.sftputil.transfer;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.aceprogrammer.sftputil.config.SftpConfig;
+import com.aceprogrammer.sftputil.constants.FileTransferResults;
+import com.aceprogrammer.sftputil.constants.SftpConstants;
+import com.aceprogrammer.sftputil.metrics.OperationTimer;
+import com.aceprogrammer.sftputil.metrics.OperationType;
+import com.aceprogrammer.sftputil.pool.SftpConnectionPool;
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.SftpException;
+
+/**
+ * Moves many remote files into a single remote folder by renaming them over
+ * {@link SftpConfig#getParallelism()} channels.
+ * <p>
+ * Jsch renames with the posix-rename@openssh.com extension whenever the server supports it, which
+ * atomically replaces an existing target, while a plain sftp rename fails on an existing target.
+ * Hence the existing targets are only looked up, with a single listing of the folder, when they must
+ * not be replaced on such a server. Without the extension an existing target which is to be replaced
+ * is removed and the rename retried, which is not atomic.
+ *
+ * @author Mohammed Salman Shaikh
+ */
+public class BatchMover {
+
+    public static final String POSIX_RENAME_EXTENSION = "posix-rename@openssh.com";
+
+    private final Log logger = LogFactory.getLog(this.getClass());
+
+    private final SftpConnectionPool connectionPool;
+
+    private final ExecutorService executor;
+
+    private final SftpConfig sftpConfig;
+
+    public BatchMover(SftpConnectionPool connectionPool, ExecutorService executor, SftpConfig sftpConfig) {
+        this.connectionPool = connectionPool;
+        this.executor = executor;
+        this.sftpConfig = sftpConfig;
+    }
+
+    /**
+     * @param filePaths    absolute remote paths of the files to be moved
+     * @param remoteFolder absolute path of the existing destination folder
+     * @param overwrite    true to replace files of the same name in the destination folder
+     * @param sftp         channel of the calling thread, which renames files as well
+     * @return SUCCESS -> moved and FAILURE -> not moved file paths, each in the order of the given list
+     */
+    public Map <String, List <String>> move(List <String> filePaths, String remoteFolder, boolean overwrite,
+                                            ChannelSftp sftp) throws JSchException {
+        boolean posixRename = "1".equals(sftp.getExtension(POSIX_RENAME_EXTENSION));
+        Map <String, MoveItem> items = new LinkedHashMap <>();
+        Set <String> targets = new HashSet <>();
+        for (String filePath : filePaths) {
+            if (filePath == null || items.containsKey(filePath)) {
+                continue;
+            }
+            String fileName = filePath.substring(filePath.lastIndexOf(SftpConstants.FILE_SEPARATOR) + 1);
+            MoveItem item = new MoveItem(filePath, remoteFolder + SftpConstants.FILE_SEPARATOR + fileName);
+            items.put(filePath, item);
+            if (!targets.add(fileName) && !overwrite) {
+                logger.error("Could not move file " + filePath + " since another file is moved to " + item.target);
+                item.failed = true;
+            }
+        }
+        if (!overwrite && posixRename) {
+            markExistingTargets(items.values(), targets, remoteFolder, sftp);
+        }
+
+        List <MoveItem> pending = new ArrayList <>();
+        for (MoveItem item : items.values()) {
+            if (!item.failed) {
+                pending.add(item);
+            }
+        }
+        logger.info("Moving " + pending.size() + " files to " + remoteFolder + (posixRename ? " with " : " without ")
+                + POSIX_RENAME_EXTENSION);
+        if (!pending.isEmpty()) {
+            TransferBatch <MoveItem> batch = new TransferBatch <>(connectionPool, executor,
+                    Math.min(sftpConfig.getParallelism(), pending.size()), sftpConfig.getTransferQueueCapacity(),
+                    (item, channel) -> rename(item, overwrite && !posixRename, channel),
+                    new BatchListener <MoveItem>() {
+                        @Override
+                        public void onSuccess(MoveItem item) {
+                            logger.info("Successfully moved file from " + item.source + " to " + item.target);
+                        }
+
+                        @Override
+                        public void onFailure(MoveItem item, Exception e) {
+                            logger.error("Could not move file from " + item.source + " to " + item.target, e);
+                            item.failed = true;
+                        }
+                    }, sftp, sftpConfig.getRetryPolicy());
+            for (MoveItem item : pending) {
+                batch.submit(item);
+            }
+            batch.await();
+        }
+        return toMoveStatus(items.values());
+    }
+
+    /**
+     * Fails the files whose target is present, since a posix rename would silently replace it
+     */
+    private void markExistingTargets(Iterable <MoveItem> items, Set <String> targets, String remoteFolder,
+                                     ChannelSftp sftp) {
+        Set <String> existing = new HashSet <>();
+        try {
+            sftp.ls(remoteFolder, entry -> {
+                if (targets.contains(entry.getFilename())) {
+                    existing.add(entry.getFilename());
+                }
+                return ChannelSftp.LsEntrySelector.CONTINUE;
+            });
+        } catch (SftpException e) {
+            logger.error("Could not list destination folder:" + remoteFolder, e);
+            for (MoveItem item : items) {
+                item.failed = true;
+            }
+            return;
+        }
+        for (MoveItem item : items) {
+            String fileName = item.target.substring(remoteFolder.length() + 1);
+            if (existing.contains(fileName)) {
+                logger.error("Could not move file " + item.source + " since " + item.target + " already exists");
+                item.failed = true;
+            }
+        }
+    }
+
+    /**
+     * @param replace true to remove an existing target and retry when the plain rename fails
+     */
+    private void rename(MoveItem item, boolean replace, ChannelSftp sftp) throws SftpException {
+        TransferCancellation.throwIfCancelled("move of " + item.source);
+        OperationTimer timer = OperationTimer.start(sftpConfig.getTransferListener(), OperationType.MOVE, item.source);
+        try {
+            SftpTransfers.rename(item.source, item.target, replace, sftp);
+            timer.completed(0);
+        } catch (SftpException | RuntimeException e) {
+            timer.failed(e);
+            throw e;
+        }
+    }
+
+    private Map <String, List <String>> toMoveStatus(Iterable <MoveItem> items) {
+        List <String> movedFiles = new ArrayList <>();
+        List <String> failedFiles = new ArrayList <>();
+        for (MoveItem item : items) {
+            (item.failed ? failedFiles : movedFiles).add(item.source);
+        }
+        Map <String, List <String>> moveStatus = new TreeMap <>();
+        moveStatus.put(FileTransferResults.SUCCESS, movedFiles);
+        moveStatus.put(FileTransferResults.FAILURE, failedFiles);
+        return moveStatus;
+    }
+
+    private static class MoveItem {
+
+        private final String source;
+
+        private final String target;
+
+        private volatile boolean failed;
+
+        private MoveItem(String source, String target) {
+            this.source = source;
+            this.target = target;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.aceprogrammer.sftputil.transfer;
+
+import com.jcraft.jsch.ChannelSftp;
+
+/**
+ * Unit of work performed for a single item of a {@link TransferBatch}
+ * on whichever pooled channel picked up the item
+ *
+ * @param <T> type of the item
+ * @author Mohammed Salman Shaikh
+ */
+@FunctionalInterface
+public interface ChannelTask<T> {
+
+    /**
+     * @param item the item to be transferred
+     * @param sftp a connected channel, the task should only use absolute remote paths
+     *             since other tasks share the same channel
+     * @throws Exception any failure is reported to {@link BatchListener#onFailure(Object, Exception)}
+     */
+    void execute(T item, ChannelSftp sftp) throws Exception;
+}
@@ -0,0 +1,124 @@
+package com.aceprogrammer.sftputil.transfer;
+
+import java.lang.reflect.Constructor;
+import java.security.MessageDigest;
+import java.util.zip.Checksum;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Presents a {@link Checksum} such as crc32 as a {@link MessageDigest}, so that all checksum
+ * algorithms can be computed through the same digest streams. The digest is the 32 bit value
+ * in big endian order, as printed by common crc tools.
+ *
+ * @author Mohammed Salman Shaikh
+ */
+public class ChecksumDigest extends MessageDigest {
+
+    private static final Log logger = LogFactory.getLog(ChecksumDigest.class);
+
+    private static final Constructor <?> CRC32C_CONSTRUCTOR = findCrc32c();
+
+    private final Checksum checksum;
+
+    public ChecksumDigest(String algorithm, Checksum checksum) {
+        super(algorithm);
+        this.checksum = checksum;
+    }
+
+    /**
+     * @return the crc32c of the jdk where available, else a table driven implementation
+     */
+    public static Checksum newCrc32c() {
+        if (CRC32C_CONSTRUCTOR != null) {
+            try {
+                return (Checksum) CRC32C_CONSTRUCTOR.newInstance();
+            } catch (ReflectiveOperationException e) {
+                logger.debug("Could not create crc32c of the jdk", e);
+            }
+        }
+        return new Crc32c();
+    }
+
+    private static Constructor <?> findCrc32c() {
+        try {
+            // looked up reflectively since the library is compiled for java 8
+            return Class.forName("java.util.zip.CRC32C").getConstructor();
+        } catch (ReflectiveOperationException e) {
+            logger.debug("Crc32c is not available on this jdk, using the table driven implementation");
+            return null;
+        }
+    }
+
+    @Override
+    protected void engineUpdate(byte input) {
+        checksum.update(input);
+    }
+
+    @Override
+    protected void engineUpdate(byte[] input, int offset, int len) {
+        checksum.update(input, offset, len);
+    }
+
+    @Override
+    protected byte[] engineDigest() {
+        long value = checksum.getValue();
+        checksum.reset();
+        return new byte[]{(byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value};
+    }
+
+    @Override
+    protected int engineGetDigestLength() {
+        return 4;
+    }
+
+    @Override
+    protected void engineReset() {
+        checksum.reset();
+    }
+
+    /**
+     * Crc32c (Castagnoli) for jdks before 9
+     */
+    static class Crc32c implements Checksum {
+
+        private static final int[] TABLE = new int[256];
+
+        static {
+            for (int i = 0; i < TABLE.length; i++) {
+                int crc = i;
+                for (int bit = 0; bit < 8; bit++) {
+                    crc = (crc & 1) != 0 ? (crc >>> 1) ^ 0x82F63B78 : crc >>> 1;
+                }
+                TABLE[i] = crc;
+            }
+        }
+
+        private int crc = 0xFFFFFFFF;
+
+        @Override
+        public void update(int b) {
+            crc = (crc >>> 8) ^ TABLE[(crc ^ b) & 0xFF];
+        }
+
+        @Override
+        public void update(byte[] b, int off, int len) {
+            int value = crc;
+            for (int i = off; i < off + len; i++) {
+                value = (value >>> 8) ^ TABLE[(value ^ b[i]) & 0xFF];
+            }
+            crc = value;
+        }
+
+        @Override
+        public long getValue() {
+            return (~crc) & 0xFFFFFFFFL;
+        }
+
+        @Override
+        public void reset() {
+            crc = 0xFFFFFFFF;
+        }
+    }
+}
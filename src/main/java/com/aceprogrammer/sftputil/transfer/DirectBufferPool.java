@@ -0,0 +1,66 @@
+package com.aceprogrammer.sftputil.transfer;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded pool of direct buffers of a single size, shared by the transfers of a service.
+ * <p>
+ * A buffer is always handed out without waiting. When all pooled buffers are in use a new one is
+ * allocated, and it is dropped on release once the pool holds its capacity again.
+ *
+ * @author Mohammed Salman Shaikh
+ */
+public class DirectBufferPool {
+
+    private final int bufferSize;
+
+    private final int capacity;
+
+    private final Queue <ByteBuffer> buffers = new ConcurrentLinkedQueue <>();
+
+    private final AtomicInteger pooled = new AtomicInteger();
+
+    /**
+     * @param bufferSize size of every buffer
+     * @param capacity   maximum number of idle buffers kept
+     */
+    public DirectBufferPool(int bufferSize, int capacity) {
+        if (bufferSize < 1 || capacity < 0) {
+            throw new IllegalArgumentException("Buffer size must be at least 1 and capacity must not be negative");
+        }
+        this.bufferSize = bufferSize;
+        this.capacity = capacity;
+    }
+
+    /**
+     * @return a cleared buffer, to be handed back through {@link #release(ByteBuffer)} and not used afterwards
+     */
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = buffers.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(bufferSize);
+        }
+        pooled.decrementAndGet();
+        buffer.clear();
+        return buffer;
+    }
+
+    public void release(ByteBuffer buffer) {
+        if (buffer == null || !buffer.isDirect() || buffer.capacity() != bufferSize) {
+            return;
+        }
+        if (pooled.incrementAndGet() <= capacity) {
+            buffers.offer(buffer);
+        } else {
+            // freed by the garbage collector
+            pooled.decrementAndGet();
+        }
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+}
@@ -0,0 +1,317 @@
+package com.aceprogrammer.sftputil.transfer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.aceprogrammer.sftputil.config.SftpConfig;
+import com.aceprogrammer.sftputil.config.SyncComparison;
+import com.aceprogrammer.sftputil.constants.FileTransferResults;
+import com.aceprogrammer.sftputil.constants.SftpConstants;
+import com.aceprogrammer.sftputil.listing.RemoteFileFilter;
+import com.aceprogrammer.sftputil.listing.RemoteFileIterator;
+import com.aceprogrammer.sftputil.listing.RemoteFileType;
+import com.aceprogrammer.sftputil.pool.SftpConnectionPool;
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.SftpATTRS;
+import com.jcraft.jsch.SftpException;
+
+/**
+ * Transfers only the files of a folder which are new or changed compared to the other side.
+ * <p>
+ * The remote folder is listed once and the attributes of the listing are compared with the
+ * local files, so an unchanged folder costs a single ls. Downloads start while the listing is
+ * still arriving. Changed files are transferred over
+ * {@link SftpConfig#getParallelism()} channels and get the modification time of their source,
+ * hence they compare as unchanged on the next sync.
+ *
+ * @author Mohammed Salman Shaikh
+ */
+public class FolderSynchronizer {
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private static final RemoteFileFilter REGULAR_FILES = RemoteFileFilter.builder().type(RemoteFileType.FILE).build();
+
+    private final Log logger = LogFactory.getLog(this.getClass());
+
+    private final SftpConnectionPool connectionPool;
+
+    private final ExecutorService executor;
+
+    private final LocalFiles localFiles;
+
+    private final SftpConfig sftpConfig;
+
+    public FolderSynchronizer(SftpConnectionPool connectionPool, ExecutorService executor, LocalFiles localFiles,
+                              SftpConfig sftpConfig) {
+        this.connectionPool = connectionPool;
+        this.executor = executor;
+        this.localFiles = localFiles;
+        this.sftpConfig = sftpConfig;
+    }
+
+    /**
+     * @param localFiles   absolute paths of the local files
+     * @param remoteFolder absolute path of the existing remote folder
+     * @param sftp         channel of the calling thread, which transfers files as well
+     * @return SUCCESS, SKIPPED and FAILURE lists of local file paths
+     */
+    public Map <String, List <String>> upload(List <String> localFiles, String remoteFolder,
+                                              SyncComparison comparison, ChannelSftp sftp)
+            throws SftpException, JSchException {
+        Map <String, SftpATTRS> remoteFiles = listFiles(remoteFolder, sftp);
+        List <SyncItem> items = new ArrayList <>(localFiles.size());
+        for (String localFile : localFiles) {
+            File file = new File(localFile);
+            String remoteFilePath = remoteFolder + SftpConstants.FILE_SEPARATOR + file.getName();
+            SyncItem item = new SyncItem(localFile, file.toPath(), remoteFilePath, remoteFiles.get(file.getName()));
+            if (!file.isFile()) {
+                logger.error("Local file:" + localFile + " does not exist");
+                item.failed = true;
+            } else {
+                item.skipped = isUnchanged(file.length(), file.lastModified(), item.remoteAttributes, comparison);
+            }
+            items.add(item);
+        }
+        transfer(items, comparison, true, sftp);
+        return toSyncStatus(items);
+    }
+
+    /**
+     * Files are compared and transferred while the listing of the remote folder is still arriving
+     *
+     * @param remoteFolder absolute path of the remote folder
+     * @param localFolder  existing local folder
+     * @param sftp         channel of the calling thread, which transfers files as well
+     * @return SUCCESS, SKIPPED and FAILURE lists of remote file paths
+     */
+    public Map <String, List <String>> download(String remoteFolder, Path localFolder, SyncComparison comparison,
+                                                ChannelSftp sftp) throws SftpException, JSchException {
+        // the listing takes a spare connection before the helpers of the batch do, or opens another
+        // channel over the session of this thread
+        RemoteFileIterator remoteFiles = RemoteFileIterator.open(connectionPool, executor, sftp, remoteFolder,
+                REGULAR_FILES, sftpConfig.getTransferQueueCapacity());
+        TransferBatch <SyncItem> batch = newBatch(sftpConfig.getParallelism(), comparison, false, sftp);
+        List <SyncItem> items = new ArrayList <>();
+        IllegalStateException listingFailure = null;
+        try {
+            while (remoteFiles.hasNext()) {
+                ChannelSftp.LsEntry entry = remoteFiles.next();
+                String remoteFilePath = remoteFolder + SftpConstants.FILE_SEPARATOR + entry.getFilename();
+                Path localFile = localFolder.resolve(entry.getFilename());
+                SyncItem item = new SyncItem(remoteFilePath, localFile, remoteFilePath, entry.getAttrs());
+                File file = localFile.toFile();
+                item.skipped = file.isFile()
+                        && isUnchanged(file.length(), file.lastModified(), item.remoteAttributes, comparison);
+                items.add(item);
+                if (!item.skipped) {
+                    batch.submit(item);
+                }
+            }
+        } catch (IllegalStateException e) {
+            listingFailure = e;
+        } finally {
+            remoteFiles.close();
+            batch.await();
+        }
+        if (listingFailure != null) {
+            if (listingFailure.getCause() instanceof SftpException) {
+                throw (SftpException) listingFailure.getCause();
+            }
+            throw listingFailure;
+        }
+        items.sort(Comparator.comparing(item -> item.key));
+        return toSyncStatus(items);
+    }
+
+    /**
+     * @return attributes of the regular files in the remote folder by file name
+     */
+    private Map <String, SftpATTRS> listFiles(String remoteFolder, ChannelSftp sftp) throws SftpException {
+        Map <String, SftpATTRS> files = new HashMap <>();
+        sftp.ls(remoteFolder, entry -> {
+            if (REGULAR_FILES.accept(entry)) {
+                files.put(entry.getFilename(), entry.getAttrs());
+            }
+            return ChannelSftp.LsEntrySelector.CONTINUE;
+        });
+        return files;
+    }
+
+    /**
+     * Decides on the listed metadata alone, files to be compared by checksum are decided by the workers
+     */
+    private boolean isUnchanged(long localSize, long localLastModified, SftpATTRS remote, SyncComparison comparison) {
+        if (remote == null || remote.getSize() != localSize) {
+            return false;
+        }
+        switch (comparison) {
+            case SIZE:
+                return true;
+            case SIZE_AND_MTIME:
+                return localLastModified / 1000 == remote.getMTime();
+            default:
+                return false;
+        }
+    }
+
+    private void transfer(List <SyncItem> items, SyncComparison comparison, boolean upload, ChannelSftp sftp)
+            throws JSchException {
+        List <SyncItem> pending = new ArrayList <>();
+        for (SyncItem item : items) {
+            if (!item.skipped && !item.failed) {
+                pending.add(item);
+            }
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+        TransferBatch <SyncItem> batch = newBatch(Math.min(sftpConfig.getParallelism(), pending.size()), comparison,
+                upload, sftp);
+        for (SyncItem item : pending) {
+            batch.submit(item);
+        }
+        batch.await();
+    }
+
+    private TransferBatch <SyncItem> newBatch(int workers, SyncComparison comparison, boolean upload,
+                                              ChannelSftp sftp) {
+        return new TransferBatch <>(connectionPool, executor, workers, sftpConfig.getTransferQueueCapacity(),
+                (item, channel) -> sync(item, comparison, upload, channel),
+                new BatchListener <SyncItem>() {
+                    @Override
+                    public void onSuccess(SyncItem item) {
+                        logger.info((item.skipped ? "Skipped unchanged file:" : "Synced file:") + item.key);
+                    }
+
+                    @Override
+                    public void onFailure(SyncItem item, Exception e) {
+                        logger.error("Failed to sync file:" + item.key, e);
+                        item.failed = true;
+                    }
+                }, sftp, sftpConfig.getRetryPolicy());
+    }
+
+    private void sync(SyncItem item, SyncComparison comparison, boolean upload, ChannelSftp sftp)
+            throws SftpException, IOException {
+        if (comparison == SyncComparison.CHECKSUM && item.remoteAttributes != null && Files.isRegularFile(item.localPath)
+                && Files.size(item.localPath) == item.remoteAttributes.getSize()) {
+            if (Arrays.equals(localDigest(item.localPath), remoteDigest(item.remotePath, sftp))) {
+                item.skipped = true;
+                return;
+            }
+        }
+        if (upload) {
+            try (InputStream inputStream = localFiles.newInputStream(item.localPath)) {
+                SftpTransfers.put(inputStream, item.remotePath, sftp, sftpConfig.getTransferListener(),
+                        sftpConfig.getChecksumVerification());
+            }
+            sftp.setMtime(item.remotePath, (int) (Files.getLastModifiedTime(item.localPath).toMillis() / 1000));
+        } else {
+            try (OutputStream outputStream = localFiles.newOutputStream(item.localPath)) {
+                SftpTransfers.get(item.remotePath, outputStream, sftp, sftpConfig.getTransferListener(),
+                        sftpConfig.getChecksumVerification());
+            }
+            if (!item.localPath.toFile().setLastModified(item.remoteAttributes.getMTime() * 1000L)) {
+                logger.warn("Could not set modification time of local file:" + item.localPath);
+            }
+        }
+    }
+
+    private byte[] localDigest(Path localPath) throws IOException {
+        try (InputStream inputStream = localFiles.newInputStream(localPath)) {
+            return digest(inputStream);
+        }
+    }
+
+    private byte[] remoteDigest(String remotePath, ChannelSftp sftp) throws SftpException, IOException {
+        try (InputStream inputStream = sftp.get(remotePath)) {
+            return digest(inputStream);
+        }
+    }
+
+    private byte[] digest(InputStream inputStream) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(DIGEST_ALGORITHM + " is mandatory on every java platform", e);
+        }
+        byte[] buffer = new byte[localFiles.getBufferSize()];
+        int read;
+        while ((read = inputStream.read(buffer)) >= 0) {
+            TransferCancellation.throwIfCancelled("checksum comparison");
+            digest.update(buffer, 0, read);
+        }
+        return digest.digest();
+    }
+
+    /**
+     * @return SUCCESS, SKIPPED and FAILURE lists in the order of the items
+     */
+    private Map <String, List <String>> toSyncStatus(List <SyncItem> items) {
+        List <String> syncedFiles = new ArrayList <>();
+        List <String> skippedFiles = new ArrayList <>();
+        List <String> failedFiles = new ArrayList <>();
+        for (SyncItem item : items) {
+            if (item.failed) {
+                failedFiles.add(item.key);
+            } else if (item.skipped) {
+                skippedFiles.add(item.key);
+            } else {
+                syncedFiles.add(item.key);
+            }
+        }
+        Map <String, List <String>> syncStatus = new TreeMap <>();
+        syncStatus.put(FileTransferResults.SUCCESS, syncedFiles);
+        syncStatus.put(FileTransferResults.SKIPPED, skippedFiles);
+        syncStatus.put(FileTransferResults.FAILURE, failedFiles);
+        return syncStatus;
+    }
+
+    /**
+     * A file present on either side, identified in the result by its source path
+     */
+    private static class SyncItem {
+
+        private final String key;
+
+        private final Path localPath;
+
+        private final String remotePath;
+
+        /**
+         * attributes as per listing, null if the file is not present remotely
+         */
+        private final SftpATTRS remoteAttributes;
+
+        private volatile boolean skipped;
+
+        private volatile boolean failed;
+
+        private SyncItem(String key, Path localPath, String remotePath, SftpATTRS remoteAttributes) {
+            this.key = key;
+            this.localPath = localPath;
+            this.remotePath = remotePath;
+            this.remoteAttributes = remoteAttributes;
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package com.aceprogrammer.sftputil.transfer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.aceprogrammer.sftputil.config.SftpConfig;
+
+/**
+ * Reads and writes the local files of transfers through {@link FileChannel}s.
+ * <p>
+ * Files of at least {@link SftpConfig#getMemoryMapThreshold()} are read from memory mapped
+ * windows, so jsch copies straight from the page cache into its packets without a read call
+ * per chunk. Java offers no supported way to unmap a window, it is unmapped once garbage
+ * collected. Other files are read, and downloads are written, through direct buffers of
+ * {@link SftpConfig#getTransferBufferSize()} taken from a {@link DirectBufferPool}, instead of
+ * the native buffer allocated by every read of a {@link java.io.FileInputStream} and the
+ * temporary direct buffer copied by every write of a channel stream.
+ * <p>
+ * The ssh encryption works on the java heap, hence the bytes cannot bypass it with a zero copy
+ * transfer such as {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}.
+ *
+ * @author Mohammed Salman Shaikh
+ */
+public class LocalFiles {
+
+    /**
+     * size of the region mapped at a time
+     */
+    private static final long MAP_WINDOW_SIZE = 64L * 1024 * 1024;
+
+    private final DirectBufferPool bufferPool;
+
+    private final long memoryMapThreshold;
+
+    /**
+     * @param bufferPool         direct buffers of the buffered streams
+     * @param memoryMapThreshold files of at least this size are read from memory mapped windows
+     */
+    public LocalFiles(DirectBufferPool bufferPool, long memoryMapThreshold) {
+        this.bufferPool = bufferPool;
+        this.memoryMapThreshold = memoryMapThreshold;
+    }
+
+    /**
+     * @return stream over the file, supporting an efficient {@link InputStream#skip(long)}
+     * @throws java.nio.file.NoSuchFileException if the file does not exist
+     */
+    public InputStream newInputStream(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size >= memoryMapThreshold) {
+                return new MappedInputStream(channel, size);
+            }
+            return new BufferedChannelInputStream(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return stream creating or replacing the file, buffered until flushed or closed
+     */
+    public OutputStream newOutputStream(Path file) throws IOException {
+        return new BufferedChannelOutputStream(FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE));
+    }
+
+    public int getBufferSize() {
+        return bufferPool.getBufferSize();
+    }
+
+    /**
+     * Reads a file from windows of {@link #MAP_WINDOW_SIZE} mapped one after the other
+     */
+    private static class MappedInputStream extends InputStream {
+
+        private final FileChannel channel;
+
+        private final long size;
+
+        private long position;
+
+        private long windowStart;
+
+        private MappedByteBuffer window;
+
+        private boolean closed;
+
+        private MappedInputStream(FileChannel channel, long size) {
+            this.channel = channel;
+            this.size = size;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+            if (length == 0) {
+                return 0;
+            }
+            if (position >= size) {
+                return -1;
+            }
+            if (window == null || position >= windowStart + window.limit()) {
+                window = null;
+                windowStart = position;
+                window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAP_WINDOW_SIZE,
+                        size - position));
+            }
+            window.position((int) (position - windowStart));
+            int count = Math.min(length, window.remaining());
+            try {
+                window.get(bytes, offset, count);
+            } catch (InternalError e) {
+                // the jvm reports access to pages beyond the end of a truncated file this way
+                throw new IOException("Local file was truncated while being read", e);
+            }
+            position += count;
+            return count;
+        }
+
+        @Override
+        public long skip(long count) {
+            long skipped = Math.max(0, Math.min(count, size - position));
+            position += skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, Math.max(0, size - position));
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                window = null;
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Reads a file through a pooled direct buffer
+     */
+    private class BufferedChannelInputStream extends InputStream {
+
+        private final FileChannel channel;
+
+        private ByteBuffer buffer;
+
+        private BufferedChannelInputStream(FileChannel channel) {
+            this.channel = channel;
+            this.buffer = bufferPool.acquire();
+            buffer.flip();
+        }
+
+        @Override
+        public int read() throws IOException {
+            return fill() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public long skip(long count) throws IOException {
+            ensureOpen();
+            if (count <= buffer.remaining()) {
+                int skipped = (int) Math.max(0, count);
+                buffer.position(buffer.position() + skipped);
+                return skipped;
+            }
+            long buffered = buffer.remaining();
+            buffer.position(buffer.limit());
+            long position = channel.position();
+            long skipped = Math.min(count - buffered, Math.max(0, channel.size() - position));
+            channel.position(position + skipped);
+            return buffered + skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            ensureOpen();
+            long remaining = buffer.remaining() + Math.max(0, channel.size() - channel.position());
+            return (int) Math.min(Integer.MAX_VALUE, remaining);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (buffer != null) {
+                bufferPool.release(buffer);
+                buffer = null;
+                channel.close();
+            }
+        }
+
+        /**
+         * @return false at the end of the file
+         */
+        private boolean fill() throws IOException {
+            ensureOpen();
+            while (!buffer.hasRemaining()) {
+                buffer.clear();
+                int read = channel.read(buffer);
+                buffer.flip();
+                if (read < 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void ensureOpen() throws IOException {
+            // the buffer may already serve another stream
+            if (buffer == null) {
+                throw new IOException("Stream closed");
+            }
+        }
+    }
+
+    /**
+     * Writes a file through a pooled direct buffer
+     */
+    private class BufferedChannelOutputStream extends OutputStream {
+
+        private final FileChannel channel;
+
+        private ByteBuffer buffer;
+
+        private BufferedChannelOutputStream(FileChannel channel) {
+            this.channel = channel;
+            this.buffer = bufferPool.acquire();
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            ensureOpen();
+            if (!buffer.hasRemaining()) {
+                writeBuffer();
+            }
+            buffer.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            ensureOpen();
+            while (length > 0) {
+                if (!buffer.hasRemaining()) {
+                    writeBuffer();
+                }
+                int count = Math.min(length, buffer.remaining());
+                buffer.put(bytes, offset, count);
+                offset += count;
+                length -= count;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            ensureOpen();
+            writeBuffer();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (buffer == null) {
+                return;
+            }
+            try {
+                writeBuffer();
+            } finally {
+                bufferPool.release(buffer);
+                buffer = null;
+                channel.close();
+            }
+        }
+
+        private void writeBuffer() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        private void ensureOpen() throws IOException {
+            // the buffer may already serve another stream
+            if (buffer == null) {
+                throw new IOException("Stream closed");
+            }
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.aceprogrammer.sftputil.transfer;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.UUID;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.aceprogrammer.sftputil.config.RetryPolicy;
+import com.aceprogrammer.sftputil.metrics.OperationTimer;
+import com.aceprogrammer.sftputil.metrics.OperationType;
+import com.aceprogrammer.sftputil.metrics.TransferListener;
+import com.aceprogrammer.sftputil.pool.PooledConnection;
+import com.aceprogrammer.sftputil.pool.SftpConnectionPool;
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.SftpException;
+
+/**
+ * Uploads a file so that a transfer interrupted by a failure continues from the size already
+ * present on the remote server instead of starting from zero.
+ * <p>
+ * Before sending any data a small checkpoint describing the local file is written to the
+ * checkpoint directory. A partial remote file is only resumed when such a checkpoint exists and
+ * the local file has not changed since, otherwise the remote file is overwritten. The checkpoint
+ * survives failed attempts, so calling the upload again later resumes as well.
+ *
+ * @author Mohammed Salman Shaikh
+ */
+public class ResumableUploader {
+
+    private static final String LOCAL_PATH = "localPath";
+    private static final String REMOTE_PATH = "remotePath";
+    private static final String LOCAL_SIZE = "localSize";
+    private static final String LOCAL_LAST_MODIFIED = "localLastModified";
+    private static final String TRANSFERRED_BYTES = "transferredBytes";
+
+    private final Log logger = LogFactory.getLog(this.getClass());
+
+    private final SftpConnectionPool connectionPool;
+
+    private final LocalFiles localFiles;
+
+    private final RetryPolicy retryPolicy;
+
+    private final Path checkpointDirectory;
+
+    private final TransferListener transferListener;
+
+    public ResumableUploader(SftpConnectionPool connectionPool, LocalFiles localFiles, RetryPolicy retryPolicy,
+                             Path checkpointDirectory, TransferListener transferListener) {
+        this.connectionPool = connectionPool;
+        this.localFiles = localFiles;
+        this.retryPolicy = retryPolicy;
+        this.checkpointDirectory = checkpointDirectory;
+        this.transferListener = transferListener;
+    }
+
+    /**
+     * @param file           the local file to be uploaded
+     * @param remoteFilePath absolute remote path of the file, its folder must exist
+     * @throws IOException if the local file or checkpoint could not be read, or the last attempt failed locally
+     */
+    public void upload(File file, String remoteFilePath) throws JSchException, SftpException, IOException {
+        if (!file.isFile()) {
+            throw new FileNotFoundException("Local file:" + file + " does not exist");
+        }
+        Path checkpointFile = getCheckpointFile(file, remoteFilePath);
+        // all attempts together are reported as a single upload
+        OperationTimer timer = OperationTimer.start(transferListener, OperationType.UPLOAD, remoteFilePath);
+        long transferred = 0;
+
+        for (int attempt = 1; ; attempt++) {
+            PooledConnection connection = null;
+            TransferMonitor monitor = new TransferMonitor(transferListener, OperationType.UPLOAD);
+            try {
+                connection = connectionPool.borrow();
+                ChannelSftp sftp = connection.getChannel();
+                int mode = prepare(file, remoteFilePath, checkpointFile, sftp);
+                try (InputStream inputStream = localFiles.newInputStream(file.toPath())) {
+                    // in RESUME mode jsch skips the bytes already present remotely and appends the rest
+                    sftp.put(inputStream, remoteFilePath, monitor, mode);
+                }
+                TransferCancellation.throwIfCancelled("upload of " + file);
+                Files.deleteIfExists(checkpointFile);
+                timer.completed(transferred + monitor.getTransferred());
+                logger.info("File:" + file + " was uploaded successfully to: " + remoteFilePath);
+                return;
+            } catch (RuntimeException e) {
+                timer.failed(e);
+                throw e;
+            } catch (JSchException | SftpException | IOException e) {
+                transferred += monitor.getTransferred();
+                saveProgress(checkpointFile, monitor.getTransferred());
+                if (!retryPolicy.isRetryable(e)) {
+                    logger.error("Upload of file:" + file + " failed for good", e);
+                    timer.failed(e);
+                    throw e;
+                }
+                if (attempt >= retryPolicy.getMaxAttempts()) {
+                    logger.error("Giving up upload of file:" + file + " after " + attempt + " attempts", e);
+                    timer.failed(e);
+                    throw e;
+                }
+                long backoff = retryPolicy.getBackoffMillis(attempt);
+                logger.warn("Attempt " + attempt + " to upload file:" + file + " failed, resuming in " + backoff + "ms", e);
+                try {
+                    sleep(backoff);
+                } catch (IOException interrupted) {
+                    timer.failed(interrupted);
+                    throw interrupted;
+                }
+            } finally {
+                connectionPool.release(connection);
+            }
+        }
+    }
+
+    /**
+     * @return the jsch transfer mode, RESUME if the remote file is a partial upload of the same local file
+     */
+    private int prepare(File file, String remoteFilePath, Path checkpointFile, ChannelSftp sftp) throws IOException {
+        Properties checkpoint = loadCheckpoint(checkpointFile);
+        if (checkpoint != null && matches(checkpoint, file, remoteFilePath)) {
+            long remoteSize = getRemoteSize(remoteFilePath, sftp);
+            if (remoteSize >= 0 && remoteSize <= file.length()) {
+                logger.info("Resuming upload of file:" + file + " to: " + remoteFilePath + " from offset:" + remoteSize);
+                return ChannelSftp.RESUME;
+            }
+        }
+        Properties fresh = new Properties();
+        fresh.setProperty(LOCAL_PATH, file.getAbsolutePath());
+        fresh.setProperty(REMOTE_PATH, remoteFilePath);
+        fresh.setProperty(LOCAL_SIZE, String.valueOf(file.length()));
+        fresh.setProperty(LOCAL_LAST_MODIFIED, String.valueOf(file.lastModified()));
+        fresh.setProperty(TRANSFERRED_BYTES, "0");
+        storeCheckpoint(checkpointFile, fresh);
+        return ChannelSftp.OVERWRITE;
+    }
+
+    private boolean matches(Properties checkpoint, File file, String remoteFilePath) {
+        return file.getAbsolutePath().equals(checkpoint.getProperty(LOCAL_PATH))
+                && remoteFilePath.equals(checkpoint.getProperty(REMOTE_PATH))
+                && String.valueOf(file.length()).equals(checkpoint.getProperty(LOCAL_SIZE))
+                && String.valueOf(file.lastModified()).equals(checkpoint.getProperty(LOCAL_LAST_MODIFIED));
+    }
+
+    private long getRemoteSize(String remoteFilePath, ChannelSftp sftp) {
+        try {
+            return sftp.stat(remoteFilePath).getSize();
+        } catch (SftpException e) {
+            return -1;
+        }
+    }
+
+    private Path getCheckpointFile(File file, String remoteFilePath) {
+        String key = file.getAbsolutePath() + "->" + remoteFilePath;
+        return checkpointDirectory.resolve(UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)) + ".checkpoint");
+    }
+
+    private Properties loadCheckpoint(Path checkpointFile) throws IOException {
+        if (!Files.exists(checkpointFile)) {
+            return null;
+        }
+        Properties checkpoint = new Properties();
+        try (InputStream inputStream = Files.newInputStream(checkpointFile)) {
+            checkpoint.load(inputStream);
+        }
+        return checkpoint;
+    }
+
+    private void storeCheckpoint(Path checkpointFile, Properties checkpoint) throws IOException {
+        Files.createDirectories(checkpointDirectory);
+        try (OutputStream outputStream = Files.newOutputStream(checkpointFile)) {
+            checkpoint.store(outputStream, "sftputil resumable upload");
+        }
+    }
+
+    /**
+     * Records how far the failed attempt got, purely informational since the
+     * remote size decides the offset to resume from
+     */
+    private void saveProgress(Path checkpointFile, long transferred) {
+        try {
+            Properties checkpoint = loadCheckpoint(checkpointFile);
+            if (checkpoint != null) {
+                checkpoint.setProperty(TRANSFERRED_BYTES, String.valueOf(transferred));
+                storeCheckpoint(checkpointFile, checkpoint);
+            }
+        } catch (IOException e) {
+            logger.warn("Could not update checkpoint:" + checkpointFile, e);
+        }
+    }
+
+    private void sleep(long millis) throws IOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting to resume upload", e);
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package com.aceprogrammer.sftputil.transfer;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.aceprogrammer.sftputil.config.RetryPolicy;
+import com.aceprogrammer.sftputil.metrics.OperationType;
+import com.aceprogrammer.sftputil.metrics.TransferListener;
+import com.aceprogrammer.sftputil.pool.SftpConnectionPool;
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.SftpATTRS;
+import com.jcraft.jsch.SftpException;
+import com.jcraft.jsch.SftpProgressMonitor;
+
+/**
+ * Downloads a single large remote file by splitting it into byte ranges which are fetched
+ * concurrently over several channels using offset reads and written with positional
+ * writes into a local file preallocated to the remote size.
+ * <p>
+ * Jsch copies the data of every response straight into a direct buffer of the shared
+ * {@link DirectBufferPool}, which is written at the offset of the segment once full, so a
+ * segment allocates no buffer of its own.
+ *
+ * @author Mohammed Salman Shaikh
+ */
+public class SegmentedDownloader {
+
+    private final Log logger = LogFactory.getLog(this.getClass());
+
+    private final SftpConnectionPool connectionPool;
+
+    private final ExecutorService executor;
+
+    private final int parallelism;
+
+    private final long segmentSize;
+
+    private final DirectBufferPool bufferPool;
+
+    private final RetryPolicy retryPolicy;
+
+    private final TransferListener transferListener;
+
+    public SegmentedDownloader(SftpConnectionPool connectionPool, ExecutorService executor, int parallelism,
+                               long segmentSize, DirectBufferPool bufferPool, RetryPolicy retryPolicy,
+                               TransferListener transferListener) {
+        this.connectionPool = connectionPool;
+        this.executor = executor;
+        this.parallelism = parallelism;
+        this.segmentSize = segmentSize;
+        this.bufferPool = bufferPool;
+        this.retryPolicy = retryPolicy;
+        this.transferListener = transferListener;
+    }
+
+    /**
+     * @param remoteFilePath absolute remote path of the file
+     * @param localFilePath  local file to be written, replaced if it exists
+     * @param sftp           channel of the calling thread, which fetches segments as well
+     * @throws IOException if any segment failed or the downloaded size does not match the remote file
+     */
+    public void download(String remoteFilePath, Path localFilePath, ChannelSftp sftp)
+            throws SftpException, IOException, JSchException {
+
+        SftpATTRS attributes = sftp.stat(remoteFilePath);
+        long size = attributes.getSize();
+        int segmentCount = (int) Math.max(1, (size + segmentSize - 1) / segmentSize);
+        int workers = Math.min(parallelism, segmentCount);
+        logger.info("Downloading remote file:" + remoteFilePath + " of size:" + size + " in " + segmentCount
+                + " segments over " + workers + " channels");
+
+        boolean completed = false;
+        try (RandomAccessFile file = new RandomAccessFile(localFilePath.toFile(), "rw")) {
+            // preallocate so that segments can be written at their offset in any order
+            file.setLength(size);
+            FileChannel fileChannel = file.getChannel();
+
+            AtomicReference <Exception> failure = new AtomicReference <>();
+            TransferBatch <Segment> batch = new TransferBatch <>(connectionPool, executor, workers, segmentCount,
+                    (segment, channel) -> fetch(remoteFilePath, segment, fileChannel, channel, failure),
+                    new BatchListener <Segment>() {
+                        @Override
+                        public void onSuccess(Segment segment) {
+                            logger.debug("Fetched segment at offset:" + segment.offset + " of " + remoteFilePath);
+                        }
+
+                        @Override
+                        public void onFailure(Segment segment, Exception e) {
+                            failure.compareAndSet(null, e);
+                        }
+                    }, sftp, retryPolicy);
+            for (long offset = 0; offset < size; offset += segmentSize) {
+                batch.submit(new Segment(offset, Math.min(segmentSize, size - offset)));
+            }
+            batch.await();
+
+            if (failure.get() != null) {
+                throw new IOException("Segmented download of remote file:" + remoteFilePath + " failed", failure.get());
+            }
+            verify(remoteFilePath, attributes, fileChannel.size(), sftp);
+            completed = true;
+        } finally {
+            if (!completed) {
+                // a preallocated file has the full size and would look complete
+                Files.deleteIfExists(localFilePath);
+            }
+        }
+    }
+
+    private void fetch(String remoteFilePath, Segment segment, FileChannel fileChannel, ChannelSftp sftp,
+                       AtomicReference <Exception> failure) throws SftpException, IOException {
+        if (failure.get() != null) {
+            throw new IOException("Skipping segment at offset:" + segment.offset + " since another segment failed");
+        }
+        SegmentOutputStream outputStream = new SegmentOutputStream(fileChannel, segment);
+        try {
+            sftp.get(remoteFilePath, outputStream, new SegmentMonitor(outputStream,
+                    new TransferMonitor(transferListener, OperationType.DOWNLOAD)), ChannelSftp.RESUME, segment.offset);
+            outputStream.flush();
+            outputStream.throwIfFailed();
+        } finally {
+            outputStream.close();
+        }
+        TransferCancellation.throwIfCancelled("download of " + remoteFilePath);
+        if (outputStream.remaining > 0) {
+            throw new EOFException("Remote file:" + remoteFilePath + " ended at offset:"
+                    + (segment.offset + segment.length - outputStream.remaining));
+        }
+    }
+
+    private void verify(String remoteFilePath, SftpATTRS before, long localSize, ChannelSftp sftp)
+            throws SftpException, IOException {
+        if (localSize != before.getSize()) {
+            throw new IOException("Downloaded size:" + localSize + " does not match size:" + before.getSize()
+                    + " of remote file:" + remoteFilePath);
+        }
+        SftpATTRS after = sftp.stat(remoteFilePath);
+        if (after.getSize() != before.getSize() || after.getMTime() != before.getMTime()) {
+            throw new IOException("Remote file:" + remoteFilePath + " was modified during download");
+        }
+    }
+
+    /**
+     * Writes the bytes of a segment at their offset through a pooled direct buffer and drops the
+     * bytes jsch reads beyond the end of the segment. A failed write is kept instead of thrown, since
+     * jsch would leave the responses of its pending reads unread, and ends the transfer through the
+     * {@link SegmentMonitor}.
+     */
+    private class SegmentOutputStream extends OutputStream {
+
+        private final FileChannel fileChannel;
+
+        private final long length;
+
+        private long position;
+
+        private long remaining;
+
+        private ByteBuffer buffer;
+
+        private IOException failure;
+
+        private SegmentOutputStream(FileChannel fileChannel, Segment segment) {
+            this.fileChannel = fileChannel;
+            this.length = segment.length;
+            this.position = segment.offset;
+            this.remaining = segment.length;
+            this.buffer = bufferPool.acquire();
+        }
+
+        @Override
+        public void write(int b) {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            int count = (int) Math.min(length, remaining);
+            try {
+                while (count > 0 && failure == null) {
+                    if (!buffer.hasRemaining()) {
+                        writeBuffer();
+                    }
+                    int put = Math.min(count, buffer.remaining());
+                    buffer.put(bytes, offset, put);
+                    offset += put;
+                    count -= put;
+                    remaining -= put;
+                }
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+
+        /**
+         * Called by jsch before it reads the responses of the pending reads, hence a failure is kept as well
+         */
+        @Override
+        public void flush() {
+            try {
+                if (failure == null) {
+                    writeBuffer();
+                }
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+
+        private void throwIfFailed() throws IOException {
+            if (failure != null) {
+                throw failure;
+            }
+        }
+
+        @Override
+        public void close() {
+            bufferPool.release(buffer);
+            buffer = null;
+        }
+
+        private void writeBuffer() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                position += fileChannel.write(buffer, position);
+            }
+            buffer.clear();
+        }
+
+        private long getWritten() {
+            return length - remaining;
+        }
+
+        private boolean isDone() {
+            return remaining == 0 || failure != null;
+        }
+    }
+
+    /**
+     * Reports the bytes of the segment to the {@link TransferMonitor} and ends the transfer once the
+     * segment is complete, the write failed or the transfer was cancelled. Jsch counts the offset of a
+     * resumed transfer upfront, which is not transferred, and the bytes read beyond the segment are
+     * dropped, hence neither is reported.
+     */
+    private static class SegmentMonitor implements SftpProgressMonitor {
+
+        private final SegmentOutputStream outputStream;
+
+        private final TransferMonitor monitor;
+
+        private boolean offsetCounted;
+
+        private long reported;
+
+        private SegmentMonitor(SegmentOutputStream outputStream, TransferMonitor monitor) {
+            this.outputStream = outputStream;
+            this.monitor = monitor;
+        }
+
+        @Override
+        public void init(int op, String src, String dest, long max) {
+            monitor.init(op, src, dest, max);
+        }
+
+        @Override
+        public boolean count(long count) {
+            if (!offsetCounted) {
+                offsetCounted = true;
+                return true;
+            }
+            long written = outputStream.getWritten();
+            boolean proceed = monitor.count(written - reported);
+            reported = written;
+            return proceed && !outputStream.isDone();
+        }
+
+        @Override
+        public void end() {
+            monitor.end();
+        }
+    }
+
+    /**
+     * Byte range of the remote file fetched by a single channel
+     */
+    private static class Segment {
+
+        private final long offset;
+
+        private final long length;
+
+        private Segment(long offset, long length) {
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
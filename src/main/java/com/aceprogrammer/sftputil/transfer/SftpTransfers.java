@@ -0,0 +1,307 @@
+package com.aceprogrammer.sftputil.transfer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.aceprogrammer.sftputil.config.ChecksumAlgorithm;
+import com.aceprogrammer.sftputil.config.ChecksumVerification;
+import com.aceprogrammer.sftputil.constants.ConfigFields;
+import com.aceprogrammer.sftputil.constants.SftpConstants;
+import com.aceprogrammer.sftputil.exception.ChecksumMismatchException;
+import com.aceprogrammer.sftputil.metrics.OperationTimer;
+import com.aceprogrammer.sftputil.metrics.OperationType;
+import com.aceprogrammer.sftputil.metrics.TransferListener;
+import com.jcraft.jsch.Channel;
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.SftpException;
+
+/**
+ * Single point through which whole file uploads and downloads go, so that every transfer
+ * can be cancelled, is reported to the {@link TransferListener} and can be verified as per
+ * {@link ChecksumVerification}.
+ * <p>
+ * Atomic uploads go through {@link #putPartial} and later {@link #commit}, so that batches can
+ * transfer all their data first and then rename the files back to back.
+ *
+ * @author Mohammed Salman Shaikh
+ */
+public final class SftpTransfers {
+
+    private static final Log logger = LogFactory.getLog(SftpTransfers.class);
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private SftpTransfers() {
+    }
+
+    /**
+     * Uploads the stream, aborting it as soon as the transfers of the current thread are cancelled
+     *
+     * @return hex checksum of the uploaded bytes, null if verification is disabled
+     * @throws ChecksumMismatchException if the remote file does not match the uploaded bytes
+     */
+    public static String put(InputStream inputStream, String remoteFilePath, ChannelSftp sftp,
+                             TransferListener listener, ChecksumVerification verification) throws SftpException {
+        return put(inputStream, remoteFilePath, sftp, listener, verification, verification.isSidecar());
+    }
+
+    /**
+     * Uploads the stream to the partial file of the remote file, see {@link #getPartialFilePath(String)},
+     * which is verified right away but written under its name by {@link #commit} only
+     *
+     * @return hex checksum of the uploaded bytes, null if verification is disabled
+     * @throws ChecksumMismatchException if the partial file does not match the uploaded bytes
+     */
+    public static String putPartial(InputStream inputStream, String remoteFilePath, ChannelSftp sftp,
+                                    TransferListener listener, ChecksumVerification verification)
+            throws SftpException {
+        // the checksum file is written on commit, it must not refer to a file which is not yet visible
+        return put(inputStream, getPartialFilePath(remoteFilePath), sftp, listener, verification, false);
+    }
+
+    /**
+     * Renames the partial file to the remote file, replacing an existing file, and writes the
+     * checksum file of the upload if one is configured
+     *
+     * @param checksum hex checksum returned by {@link #putPartial}
+     */
+    public static void commit(String remoteFilePath, String checksum, ChannelSftp sftp, TransferListener listener,
+                              ChecksumVerification verification) throws SftpException {
+        String partialFilePath = getPartialFilePath(remoteFilePath);
+        OperationTimer timer = OperationTimer.start(listener, OperationType.MOVE, partialFilePath);
+        try {
+            rename(partialFilePath, remoteFilePath, true, sftp);
+            if (checksum != null && verification.isSidecar()) {
+                writeSidecar(remoteFilePath, checksum, verification.getAlgorithm(), sftp);
+            }
+            timer.completed(0);
+        } catch (SftpException | RuntimeException e) {
+            timer.failed(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Removes the partial file of a failed upload, at best effort since the session may be broken.
+     * <p>
+     * A put failing half way leaves the acknowledgements of its writes unread on the channel, which
+     * would be taken for the answer to the removal, hence it goes through a channel of its own.
+     */
+    public static void discardPartial(String remoteFilePath, ChannelSftp sftp) {
+        String partialFilePath = getPartialFilePath(remoteFilePath);
+        Channel channel = null;
+        try {
+            channel = sftp.getSession().openChannel(ConfigFields.SFTP_CHANNEL);
+            channel.connect();
+            ((ChannelSftp) channel).rm(partialFilePath);
+        } catch (JSchException | SftpException | RuntimeException e) {
+            logger.debug("Could not remove partial file:" + partialFilePath, e);
+        } finally {
+            if (channel != null) {
+                channel.disconnect();
+            }
+        }
+    }
+
+    /**
+     * @return path of the hidden file next to the remote file, e.g. /out/.report.csv.part for
+     * /out/report.csv, so that the rename stays within the folder and its file system
+     */
+    public static String getPartialFilePath(String remoteFilePath) {
+        int nameStart = remoteFilePath.lastIndexOf(SftpConstants.FILE_SEPARATOR) + 1;
+        return remoteFilePath.substring(0, nameStart) + "." + remoteFilePath.substring(nameStart)
+                + SftpConstants.PARTIAL_FILE_SUFFIX;
+    }
+
+    /**
+     * Jsch renames with the posix-rename@openssh.com extension whenever the server supports it, which
+     * atomically replaces an existing target, while a plain sftp rename fails on an existing target
+     *
+     * @param replace true to remove an existing target and retry when the plain rename fails, which is not atomic
+     */
+    public static void rename(String source, String target, boolean replace, ChannelSftp sftp) throws SftpException {
+        try {
+            sftp.rename(source, target);
+        } catch (SftpException e) {
+            // servers differ in the status sent for an existing target, hence it is checked by stat
+            if (!replace || !exists(target, sftp)) {
+                throw e;
+            }
+            logger.debug("Replacing existing file:" + target);
+            sftp.rm(target);
+            sftp.rename(source, target);
+        }
+    }
+
+    private static String put(InputStream inputStream, String remoteFilePath, ChannelSftp sftp,
+                              TransferListener listener, ChecksumVerification verification, boolean sidecar)
+            throws SftpException {
+        TransferCancellation.throwIfCancelled("upload to " + remoteFilePath);
+        TransferMonitor monitor = new TransferMonitor(listener, OperationType.UPLOAD);
+        OperationTimer timer = OperationTimer.start(listener, OperationType.UPLOAD, remoteFilePath);
+        MessageDigest digest = verification.isEnabled() ? verification.getAlgorithm().newDigest() : null;
+        try {
+            sftp.put(digest == null ? inputStream : new DigestInputStream(inputStream, digest), remoteFilePath,
+                    monitor);
+            TransferCancellation.throwIfCancelled("upload to " + remoteFilePath);
+            String checksum = null;
+            if (digest != null) {
+                checksum = toHex(digest.digest());
+                verifyUpload(remoteFilePath, monitor.getTransferred(), checksum, verification, sidecar, sftp);
+                listener.checksumVerified(OperationType.UPLOAD, remoteFilePath, verification.getAlgorithm().name(),
+                        checksum);
+            }
+            timer.completed(monitor.getTransferred());
+            return checksum;
+        } catch (SftpException | RuntimeException e) {
+            timer.failed(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Downloads into the stream, aborting it as soon as the transfers of the current thread are cancelled
+     *
+     * @return hex checksum of the downloaded bytes, null if verification is disabled
+     * @throws ChecksumMismatchException if the downloaded bytes do not match the remote file
+     */
+    public static String get(String remoteFilePath, OutputStream outputStream, ChannelSftp sftp,
+                             TransferListener listener, ChecksumVerification verification) throws SftpException {
+        TransferCancellation.throwIfCancelled("download of " + remoteFilePath);
+        TransferMonitor monitor = new TransferMonitor(listener, OperationType.DOWNLOAD);
+        OperationTimer timer = OperationTimer.start(listener, OperationType.DOWNLOAD, remoteFilePath);
+        MessageDigest digest = verification.isEnabled() ? verification.getAlgorithm().newDigest() : null;
+        try {
+            // the digest stream is not closed, the caller owns the output stream
+            sftp.get(remoteFilePath, digest == null ? outputStream : new DigestOutputStream(outputStream, digest),
+                    monitor);
+            TransferCancellation.throwIfCancelled("download of " + remoteFilePath);
+            String checksum = null;
+            if (digest != null) {
+                checksum = toHex(digest.digest());
+                verifyDownload(remoteFilePath, monitor.getTransferred(), checksum, verification, sftp);
+                listener.checksumVerified(OperationType.DOWNLOAD, remoteFilePath,
+                        verification.getAlgorithm().name(), checksum);
+            }
+            timer.completed(monitor.getTransferred());
+            return checksum;
+        } catch (SftpException | RuntimeException e) {
+            timer.failed(e);
+            throw e;
+        }
+    }
+
+    private static void verifyUpload(String remoteFilePath, long transferred, String checksum,
+                                     ChecksumVerification verification, boolean sidecar, ChannelSftp sftp)
+            throws SftpException {
+        verifySize(remoteFilePath, transferred, sftp);
+        ChecksumAlgorithm algorithm = verification.getAlgorithm();
+        if (verification.isReReadRemote()) {
+            String remoteChecksum = readChecksum(remoteFilePath, algorithm, sftp);
+            if (!checksum.equals(remoteChecksum)) {
+                throw new ChecksumMismatchException(algorithm + " of remote file:" + remoteFilePath + " is "
+                        + remoteChecksum + " but " + checksum + " was uploaded");
+            }
+        }
+        if (sidecar) {
+            writeSidecar(remoteFilePath, checksum, algorithm, sftp);
+        }
+        logger.debug(algorithm + " of uploaded file:" + remoteFilePath + " is " + checksum);
+    }
+
+    private static void writeSidecar(String remoteFilePath, String checksum, ChecksumAlgorithm algorithm,
+                                     ChannelSftp sftp) throws SftpException {
+        String fileName = remoteFilePath.substring(remoteFilePath.lastIndexOf('/') + 1);
+        byte[] content = (checksum + "  " + fileName + "\n").getBytes(StandardCharsets.UTF_8);
+        sftp.put(new ByteArrayInputStream(content), remoteFilePath + algorithm.getSidecarExtension());
+    }
+
+    private static void verifyDownload(String remoteFilePath, long transferred, String checksum,
+                                       ChecksumVerification verification, ChannelSftp sftp) throws SftpException {
+        verifySize(remoteFilePath, transferred, sftp);
+        ChecksumAlgorithm algorithm = verification.getAlgorithm();
+        if (verification.isSidecar()) {
+            String expected = readSidecar(remoteFilePath + algorithm.getSidecarExtension(), sftp);
+            if (expected == null) {
+                logger.debug("No checksum file for remote file:" + remoteFilePath + ", verified its size only");
+            } else if (!checksum.equalsIgnoreCase(expected)) {
+                throw new ChecksumMismatchException(algorithm + " of downloaded file:" + remoteFilePath + " is "
+                        + checksum + " but its checksum file states " + expected);
+            }
+        }
+        logger.debug(algorithm + " of downloaded file:" + remoteFilePath + " is " + checksum);
+    }
+
+    private static void verifySize(String remoteFilePath, long transferred, ChannelSftp sftp) throws SftpException {
+        long remoteSize = sftp.stat(remoteFilePath).getSize();
+        if (remoteSize != transferred) {
+            throw new ChecksumMismatchException("Size:" + remoteSize + " of remote file:" + remoteFilePath
+                    + " does not match the " + transferred + " bytes transferred");
+        }
+    }
+
+    /**
+     * Reads the remote file back, costs network traffic but no local reads
+     */
+    private static String readChecksum(String remoteFilePath, ChecksumAlgorithm algorithm, ChannelSftp sftp)
+            throws SftpException {
+        MessageDigest digest = algorithm.newDigest();
+        byte[] buffer = new byte[SftpConstants.TRANSFER_BUFFER_SIZE];
+        try (InputStream inputStream = sftp.get(remoteFilePath)) {
+            int read;
+            while ((read = inputStream.read(buffer)) >= 0) {
+                TransferCancellation.throwIfCancelled("verification of " + remoteFilePath);
+                digest.update(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            throw new SftpException(ChannelSftp.SSH_FX_FAILURE, "Could not read back remote file:" + remoteFilePath,
+                    e);
+        }
+        return toHex(digest.digest());
+    }
+
+    /**
+     * @return the first word of the checksum file, null if there is none
+     */
+    private static String readSidecar(String sidecarPath, ChannelSftp sftp) throws SftpException {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        try {
+            sftp.get(sidecarPath, content);
+        } catch (SftpException e) {
+            if (e.id == ChannelSftp.SSH_FX_NO_SUCH_FILE) {
+                return null;
+            }
+            throw e;
+        }
+        String[] words = new String(content.toByteArray(), StandardCharsets.UTF_8).trim().split("\\s+");
+        return words[0].isEmpty() ? null : words[0];
+    }
+
+    private static boolean exists(String remotePath, ChannelSftp sftp) {
+        try {
+            return !sftp.stat(remotePath).isDir();
+        } catch (SftpException e) {
+            return false;
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0xF];
+            hex[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0xF];
+        }
+        return new String(hex);
+    }
+}
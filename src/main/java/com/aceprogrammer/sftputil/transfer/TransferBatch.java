@@ -0,0 +1,414 @@
+package com.aceprogrammer.sftputil.transfer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.aceprogrammer.sftputil.config.RetryPolicy;
+import com.aceprogrammer.sftputil.exception.ConnectionUnavailableException;
+import com.aceprogrammer.sftputil.pool.PooledConnection;
+import com.aceprogrammer.sftputil.pool.SftpConnectionPool;
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.JSchException;
+
+/**
+ * Spreads items over several pooled channels which pull from a shared bounded queue,
+ * so that a worker finishing early immediately picks up the next pending item.
+ * <p>
+ * The submitting thread always takes part in the work on its own channel. Helper workers
+ * only use connections which the pool can hand out without waiting, hence a batch
+ * never blocks on connections held by other batches. When the queue is full the
+ * submitting thread transfers the item itself, which throttles the producer.
+ * <p>
+ * While helpers hold all connections of the pool, the submitting thread does not wait for one but
+ * waits for room in the queue, and leaves the queued items to the helpers. Once the channel handed in
+ * by the caller was lost, its items are never waited for a connection either: they are left to the
+ * helpers or, without any, count as a failed attempt to be retried in the next round.
+ * <p>
+ * Items failing with a failure the {@link RetryPolicy} deems retryable are attempted again once
+ * all items were tried, after the backoff of the policy and with new helpers on connections
+ * validated by the pool. Only the final outcome of an item is reported to the listener.
+ * <p>
+ * Usage: {@link #submit(Object)} items from a single thread, then call {@link #await()}.
+ *
+ * @param <T> type of the item
+ * @author Mohammed Salman Shaikh
+ */
+public class TransferBatch<T> {
+
+    private static final long POLL_INTERVAL_MILLIS = 50L;
+
+    private final Log logger = LogFactory.getLog(this.getClass());
+
+    private final SftpConnectionPool connectionPool;
+
+    private final ExecutorService executor;
+
+    private final int helpers;
+
+    private final ChannelTask <T> task;
+
+    private final BatchListener <T> listener;
+
+    private final RetryPolicy retryPolicy;
+
+    private final BlockingQueue <Attempt <T>> queue;
+
+    /**
+     * items to be attempted again once the current round is done
+     */
+    private final Queue <Attempt <T>> retries = new ConcurrentLinkedQueue <>();
+
+    private CountDownLatch helpersDone;
+
+    /**
+     * channel handed in by the submitting thread, never released by the batch
+     */
+    private final ChannelSftp callerChannel;
+
+    /**
+     * set once the channel of the caller failed an item which is retried or got disconnected
+     */
+    private boolean callerChannelRetired;
+
+    /**
+     * connection borrowed for the submitting thread when no channel was handed in
+     */
+    private PooledConnection callerConnection;
+
+    /**
+     * cancellation flag of the submitting thread, installed in the helpers as well
+     */
+    private final AtomicBoolean cancellation;
+
+    /**
+     * bandwidth limiter of the submitting thread, installed in the helpers as well
+     */
+    private final BandwidthLimiter throttle;
+
+    private volatile boolean finished;
+
+    /**
+     * @param connectionPool pool from which the workers borrow their channels
+     * @param executor       runs the helper workers
+     * @param workers        total number of workers including the submitting thread
+     * @param queueCapacity  maximum number of items waiting to be picked up
+     * @param task           transfer performed per item
+     * @param listener       receives the outcome of every item
+     */
+    public TransferBatch(SftpConnectionPool connectionPool, ExecutorService executor, int workers,
+                         int queueCapacity, ChannelTask <T> task, BatchListener <T> listener) {
+        this(connectionPool, executor, workers, queueCapacity, task, listener, null);
+    }
+
+    /**
+     * Use this constructor when the submitting thread already holds a channel, e.g. a worker
+     * of another batch splitting up its item. The channel is used but never released by the batch.
+     *
+     * @param callerChannel channel used by the submitting thread, null to borrow one when needed
+     */
+    public TransferBatch(SftpConnectionPool connectionPool, ExecutorService executor, int workers,
+                         int queueCapacity, ChannelTask <T> task, BatchListener <T> listener,
+                         ChannelSftp callerChannel) {
+        this(connectionPool, executor, workers, queueCapacity, task, listener, callerChannel, RetryPolicy.NONE);
+    }
+
+    /**
+     * @param retryPolicy decides which failed items are attempted again and when
+     */
+    public TransferBatch(SftpConnectionPool connectionPool, ExecutorService executor, int workers,
+                         int queueCapacity, ChannelTask <T> task, BatchListener <T> listener,
+                         ChannelSftp callerChannel, RetryPolicy retryPolicy) {
+        this.callerChannel = callerChannel;
+        this.cancellation = TransferCancellation.current();
+        this.throttle = TransferThrottle.current();
+        this.connectionPool = connectionPool;
+        this.executor = executor;
+        this.helpers = Math.max(0, workers - 1);
+        this.task = task;
+        this.listener = listener;
+        this.retryPolicy = retryPolicy;
+        this.queue = new LinkedBlockingQueue <>(Math.max(1, queueCapacity));
+        startHelpers();
+    }
+
+    /**
+     * Queues the item for the workers or transfers it directly when the queue is full
+     *
+     * @throws JSchException if the submitting thread needs a channel and none could be borrowed
+     */
+    public void submit(T item) throws JSchException {
+        enqueue(new Attempt <>(item, 1));
+    }
+
+    /**
+     * Transfers the items still queued, waits for the helper workers to finish and
+     * attempts the retryable failures again as per the retry policy
+     *
+     * @throws JSchException if the submitting thread needs a channel and none could be borrowed
+     */
+    public void await() throws JSchException {
+        awaitRound();
+        while (!retries.isEmpty()) {
+            List <Attempt <T>> attempts = new ArrayList <>(retries);
+            retries.clear();
+            int failedAttempt = attempts.get(0).number - 1;
+            if (!backoff(failedAttempt)) {
+                for (Attempt <T> attempt : attempts) {
+                    listener.onFailure(attempt.item, attempt.previousFailure);
+                }
+                return;
+            }
+            logger.info("Retrying " + attempts.size() + " failed items, attempt " + (failedAttempt + 1) + " of "
+                    + retryPolicy.getMaxAttempts());
+            startHelpers();
+            for (Attempt <T> attempt : attempts) {
+                enqueue(attempt);
+            }
+            awaitRound();
+        }
+    }
+
+    private void startHelpers() {
+        finished = false;
+        CountDownLatch done = new CountDownLatch(helpers);
+        helpersDone = done;
+        for (int i = 0; i < helpers; i++) {
+            executor.execute(() -> runHelper(done));
+        }
+    }
+
+    private void enqueue(Attempt <T> attempt) throws JSchException {
+        if (helpersDone.getCount() > 0 && queue.offer(attempt)) {
+            return;
+        }
+        // the helpers may hold every connection of the pool, waiting for one of them would never end
+        while (!acquireCallerChannel() && helpersDone.getCount() > 0) {
+            try {
+                if (queue.offer(attempt, POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new JSchException("Interrupted while waiting to queue a transfer", e);
+            }
+        }
+        runInline(attempt);
+    }
+
+    private void awaitRound() throws JSchException {
+        try {
+            // without a channel of its own the submitting thread leaves the queue to the helpers
+            while (!queue.isEmpty() && (acquireCallerChannel() || helpersDone.getCount() == 0)) {
+                Attempt <T> attempt = queue.poll();
+                if (attempt != null) {
+                    runInline(attempt);
+                }
+            }
+        } finally {
+            finished = true;
+            connectionPool.release(callerConnection);
+            callerConnection = null;
+        }
+        try {
+            helpersDone.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JSchException("Interrupted while waiting for transfers to complete", e);
+        }
+        // left behind by helpers which lost their connection, the pool is free of this batch by now
+        try {
+            Attempt <T> attempt;
+            while ((attempt = queue.poll()) != null) {
+                runInline(attempt);
+            }
+        } finally {
+            connectionPool.release(callerConnection);
+            callerConnection = null;
+        }
+    }
+
+    /**
+     * @return true if the submitting thread has a usable channel, borrowing one only if available without waiting
+     */
+    private boolean acquireCallerChannel() {
+        if (callerChannel != null && !callerChannelRetired && isConnected(callerChannel)) {
+            return true;
+        }
+        if (callerConnection == null) {
+            callerConnection = connectionPool.tryBorrow();
+        }
+        return callerConnection != null;
+    }
+
+    /**
+     * @return false if the batch was cancelled or interrupted while waiting
+     */
+    private boolean backoff(int failedAttempt) {
+        long deadline = System.currentTimeMillis() + retryPolicy.getBackoffMillis(failedAttempt);
+        long remaining;
+        while ((remaining = deadline - System.currentTimeMillis()) > 0) {
+            if (cancellation != null && cancellation.get()) {
+                return false;
+            }
+            try {
+                Thread.sleep(Math.min(remaining, POLL_INTERVAL_MILLIS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return cancellation == null || !cancellation.get();
+    }
+
+    private void runInline(Attempt <T> attempt) throws JSchException {
+        // a channel of the caller which is no more trusted is replaced by a pooled one
+        if (callerChannel != null && !callerChannelRetired && isConnected(callerChannel)) {
+            callerChannelRetired = !process(attempt, callerChannel);
+            return;
+        }
+        if (callerConnection == null) {
+            callerConnection = connectionPool.tryBorrow();
+        }
+        if (callerConnection == null) {
+            if (handOverToHelpers(attempt)) {
+                return;
+            }
+            if (callerChannel != null) {
+                // the caller still holds the connection of its lost channel, possibly the only one of the pool
+                postpone(attempt, new ConnectionUnavailableException("No sftp connection to spare after the "
+                        + "channel of the caller was lost"));
+                return;
+            }
+            // no connection is held by this batch, so the wait ends once other users release theirs
+            callerConnection = connectionPool.borrow();
+        }
+        if (!process(attempt, callerConnection.getChannel())) {
+            connectionPool.invalidate(callerConnection);
+            callerConnection = null;
+        }
+    }
+
+    /**
+     * @return false if no helper is left to take the item
+     */
+    private boolean handOverToHelpers(Attempt <T> attempt) throws JSchException {
+        try {
+            while (helpersDone.getCount() > 0) {
+                if (queue.offer(attempt, POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            }
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JSchException("Interrupted while waiting to queue a transfer", e);
+        }
+    }
+
+    /**
+     * Counts the attempt as failed, so that the item is attempted again in the next round if the policy allows
+     */
+    private void postpone(Attempt <T> attempt, Exception failure) {
+        if (attempt.number < retryPolicy.getMaxAttempts() && !TransferCancellation.isCancelled()) {
+            logger.warn("Attempt " + attempt.number + " of item postponed, to be retried: " + failure);
+            retries.add(new Attempt <>(attempt.item, attempt.number + 1, failure));
+        } else {
+            listener.onFailure(attempt.item, failure);
+        }
+    }
+
+    private void runHelper(CountDownLatch done) {
+        AtomicBoolean previous = TransferCancellation.install(cancellation);
+        BandwidthLimiter previousThrottle = TransferThrottle.install(throttle);
+        PooledConnection connection = connectionPool.tryBorrow();
+        try {
+            while (connection != null) {
+                Attempt <T> attempt = queue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (attempt == null) {
+                    if (finished) {
+                        break;
+                    }
+                } else if (!process(attempt, connection.getChannel())) {
+                    connectionPool.invalidate(connection);
+                    connection = connectionPool.tryBorrow();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            connectionPool.release(connection);
+            TransferThrottle.restore(previousThrottle);
+            TransferCancellation.restore(previous);
+            done.countDown();
+        }
+    }
+
+    /**
+     * A failure which left the channel disconnected is always retryable, since jsch reports a
+     * dropped channel in many ways, e.g. as a closed input stream.
+     *
+     * @return false if the channel got disconnected or failed an item to be retried, so that
+     * it is not used anymore and the retry runs on a fresh or validated channel
+     */
+    private boolean process(Attempt <T> attempt, ChannelSftp sftp) {
+        try {
+            TransferCancellation.throwIfCancelled("transfer batch");
+            task.execute(attempt.item, sftp);
+            listener.onSuccess(attempt.item);
+            return true;
+        } catch (Exception e) {
+            boolean connected = isConnected(sftp);
+            if (!connected) {
+                logger.warn("Sftp channel got disconnected during transfer, replacing it");
+            }
+            if (attempt.number < retryPolicy.getMaxAttempts() && (!connected || retryPolicy.isRetryable(e))
+                    && !TransferCancellation.isCancelled()) {
+                logger.warn("Attempt " + attempt.number + " of item failed, to be retried: " + e);
+                retries.add(new Attempt <>(attempt.item, attempt.number + 1, e));
+                return false;
+            }
+            listener.onFailure(attempt.item, e);
+            return connected;
+        }
+    }
+
+    private boolean isConnected(ChannelSftp sftp) {
+        return sftp.isConnected() && !sftp.isClosed();
+    }
+
+    /**
+     * An item along with the number of the attempt to transfer it
+     */
+    private static class Attempt<T> {
+
+        private final T item;
+
+        private final int number;
+
+        /**
+         * failure of the attempt before, null for the first attempt
+         */
+        private final Exception previousFailure;
+
+        private Attempt(T item, int number) {
+            this(item, number, null);
+        }
+
+        private Attempt(T item, int number, Exception previousFailure) {
+            this.item = item;
+            this.number = number;
+            this.previousFailure = previousFailure;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.aceprogrammer.sftputil.transfer;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Cooperative cancellation of the transfers performed by the current thread.
+ * <p>
+ * Interrupting a thread inside jsch would leave unread responses on the channel, which
+ * must then never be reused. Instead a cancellation flag is installed for the thread and
+ * checked by {@link TransferMonitor} on every chunk, which makes jsch stop the transfer and
+ * close the remote handle properly, leaving the channel fit for the pool.
+ *
+ * @author Mohammed Salman Shaikh
+ */
+public final class TransferCancellation {
+
+    private static final ThreadLocal <AtomicBoolean> CURRENT = new ThreadLocal <>();
+
+    private TransferCancellation() {
+    }
+
+    /**
+     * @return the flag of the current thread, null if the thread cannot be cancelled
+     */
+    public static AtomicBoolean current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * @param flag flag to be installed for the current thread, null to remove it
+     * @return the previously installed flag, to be given to {@link #restore(AtomicBoolean)}
+     */
+    public static AtomicBoolean install(AtomicBoolean flag) {
+        AtomicBoolean previous = CURRENT.get();
+        restore(flag);
+        return previous;
+    }
+
+    public static void restore(AtomicBoolean previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    public static boolean isCancelled() {
+        AtomicBoolean flag = CURRENT.get();
+        return flag != null && flag.get();
+    }
+
+    /**
+     * Jsch returns normally from an aborted transfer, hence callers check the flag afterwards
+     *
+     * @throws CancellationException if the transfers of the current thread were cancelled
+     */
+    public static void throwIfCancelled(String description) {
+        if (isCancelled()) {
+            throw new CancellationException("Cancelled " + description);
+        }
+    }
+}
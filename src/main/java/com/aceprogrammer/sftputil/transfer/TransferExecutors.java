@@ -0,0 +1,48 @@
+package com.aceprogrammer.sftputil.transfer;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Executors for running sftp operations asynchronously
+ *
+ * @author Mohammed Salman Shaikh
+ */
+public final class TransferExecutors {
+
+    private static final Log logger = LogFactory.getLog(TransferExecutors.class);
+
+    private TransferExecutors() {
+    }
+
+    /**
+     * @return an executor starting a virtual thread per task, null if the running jdk has no virtual threads
+     */
+    public static ExecutorService newVirtualThreadExecutor() {
+        try {
+            // looked up reflectively since the library is compiled for java 8
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            logger.debug("Virtual threads are not available on this jdk");
+            return null;
+        }
+    }
+
+    /**
+     * @param threads number of platform threads if virtual threads are not available
+     * @param name    used in the names of the platform threads
+     * @return virtual thread per task executor on newer jdks, else a fixed pool of daemon threads
+     */
+    public static ExecutorService newVirtualOrFixedThreadExecutor(int threads, String name) {
+        ExecutorService executor = newVirtualThreadExecutor();
+        if (executor != null) {
+            return executor;
+        }
+        return Executors.newFixedThreadPool(threads, new TransferThreadFactory(name));
+    }
+}
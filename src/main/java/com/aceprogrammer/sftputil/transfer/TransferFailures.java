@@ -0,0 +1,70 @@
+package com.aceprogrammer.sftputil.transfer;
+
+import java.io.EOFException;
+import java.io.InterruptedIOException;
+import java.net.SocketException;
+import java.net.UnknownHostException;
+import java.util.concurrent.CancellationException;
+
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.SftpException;
+
+/**
+ * Tells transient failures, which may succeed when attempted again on a working channel,
+ * from fatal ones which fail the same way every time.
+ *
+ * @author Mohammed Salman Shaikh
+ */
+public final class TransferFailures {
+
+    /**
+     * messages of jsch for failures of authentication and host key verification
+     */
+    private static final String[] FATAL_JSCH_MESSAGES = {"Auth fail", "Auth cancel", "UnknownHostKey",
+            "HostKey has been changed", "reject HostKey", "invalid privatekey", "Algorithm negotiation fail"};
+
+    private TransferFailures() {
+    }
+
+    /**
+     * Transient are lost or broken connections, timeouts and failures of the session or channel
+     * set up. Fatal are missing files, denied permissions, unsupported operations, failed
+     * authentication, unknown hosts, local file errors and cancellation.
+     */
+    public static boolean isTransient(Throwable failure) {
+        if (failure == null || failure instanceof CancellationException) {
+            return false;
+        }
+        if (failure instanceof SftpException) {
+            int id = ((SftpException) failure).id;
+            if (id == ChannelSftp.SSH_FX_NO_CONNECTION || id == ChannelSftp.SSH_FX_CONNECTION_LOST) {
+                return true;
+            }
+            // jsch reports broken pipes and dropped channels as a generic failure with the cause attached
+            return id == ChannelSftp.SSH_FX_FAILURE && failure.getCause() != null
+                    && isTransient(failure.getCause());
+        }
+        if (failure instanceof JSchException) {
+            if (failure.getCause() != null) {
+                return isTransient(failure.getCause());
+            }
+            String message = String.valueOf(failure.getMessage());
+            for (String fatalMessage : FATAL_JSCH_MESSAGES) {
+                if (message.contains(fatalMessage)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (failure instanceof UnknownHostException) {
+            return false;
+        }
+        if (failure instanceof SocketException || failure instanceof EOFException
+                || failure instanceof InterruptedIOException) {
+            return true;
+        }
+        // e.g. a failed segment wrapped by the segmented download
+        return failure.getCause() != null && failure.getCause() != failure && isTransient(failure.getCause());
+    }
+}
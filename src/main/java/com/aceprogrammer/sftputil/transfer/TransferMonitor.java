@@ -0,0 +1,54 @@
+package com.aceprogrammer.sftputil.transfer;
+
+import com.aceprogrammer.sftputil.metrics.OperationType;
+import com.aceprogrammer.sftputil.metrics.TransferListener;
+import com.jcraft.jsch.SftpProgressMonitor;
+
+/**
+ * Progress monitor handed to jsch for every upload and download. Counts the bytes of the
+ * transfer, reports them to the {@link TransferListener}, holds the transfer back to the
+ * bandwidth of the current thread, see {@link TransferThrottle}, and aborts the transfer once
+ * the transfers of the current thread are cancelled, see {@link TransferCancellation}.
+ * <p>
+ * A monitor belongs to a single transfer and is not thread safe.
+ *
+ * @author Mohammed Salman Shaikh
+ */
+public class TransferMonitor implements SftpProgressMonitor {
+
+    private final TransferListener listener;
+
+    private final OperationType type;
+
+    private long transferred;
+
+    public TransferMonitor(TransferListener listener, OperationType type) {
+        this.listener = listener;
+        this.type = type;
+    }
+
+    @Override
+    public void init(int op, String src, String dest, long max) {
+        // nothing to prepare
+    }
+
+    @Override
+    public boolean count(long count) {
+        transferred += count;
+        listener.bytesTransferred(type, count);
+        TransferThrottle.acquire(count);
+        return !TransferCancellation.isCancelled();
+    }
+
+    @Override
+    public void end() {
+        // nothing to clean up
+    }
+
+    /**
+     * @return bytes sent or received through this monitor
+     */
+    public long getTransferred() {
+        return transferred;
+    }
+}
@@ -0,0 +1,28 @@
+package com.aceprogrammer.sftputil.transfer;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates named daemon threads for the workers of parallel transfers
+ * so that an unclosed service never keeps the jvm alive
+ *
+ * @author Mohammed Salman Shaikh
+ */
+public class TransferThreadFactory implements ThreadFactory {
+
+    private final AtomicInteger counter = new AtomicInteger();
+
+    private final String prefix;
+
+    public TransferThreadFactory(String host) {
+        this.prefix = "sftp-transfer-" + host + "-";
+    }
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    }
+}
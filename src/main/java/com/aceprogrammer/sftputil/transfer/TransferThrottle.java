@@ -0,0 +1,52 @@
+package com.aceprogrammer.sftputil.transfer;
+
+/**
+ * Bandwidth limit of the transfers performed by the current thread. Like
+ * {@link TransferCancellation} the limiter is installed for the thread running an operation and
+ * handed on to the helper workers of its batches, {@link TransferMonitor} then waits for the
+ * limiter on every chunk.
+ *
+ * @author Mohammed Salman Shaikh
+ */
+public final class TransferThrottle {
+
+    private static final ThreadLocal <BandwidthLimiter> CURRENT = new ThreadLocal <>();
+
+    private TransferThrottle() {
+    }
+
+    /**
+     * @return the limiter of the current thread, null if its transfers are not limited
+     */
+    public static BandwidthLimiter current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * @param limiter limiter to be installed for the current thread, null to remove it
+     * @return the previously installed limiter, to be given to {@link #restore(BandwidthLimiter)}
+     */
+    public static BandwidthLimiter install(BandwidthLimiter limiter) {
+        BandwidthLimiter previous = CURRENT.get();
+        restore(limiter);
+        return previous;
+    }
+
+    public static void restore(BandwidthLimiter previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * Waits until the bytes may pass the limiter of the current thread, if any
+     */
+    public static void acquire(long bytes) {
+        BandwidthLimiter limiter = CURRENT.get();
+        if (limiter != null) {
+            limiter.acquire(bytes);
+        }
+    }
+}
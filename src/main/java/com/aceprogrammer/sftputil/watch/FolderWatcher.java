@@ -0,0 +1,403 @@
+package com.aceprogrammer.sftputil.watch;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.aceprogrammer.sftputil.config.WatchConfig;
+import com.aceprogrammer.sftputil.constants.FileTransferResults;
+import com.aceprogrammer.sftputil.service.SftpService;
+import com.aceprogrammer.sftputil.transfer.TransferThreadFactory;
+
+import lombok.EqualsAndHashCode;
+
+/**
+ * Uploads files as soon as they arrive in watched local folders.
+ * <p>
+ * Events of the {@link WatchService} only mark a file as a candidate. A candidate is complete once
+ * its size and modification time stayed the same for {@link WatchConfig#getStabilityMillis()}, which
+ * keeps files still being written from being uploaded half. Complete files are collected until
+ * no further file arrived for the quiet period, or the oldest waited for the maximum batch delay,
+ * and are then uploaded by a single call to {@link SftpService#uploadMultipleFiles(Map)}, which
+ * uses the pooled connections and the parallelism of the service. Files completing while a batch
+ * is uploading go into the next batch.
+ * <p>
+ * Sub folders are not watched. A file changing again after its upload is uploaded again. When
+ * events of a folder were lost, every file of it which was not uploaded with its current size and
+ * modification time becomes a candidate.
+ *
+ * @author Mohammed Salman Shaikh
+ */
+public class FolderWatcher implements Closeable {
+
+    private static final long POLL_INTERVAL_MILLIS = 50L;
+
+    private final Log logger = LogFactory.getLog(this.getClass());
+
+    private final SftpService sftpService;
+
+    private final WatchConfig watchConfig;
+
+    private final WatchListener listener;
+
+    private final WatchService watchService;
+
+    private final PathMatcher matcher;
+
+    private final Map <WatchKey, Folder> folders = new ConcurrentHashMap <>();
+
+    /**
+     * files which changed and were not uploaded yet
+     */
+    private final Map <Path, Candidate> candidates = new ConcurrentHashMap <>();
+
+    /**
+     * size and modification time of files when last uploaded, or when found by {@link #watch} without
+     * uploading existing files
+     */
+    private final Map <Path, FileVersion> uploadedVersions = new ConcurrentHashMap <>();
+
+    private final ExecutorService uploader;
+
+    private final AtomicBoolean uploading = new AtomicBoolean();
+
+    private final Thread watcherThread;
+
+    private volatile boolean closed;
+
+    /**
+     * time of the last event of any watched file
+     */
+    private volatile long lastArrival;
+
+    /**
+     * @param sftpService initialized service performing the uploads, left running on {@link #close()}
+     * @param watchConfig timings and batching of the watcher
+     * @param listener    receives the outcome of every upload
+     * @throws IOException if the watch service of the file system could not be created
+     */
+    public FolderWatcher(SftpService sftpService, WatchConfig watchConfig, WatchListener listener)
+            throws IOException {
+        if (watchConfig.getStabilityMillis() < 0 || watchConfig.getQuietPeriodMillis() < 0
+                || watchConfig.getMaxBatchDelayMillis() < 0 || watchConfig.getMaxBatchSize() < 1) {
+            throw new IllegalArgumentException("Timings must not be negative and batch size must be at least 1. "
+                    + "Rejected object:" + watchConfig);
+        }
+        this.sftpService = sftpService;
+        this.watchConfig = watchConfig;
+        this.listener = listener;
+        this.matcher = FileSystems.getDefault().getPathMatcher("glob:" + watchConfig.getGlob());
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.uploader = Executors.newSingleThreadExecutor(new TransferThreadFactory("watch-upload"));
+        this.watcherThread = new TransferThreadFactory("watch").newThread(this::run);
+    }
+
+    /**
+     * Starts watching the folder, may be called before or after {@link #start()}
+     *
+     * @param localDirectory   local folder whose new and changed files are uploaded
+     * @param destRelativePath remote folder relative to the home directory, created if missing
+     * @throws IOException if the folder does not exist or could not be watched
+     */
+    public void watch(String localDirectory, String destRelativePath) throws IOException {
+        Path directory = Paths.get(localDirectory).toAbsolutePath();
+        if (!Files.isDirectory(directory)) {
+            throw new NotDirectoryException(directory.toString());
+        }
+        Folder folder = new Folder(directory, destRelativePath);
+        WatchKey key = directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        folders.put(key, folder);
+        logger.info("Watching local folder:" + directory + " for uploads to: " + destRelativePath);
+        scan(folder, watchConfig.isUploadExisting());
+    }
+
+    /**
+     * Starts detecting and uploading files
+     */
+    public void start() {
+        watcherThread.start();
+    }
+
+    /**
+     * Stops watching. A batch which is uploading completes in the background, files not yet
+     * uploaded are dropped.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        watchService.close();
+        uploader.shutdown();
+    }
+
+    private void run() {
+        try {
+            while (!closed) {
+                WatchKey key = watchService.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                while (key != null) {
+                    handleEvents(key);
+                    key = watchService.poll();
+                }
+                checkCandidates();
+            }
+        } catch (ClosedWatchServiceException e) {
+            logger.debug("Watch service closed");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void handleEvents(WatchKey key) {
+        Folder folder = folders.get(key);
+        if (folder == null) {
+            key.cancel();
+            return;
+        }
+        for (WatchEvent <?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                logger.warn("Events of local folder:" + folder.directory + " were lost, rescanning it");
+                scan(folder, true);
+                continue;
+            }
+            Path file = folder.directory.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                candidates.remove(file);
+                uploadedVersions.remove(file);
+            } else {
+                addCandidate(folder, file);
+            }
+        }
+        if (!key.reset()) {
+            folders.remove(key);
+            logger.error("Local folder:" + folder.directory + " is no longer accessible, stopped watching it");
+            listener.error(folder.directory.toString(),
+                    new IOException("Local folder:" + folder.directory + " is no longer accessible"));
+        }
+    }
+
+    /**
+     * @param upload true to pick up the files not uploaded in their current version, false to take
+     *               the current version of all files as uploaded
+     */
+    private void scan(Folder folder, boolean upload) {
+        Set <Path> existing = new HashSet <>();
+        try (DirectoryStream <Path> files = Files.newDirectoryStream(folder.directory)) {
+            for (Path file : files) {
+                BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                } catch (IOException e) {
+                    // deleted while scanning
+                    continue;
+                }
+                if (!attributes.isRegularFile()) {
+                    continue;
+                }
+                existing.add(file);
+                FileVersion version = new FileVersion(attributes.size(), attributes.lastModifiedTime().toMillis());
+                if (!upload) {
+                    uploadedVersions.put(file, version);
+                } else if (!version.equals(uploadedVersions.get(file))) {
+                    addCandidate(folder, file);
+                }
+            }
+            // deleted while their events were lost
+            uploadedVersions.keySet().removeIf(file -> folder.directory.equals(file.getParent())
+                    && !existing.contains(file));
+        } catch (IOException e) {
+            logger.error("Could not scan local folder:" + folder.directory, e);
+            listener.error(folder.directory.toString(), e);
+        }
+    }
+
+    private void addCandidate(Folder folder, Path file) {
+        Path fileName = file.getFileName();
+        if (fileName.toString().startsWith(".") || !matcher.matches(fileName)) {
+            return;
+        }
+        lastArrival = now();
+        candidates.computeIfAbsent(file, path -> new Candidate(folder));
+    }
+
+    /**
+     * Marks candidates complete once stable and hands them to the uploader when the batch is due
+     */
+    private void checkCandidates() {
+        long now = now();
+        List <Map.Entry <Path, Candidate>> complete = new ArrayList <>();
+        long oldestComplete = Long.MAX_VALUE;
+        for (Iterator <Map.Entry <Path, Candidate>> it = candidates.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry <Path, Candidate> entry = it.next();
+            Candidate candidate = entry.getValue();
+            BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(entry.getKey(), BasicFileAttributes.class);
+            } catch (IOException e) {
+                // deleted or renamed before its delete event arrived
+                it.remove();
+                continue;
+            }
+            if (!attributes.isRegularFile()) {
+                it.remove();
+                continue;
+            }
+            long modified = attributes.lastModifiedTime().toMillis();
+            if (attributes.size() != candidate.size || modified != candidate.modified) {
+                candidate.size = attributes.size();
+                candidate.modified = modified;
+                candidate.stableSince = now;
+                candidate.completeSince = -1;
+            } else if (now - candidate.stableSince >= watchConfig.getStabilityMillis()) {
+                if (candidate.completeSince < 0) {
+                    candidate.completeSince = now;
+                }
+                oldestComplete = Math.min(oldestComplete, candidate.completeSince);
+                complete.add(entry);
+            }
+        }
+        if (complete.isEmpty() || uploading.get()) {
+            return;
+        }
+        if (now - lastArrival >= watchConfig.getQuietPeriodMillis()
+                || now - oldestComplete >= watchConfig.getMaxBatchDelayMillis()
+                || complete.size() >= watchConfig.getMaxBatchSize()) {
+            dispatch(complete);
+        }
+    }
+
+    private void dispatch(List <Map.Entry <Path, Candidate>> complete) {
+        // files left over by a full batch go first into the next one
+        complete.sort(Comparator.comparingLong(entry -> entry.getValue().completeSince));
+        Map <String, List <String>> batch = new LinkedHashMap <>();
+        Map <String, FileVersion> versions = new HashMap <>();
+        for (Map.Entry <Path, Candidate> entry : complete.subList(0,
+                Math.min(complete.size(), watchConfig.getMaxBatchSize()))) {
+            Candidate candidate = entry.getValue();
+            // a file changing during the upload gets a new candidate and is uploaded again
+            candidates.remove(entry.getKey(), candidate);
+            batch.computeIfAbsent(candidate.folder.destRelativePath, dest -> new ArrayList <>())
+                    .add(entry.getKey().toString());
+            versions.put(entry.getKey().toString(), new FileVersion(candidate.size, candidate.modified));
+        }
+        uploading.set(true);
+        uploader.execute(() -> upload(batch, versions));
+    }
+
+    /**
+     * @param versions per local file path the version which is uploaded
+     */
+    private void upload(Map <String, List <String>> batch, Map <String, FileVersion> versions) {
+        try {
+            Map <String, Map <String, List <String>>> results = sftpService.uploadMultipleFiles(batch);
+            for (Map.Entry <String, List <String>> entry : batch.entrySet()) {
+                String destRelativePath = entry.getKey();
+                Map <String, List <String>> status = results.get(destRelativePath);
+                List <String> uploadedFiles = status == null ? null : status.get(FileTransferResults.SUCCESS);
+                Set <String> uploaded = uploadedFiles == null ? Collections.emptySet() : new HashSet <>(uploadedFiles);
+                for (String localFilePath : entry.getValue()) {
+                    if (uploaded.contains(localFilePath)) {
+                        uploadedVersions.put(Paths.get(localFilePath), versions.get(localFilePath));
+                        listener.uploaded(localFilePath, destRelativePath);
+                    } else {
+                        listener.failed(localFilePath, destRelativePath);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Upload of watched files failed", e);
+            for (Map.Entry <String, List <String>> entry : batch.entrySet()) {
+                for (String localFilePath : entry.getValue()) {
+                    listener.failed(localFilePath, entry.getKey());
+                }
+            }
+        } finally {
+            uploading.set(false);
+        }
+    }
+
+    private static long now() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    /**
+     * A watched local folder and the remote folder its files are uploaded to
+     */
+    private static class Folder {
+
+        private final Path directory;
+
+        private final String destRelativePath;
+
+        private Folder(Path directory, String destRelativePath) {
+            this.directory = directory;
+            this.destRelativePath = destRelativePath;
+        }
+    }
+
+    /**
+     * A changed file waiting to become stable
+     */
+    private static class Candidate {
+
+        private final Folder folder;
+
+        private long size = -1;
+
+        private long modified = -1;
+
+        private long stableSince;
+
+        private long completeSince = -1;
+
+        private Candidate(Folder folder) {
+            this.folder = folder;
+        }
+    }
+
+    /**
+     * Size and modification time telling whether a file changed since its upload
+     */
+    @EqualsAndHashCode
+    private static class FileVersion {
+
+        private final long size;
+
+        private final long modified;
+
+        private FileVersion(long size, long modified) {
+            this.size = size;
+            this.modified = modified;
+        }
+
+    }
+}
@@ -0,0 +1,31 @@
+package com.aceprogrammer.sftputil.watch;
+
+/**
+ * Receives the outcome of the downloads of a {@link RemotePoller}. Methods are called on the
+ * polling thread and must not block. All methods do nothing by default.
+ *
+ * @author Mohammed Salman Shaikh
+ */
+public interface PollListener {
+
+    /**
+     * Listener ignoring all events
+     */
+    PollListener NOOP = new PollListener() {
+    };
+
+    /**
+     * @param remoteFilePath absolute remote path the file was downloaded from, before it was moved
+     * @param localFilePath  path of the downloaded file
+     */
+    default void downloaded(String remoteFilePath, String localFilePath) {
+    }
+
+    /**
+     * A file which failed to download is attempted again at the next poll
+     *
+     * @param remotePath absolute remote path of the file, or of the folder if the poll itself failed
+     */
+    default void failed(String remotePath, Exception e) {
+    }
+}
@@ -0,0 +1,267 @@
+package com.aceprogrammer.sftputil.watch;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.aceprogrammer.sftputil.config.PollConfig;
+import com.aceprogrammer.sftputil.config.SftpConfig;
+import com.aceprogrammer.sftputil.constants.FileTransferResults;
+import com.aceprogrammer.sftputil.constants.SftpConstants;
+import com.aceprogrammer.sftputil.pool.PooledConnection;
+import com.aceprogrammer.sftputil.pool.SftpConnectionPool;
+import com.aceprogrammer.sftputil.transfer.BatchMover;
+import com.aceprogrammer.sftputil.transfer.LocalFiles;
+import com.aceprogrammer.sftputil.transfer.SftpTransfers;
+import com.aceprogrammer.sftputil.transfer.TransferCancellation;
+import com.aceprogrammer.sftputil.transfer.TransferThreadFactory;
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.SftpATTRS;
+import com.jcraft.jsch.SftpException;
+
+/**
+ * Picks up files arriving in a remote folder by listing it periodically.
+ * <p>
+ * The name, size and modification time of every listed file are kept as a snapshot and each
+ * listing is compared with the previous one. A file is downloaded once it was listed unchanged
+ * {@link PollConfig#getStableListings()} times in a row, so files still being written by the
+ * sender are skipped until complete. Files already downloaded are not downloaded again unless
+ * they change, hence a poll costs a single listing when nothing arrived.
+ * <p>
+ * A poll lists, downloads and optionally moves the files to the processed folder over one pooled
+ * channel. Files are downloaded under a hidden temporary name and renamed locally when complete.
+ * The snapshot lives in memory only, files still in place after a restart are downloaded again.
+ *
+ * @author Mohammed Salman Shaikh
+ */
+public class RemotePoller implements Closeable {
+
+    private final Log logger = LogFactory.getLog(this.getClass());
+
+    private final SftpConnectionPool connectionPool;
+
+    private final BatchMover batchMover;
+
+    private final LocalFiles localFiles;
+
+    private final SftpConfig sftpConfig;
+
+    private final String remoteFolder;
+
+    private final String processedFolder;
+
+    private final Path localDirectory;
+
+    private final PollConfig pollConfig;
+
+    private final PollListener listener;
+
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * aborts the transfer of a running poll on close
+     */
+    private final AtomicBoolean cancellation = new AtomicBoolean();
+
+    /**
+     * files of the previous listing by name, accessed by the polling thread only
+     */
+    private Map <String, Snapshot> snapshots;
+
+    /**
+     * @param remoteFolder    absolute path of the remote folder to be polled
+     * @param processedFolder absolute path of the existing folder into which downloaded files are moved,
+     *                        null to leave them in place
+     * @param localDirectory  existing local folder into which the files are downloaded
+     */
+    public RemotePoller(SftpConnectionPool connectionPool, BatchMover batchMover, LocalFiles localFiles,
+                        SftpConfig sftpConfig, String remoteFolder, String processedFolder, Path localDirectory,
+                        PollConfig pollConfig, PollListener listener) {
+        if (pollConfig.getPollIntervalMillis() < 1 || pollConfig.getStableListings() < 1) {
+            throw new IllegalArgumentException("Poll interval and stable listings must be at least 1. "
+                    + "Rejected object:" + pollConfig);
+        }
+        this.connectionPool = connectionPool;
+        this.batchMover = batchMover;
+        this.localFiles = localFiles;
+        this.sftpConfig = sftpConfig;
+        this.remoteFolder = remoteFolder;
+        this.processedFolder = processedFolder;
+        this.localDirectory = localDirectory;
+        this.pollConfig = pollConfig;
+        this.listener = listener;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new TransferThreadFactory("poll"));
+    }
+
+    /**
+     * Polls at once and then every poll interval
+     */
+    public void start() {
+        logger.info("Polling remote folder:" + remoteFolder + " every " + pollConfig.getPollIntervalMillis()
+                + "ms for downloads to: " + localDirectory);
+        scheduler.scheduleWithFixedDelay(this::poll, 0, pollConfig.getPollIntervalMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops polling, a download in progress is aborted and attempted again by the next poller
+     */
+    @Override
+    public void close() {
+        cancellation.set(true);
+        scheduler.shutdown();
+    }
+
+    private void poll() {
+        AtomicBoolean previous = TransferCancellation.install(cancellation);
+        PooledConnection connection = null;
+        try {
+            connection = connectionPool.borrow();
+            ChannelSftp sftp = connection.getChannel();
+            List <String> downloaded = new ArrayList <>();
+            for (Map.Entry <String, SftpATTRS> file : diff(list(sftp)).entrySet()) {
+                if (download(file.getKey(), file.getValue(), sftp)) {
+                    downloaded.add(getRemoteFilePath(file.getKey()));
+                }
+            }
+            if (processedFolder != null && !downloaded.isEmpty()) {
+                Map <String, List <String>> moveStatus = batchMover.move(downloaded, processedFolder, true, sftp);
+                for (String remoteFilePath : moveStatus.get(FileTransferResults.FAILURE)) {
+                    logger.error("Could not move downloaded file:" + remoteFilePath + " to: " + processedFolder);
+                }
+            }
+        } catch (Exception e) {
+            // a failing scheduled task would end the polling
+            if (!cancellation.get()) {
+                logger.error("Poll of remote folder:" + remoteFolder + " failed", e);
+                listener.failed(remoteFolder, e);
+            }
+        } finally {
+            connectionPool.release(connection);
+            TransferCancellation.restore(previous);
+        }
+    }
+
+    /**
+     * @return the files accepted by the filter, directories and links are skipped whatever the filter accepts
+     */
+    private Map <String, SftpATTRS> list(ChannelSftp sftp) throws SftpException {
+        Map <String, SftpATTRS> files = new HashMap <>();
+        sftp.ls(pollConfig.getFilter().getListingPath(remoteFolder), entry -> {
+            SftpATTRS attributes = entry.getAttrs();
+            if (!attributes.isDir() && !attributes.isLink() && pollConfig.getFilter().accept(entry)) {
+                files.put(entry.getFilename(), attributes);
+            }
+            return ChannelSftp.LsEntrySelector.CONTINUE;
+        });
+        return files;
+    }
+
+    /**
+     * Replaces the snapshot by the listing
+     *
+     * @return files which became stable and are to be downloaded
+     */
+    private Map <String, SftpATTRS> diff(Map <String, SftpATTRS> listing) {
+        boolean firstPoll = snapshots == null;
+        Map <String, Snapshot> current = new HashMap <>();
+        Map <String, SftpATTRS> stable = new HashMap <>();
+        for (Map.Entry <String, SftpATTRS> file : listing.entrySet()) {
+            SftpATTRS attributes = file.getValue();
+            Snapshot snapshot = firstPoll ? null : snapshots.get(file.getKey());
+            if (snapshot == null || !snapshot.matches(attributes)) {
+                snapshot = new Snapshot(attributes.getSize(), attributes.getMTime());
+                snapshot.done = firstPoll && !pollConfig.isDownloadExisting();
+            } else {
+                snapshot.listings++;
+            }
+            if (!snapshot.done && snapshot.listings >= pollConfig.getStableListings()) {
+                stable.put(file.getKey(), attributes);
+            }
+            current.put(file.getKey(), snapshot);
+        }
+        snapshots = current;
+        return stable;
+    }
+
+    /**
+     * @return true if downloaded
+     */
+    private boolean download(String fileName, SftpATTRS attributes, ChannelSftp sftp) {
+        String remoteFilePath = getRemoteFilePath(fileName);
+        Path localFilePath = localDirectory.resolve(fileName);
+        Path partialFilePath = localDirectory.resolve("." + fileName + SftpConstants.PARTIAL_FILE_SUFFIX);
+        try {
+            try (OutputStream outputStream = localFiles.newOutputStream(partialFilePath)) {
+                SftpTransfers.get(remoteFilePath, outputStream, sftp, sftpConfig.getTransferListener(),
+                        sftpConfig.getChecksumVerification());
+            }
+            Files.move(partialFilePath, localFilePath, StandardCopyOption.REPLACE_EXISTING);
+            snapshots.get(fileName).done = true;
+            logger.info("Downloaded remote file:" + remoteFilePath + " of size:" + attributes.getSize() + " to: "
+                    + localFilePath);
+            listener.downloaded(remoteFilePath, localFilePath.toString());
+            return true;
+        } catch (Exception e) {
+            deletePartialFile(partialFilePath);
+            TransferCancellation.throwIfCancelled("poll of " + remoteFolder);
+            logger.error("Could not download remote file:" + remoteFilePath + ", retrying at the next poll", e);
+            listener.failed(remoteFilePath, e);
+            return false;
+        }
+    }
+
+    private void deletePartialFile(Path partialFilePath) {
+        try {
+            Files.deleteIfExists(partialFilePath);
+        } catch (IOException e) {
+            logger.warn("Could not delete partial file:" + partialFilePath, e);
+        }
+    }
+
+    private String getRemoteFilePath(String fileName) {
+        return remoteFolder + SftpConstants.FILE_SEPARATOR + fileName;
+    }
+
+    /**
+     * Size and modification time of a file in the previous listing
+     */
+    private static class Snapshot {
+
+        private final long size;
+
+        private final int modified;
+
+        /**
+         * number of consecutive listings showing the file unchanged
+         */
+        private int listings = 1;
+
+        /**
+         * downloaded, or present at the first poll and to be skipped
+         */
+        private boolean done;
+
+        private Snapshot(long size, int modified) {
+            this.size = size;
+            this.modified = modified;
+        }
+
+        private boolean matches(SftpATTRS attributes) {
+            return attributes.getSize() == size && attributes.getMTime() == modified;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.aceprogrammer.sftputil.watch;
+
+/**
+ * Receives the outcome of the uploads of a {@link FolderWatcher}. Methods are called on the
+ * uploading thread of the watcher and must not block. All methods do nothing by default.
+ *
+ * @author Mohammed Salman Shaikh
+ */
+public interface WatchListener {
+
+    /**
+     * Listener ignoring all events
+     */
+    WatchListener NOOP = new WatchListener() {
+    };
+
+    /**
+     * @param localFilePath    absolute path of the uploaded file
+     * @param destRelativePath remote folder relative to the home directory
+     */
+    default void uploaded(String localFilePath, String destRelativePath) {
+    }
+
+    /**
+     * Failures were already retried as per the retry policy of the service. A file is attempted
+     * again only when it changes again.
+     */
+    default void failed(String localFilePath, String destRelativePath) {
+    }
+
+    /**
+     * @param e failure of watching the local folder, e.g. when it was deleted
+     */
+    default void error(String localDirectory, Exception e) {
+    }
+}
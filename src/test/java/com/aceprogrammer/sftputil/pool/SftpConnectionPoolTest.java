@@ -0,0 +1,94 @@
+package com.aceprogrammer.sftputil.pool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.aceprogrammer.sftputil.config.SftpPoolConfig;
+import com.aceprogrammer.sftputil.support.EmbeddedSftpServer;
+import com.jcraft.jsch.JSchException;
+
+/**
+ * @author Mohammed Salman Shaikh
+ */
+public class SftpConnectionPoolTest {
+
+    private EmbeddedSftpServer server;
+
+    private SftpConnectionPool pool;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new EmbeddedSftpServer();
+        pool = new SftpConnectionPool(server.configBuilder(2)
+                .poolConfig(SftpPoolConfig.builder().maxTotal(2).borrowTimeoutMillis(300L).build()).build());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        pool.close();
+        server.close();
+    }
+
+    @Test
+    public void releasedConnectionIsReused() throws Exception {
+        PooledConnection connection = pool.borrow();
+        assertTrue(connection.isConnected());
+        pool.release(connection);
+
+        assertSame(connection, pool.borrow());
+        assertEquals(1, pool.getActiveCount());
+    }
+
+    @Test
+    public void tryBorrowReturnsNullAtOnceWhenExhausted() throws Exception {
+        PooledConnection first = pool.borrow();
+        PooledConnection second = pool.tryBorrow();
+        assertNotNull(second);
+
+        long start = System.nanoTime();
+        assertNull(pool.tryBorrow());
+        assertTrue("tryBorrow must not wait", System.nanoTime() - start < 100_000_000L);
+
+        pool.release(first);
+        pool.release(second);
+    }
+
+    @Test(timeout = 10_000L)
+    public void borrowTimesOutWhenExhausted() throws Exception {
+        PooledConnection first = pool.borrow();
+        PooledConnection second = pool.borrow();
+        try {
+            pool.borrow();
+            fail("Borrow of an exhausted pool must time out");
+        } catch (JSchException e) {
+            assertTrue(e.getMessage().startsWith("Timed out"));
+        }
+        pool.release(first);
+        pool.release(second);
+    }
+
+    @Test
+    public void invalidateFreesThePermitAndClosesTheConnection() throws Exception {
+        PooledConnection first = pool.borrow();
+        PooledConnection second = pool.borrow();
+        pool.invalidate(first);
+
+        assertFalse(first.isConnected());
+        PooledConnection third = pool.tryBorrow();
+        assertNotNull(third);
+        assertNotSame(first, third);
+        pool.release(second);
+        pool.release(third);
+        assertEquals(0, pool.getActiveCount());
+    }
+}
@@ -0,0 +1,118 @@
+package com.aceprogrammer.sftputil.routing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.aceprogrammer.sftputil.config.RoutingConfig;
+import com.aceprogrammer.sftputil.config.RoutingStrategy;
+import com.aceprogrammer.sftputil.constants.FileTransferResults;
+import com.aceprogrammer.sftputil.support.EmbeddedSftpServer;
+
+/**
+ * @author Mohammed Salman Shaikh
+ */
+public class SftpRouterTest {
+
+    private static final String REMOTE_FOLDER = "out";
+
+    private EmbeddedSftpServer stoppedServer;
+
+    private EmbeddedSftpServer liveServer;
+
+    private Path localFolder;
+
+    private SftpRouter router;
+
+    @Before
+    public void setUp() throws Exception {
+        stoppedServer = new EmbeddedSftpServer();
+        liveServer = new EmbeddedSftpServer();
+        localFolder = Files.createTempDirectory("sftputil-test-local");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (router != null) {
+            router.shutdown();
+        }
+        liveServer.close();
+        stoppedServer.close();
+    }
+
+    @Test(timeout = 60_000L)
+    public void failsOverFromAStoppedEndpoint() throws Exception {
+        // least loaded keeps the order of the configurations while nothing runs, the stopped endpoint is tried first
+        router = newRouter(RoutingStrategy.LEAST_LOADED);
+        stoppedServer.close();
+        File file = createFile("report.csv");
+
+        router.uploadFile(REMOTE_FOLDER, file);
+
+        assertUploaded(file);
+        List <EndpointStats> stats = router.getEndpointStats();
+        assertFalse(stats.get(0).isHealthy());
+        assertEquals(1, stats.get(0).getFailovers());
+        assertTrue(stats.get(1).isHealthy());
+        assertEquals(0, stats.get(1).getFailovers());
+    }
+
+    @Test(timeout = 60_000L)
+    public void shardsOfAStoppedEndpointFailOverAsAWhole() throws Exception {
+        router = newRouter(RoutingStrategy.CONSISTENT_HASH);
+        stoppedServer.close();
+        List <String> localFileList = new ArrayList <>();
+        for (int i = 0; i < 20; i++) {
+            localFileList.add(createFile("file" + i + ".txt").getPath());
+        }
+
+        Map <String, List <String>> uploadStatus = router.uploadMultipleFiles(REMOTE_FOLDER, localFileList);
+
+        assertEquals(localFileList.size(), uploadStatus.get(FileTransferResults.SUCCESS).size());
+        assertTrue(uploadStatus.get(FileTransferResults.FAILURE).isEmpty());
+        for (String localFilePath : localFileList) {
+            assertUploaded(new File(localFilePath));
+        }
+        // the stopped endpoint was the primary of some of the files
+        assertEquals(1, router.getEndpointStats().get(0).getFailovers());
+    }
+
+    @Test(timeout = 60_000L)
+    public void noFilesUploadsNothing() throws Exception {
+        router = newRouter(RoutingStrategy.CONSISTENT_HASH);
+
+        assertTrue(router.uploadMultipleFiles(REMOTE_FOLDER, Collections.emptyList()).isEmpty());
+        assertTrue(router.uploadMultipleFiles(REMOTE_FOLDER, null).isEmpty());
+    }
+
+    private SftpRouter newRouter(RoutingStrategy strategy) throws Exception {
+        // no probe runs during a test, endpoints are marked unhealthy by the failed operations only
+        RoutingConfig routingConfig = RoutingConfig.builder().strategy(strategy)
+                .healthCheckIntervalMillis(600_000L).build();
+        return new SftpRouter(Arrays.asList(stoppedServer.configBuilder(2).build(),
+                liveServer.configBuilder(2).build()), routingConfig);
+    }
+
+    private File createFile(String name) throws Exception {
+        return Files.write(localFolder.resolve(name), name.getBytes(StandardCharsets.UTF_8)).toFile();
+    }
+
+    private void assertUploaded(File file) throws Exception {
+        Path remoteFile = liveServer.resolve(EmbeddedSftpServer.HOME_PATH + "/" + REMOTE_FOLDER + "/" + file.getName());
+        assertEquals(file.getName(), new String(Files.readAllBytes(remoteFile), StandardCharsets.UTF_8));
+    }
+}
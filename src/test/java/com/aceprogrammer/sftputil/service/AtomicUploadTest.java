@@ -0,0 +1,158 @@
+package com.aceprogrammer.sftputil.service;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.aceprogrammer.sftputil.support.EmbeddedSftpServer;
+import com.jcraft.jsch.SftpException;
+
+/**
+ * @author Mohammed Salman Shaikh
+ */
+public class AtomicUploadTest {
+
+    private static final String REMOTE_FILE = "out/report.csv";
+
+    private EmbeddedSftpServer server;
+
+    private SftpService sftpService;
+
+    private Path targetFile;
+
+    private Path partialFile;
+
+    private byte[] content;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new EmbeddedSftpServer();
+        sftpService = new SftpServiceImpl();
+        sftpService.initialize(server.configBuilder(1).atomicUpload(true).build());
+        targetFile = server.resolve(EmbeddedSftpServer.HOME_PATH + "/" + REMOTE_FILE);
+        partialFile = targetFile.resolveSibling(".report.csv.part");
+        content = new byte[500_000];
+        new Random(content.length).nextBytes(content);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        sftpService.shutdown();
+        server.close();
+    }
+
+    @Test(timeout = 30_000L)
+    public void targetAppearsOnlyOnceComplete() throws Exception {
+        ObservingInputStream inputStream = new ObservingInputStream(content, -1);
+
+        sftpService.upload(REMOTE_FILE, inputStream);
+
+        assertTrue("No data was written to the partial file", inputStream.partialFileSeen);
+        assertFalse("Target existed before the rename", inputStream.targetFileSeen);
+        assertArrayEquals(content, Files.readAllBytes(targetFile));
+        assertFalse(Files.exists(partialFile));
+    }
+
+    @Test(timeout = 30_000L)
+    public void partialFileIsRemovedOnFailure() throws Exception {
+        ObservingInputStream inputStream = new ObservingInputStream(content, content.length / 2);
+
+        try {
+            sftpService.upload(REMOTE_FILE, inputStream);
+            fail("Upload of a failing stream succeeded");
+        } catch (SftpException expected) {
+            // the local read failure is reported by jsch
+        }
+
+        assertTrue("No data was written to the partial file", inputStream.partialFileSeen);
+        assertFalse(Files.exists(partialFile));
+        assertFalse(Files.exists(targetFile));
+    }
+
+    @Test(timeout = 30_000L)
+    public void existingTargetIsReplaced() throws Exception {
+        Files.createDirectories(targetFile.getParent());
+        Files.write(targetFile, "previous report".getBytes(StandardCharsets.UTF_8));
+        ObservingInputStream inputStream = new ObservingInputStream(content, -1);
+
+        sftpService.upload(REMOTE_FILE, inputStream);
+
+        assertTrue("No data was written to the partial file", inputStream.partialFileSeen);
+        assertFalse("Target changed before the rename", inputStream.targetFileSeen);
+        assertArrayEquals(content, Files.readAllBytes(targetFile));
+        assertFalse(Files.exists(partialFile));
+    }
+
+    /**
+     * Looks at the server side files while jsch reads the content, optionally failing half way through
+     */
+    private class ObservingInputStream extends InputStream {
+
+        private final InputStream content;
+
+        private final long failAt;
+
+        private final long targetSize;
+
+        private long read;
+
+        private boolean partialFileSeen;
+
+        /**
+         * true if the target was created or changed
+         */
+        private boolean targetFileSeen;
+
+        private ObservingInputStream(byte[] content, long failAt) {
+            this.content = new ByteArrayInputStream(content);
+            this.failAt = failAt;
+            this.targetSize = size(targetFile);
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (read > 0) {
+                partialFileSeen |= Files.exists(partialFile);
+                targetFileSeen |= size(targetFile) != targetSize;
+            }
+            if (failAt >= 0 && read >= failAt) {
+                throw new IOException("Local read failed");
+            }
+            int count = content.read(buffer, offset, length);
+            if (count > 0) {
+                read += count;
+            }
+            return count;
+        }
+
+        /**
+         * @return size of the file, -1 if it does not exist
+         */
+        private long size(Path file) {
+            try {
+                return Files.size(file);
+            } catch (IOException e) {
+                return -1;
+            }
+        }
+    }
+}
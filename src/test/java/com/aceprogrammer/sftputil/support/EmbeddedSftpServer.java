@@ -0,0 +1,87 @@
+package com.aceprogrammer.sftputil.support;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.sshd.common.NamedFactory;
+import org.apache.sshd.common.file.virtualfs.VirtualFileSystemFactory;
+import org.apache.sshd.common.kex.BuiltinDHFactories;
+import org.apache.sshd.common.signature.BuiltinSignatures;
+import org.apache.sshd.server.ServerBuilder;
+import org.apache.sshd.server.SshServer;
+import org.apache.sshd.server.keyprovider.SimpleGeneratorHostKeyProvider;
+import org.apache.sshd.sftp.server.SftpSubsystemFactory;
+
+import com.aceprogrammer.sftputil.config.RetryPolicy;
+import com.aceprogrammer.sftputil.config.SftpConfig;
+import com.aceprogrammer.sftputil.config.SftpPoolConfig;
+
+/**
+ * Apache MINA SSHD server on a random localhost port serving a temporary folder over sftp, the same
+ * as the one of the benchmarks.
+ * <p>
+ * Jsch 0.1.54 only knows ssh-rsa host keys and the diffie-hellman group 14/1 key exchanges,
+ * hence the server is restricted to those.
+ *
+ * @author Mohammed Salman Shaikh
+ */
+public class EmbeddedSftpServer implements Closeable {
+
+    public static final String USER_NAME = "test";
+
+    public static final String PASSWORD = "test";
+
+    public static final String HOME_PATH = "/home";
+
+    private final Path root;
+
+    private final SshServer sshServer;
+
+    public EmbeddedSftpServer() throws IOException {
+        this.root = Files.createTempDirectory("sftputil-test-remote");
+        Files.createDirectories(resolve(HOME_PATH));
+        SimpleGeneratorHostKeyProvider hostKeyProvider = new SimpleGeneratorHostKeyProvider(
+                Files.createTempDirectory("sftputil-test-key").resolve("hostkey.ser"));
+        hostKeyProvider.setAlgorithm("RSA");
+
+        sshServer = SshServer.setUpDefaultServer();
+        sshServer.setHost("localhost");
+        sshServer.setPort(0);
+        sshServer.setKeyPairProvider(hostKeyProvider);
+        sshServer.setPasswordAuthenticator((userName, password, session) ->
+                USER_NAME.equals(userName) && PASSWORD.equals(password));
+        sshServer.setSubsystemFactories(Collections.singletonList(new SftpSubsystemFactory()));
+        sshServer.setFileSystemFactory(new VirtualFileSystemFactory(root));
+        sshServer.setSignatureFactories(new ArrayList <>(Arrays.asList(BuiltinSignatures.rsa)));
+        sshServer.setKeyExchangeFactories(NamedFactory.setUpTransformedFactories(true,
+                Arrays.asList(BuiltinDHFactories.dhg14, BuiltinDHFactories.dhg1), ServerBuilder.DH2KEX));
+        sshServer.start();
+    }
+
+    /**
+     * @return config of this server with a pool of the given size and without retries
+     */
+    public SftpConfig.SftpConfigBuilder configBuilder(int maxTotal) {
+        return SftpConfig.builder().host("localhost").port(sshServer.getPort()).userName(USER_NAME)
+                .password(PASSWORD).homePath(HOME_PATH).retryPolicy(RetryPolicy.NONE)
+                .poolConfig(SftpPoolConfig.builder().maxTotal(maxTotal).borrowTimeoutMillis(5_000L).build());
+    }
+
+    /**
+     * @param remotePath absolute sftp path
+     * @return the local path backing the remote path
+     */
+    public Path resolve(String remotePath) {
+        return root.resolve(remotePath.startsWith("/") ? remotePath.substring(1) : remotePath);
+    }
+
+    @Override
+    public void close() throws IOException {
+        sshServer.stop(true);
+    }
+}
@@ -0,0 +1,114 @@
+package com.aceprogrammer.sftputil.transfer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.aceprogrammer.sftputil.config.SftpConfig;
+import com.aceprogrammer.sftputil.constants.FileTransferResults;
+import com.aceprogrammer.sftputil.pool.PooledConnection;
+import com.aceprogrammer.sftputil.pool.SftpConnectionPool;
+import com.aceprogrammer.sftputil.service.SftpService;
+import com.aceprogrammer.sftputil.service.SftpServiceImpl;
+import com.aceprogrammer.sftputil.support.EmbeddedSftpServer;
+
+/**
+ * @author Mohammed Salman Shaikh
+ */
+public class BatchDeleterTest {
+
+    private static final String FOLDER_A = EmbeddedSftpServer.HOME_PATH + "/a";
+
+    private static final String FOLDER_B = EmbeddedSftpServer.HOME_PATH + "/b";
+
+    private EmbeddedSftpServer server;
+
+    private ExecutorService executor;
+
+    private SftpConnectionPool pool;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new EmbeddedSftpServer();
+        executor = Executors.newCachedThreadPool();
+        createFile(FOLDER_A + "/a1.txt");
+        createFile(FOLDER_A + "/a2.txt");
+        createFile(FOLDER_B + "/b1.txt");
+        // rm cannot remove directories
+        Files.createDirectories(server.resolve(FOLDER_A + "/folder"));
+        createFile(FOLDER_B + "/full/b2.txt");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (pool != null) {
+            pool.close();
+        }
+        executor.shutdownNow();
+        server.close();
+    }
+
+    @Test(timeout = 30_000L)
+    public void existingMissingAndUnremovableFilesAcrossFolders() throws Exception {
+        SftpConfig sftpConfig = server.configBuilder(3).parallelism(3).build();
+        pool = new SftpConnectionPool(sftpConfig);
+        BatchDeleter deleter = new BatchDeleter(pool, executor, sftpConfig);
+        List <String> filePaths = Arrays.asList(FOLDER_B + "/missing.txt", FOLDER_A + "/a1.txt",
+                FOLDER_A + "/folder", FOLDER_B + "/b1.txt", FOLDER_A + "/missing.txt", FOLDER_B + "/full",
+                FOLDER_A + "/a2.txt", EmbeddedSftpServer.HOME_PATH + "/missing/c1.txt");
+
+        Map <String, List <String>> deleteStatus;
+        PooledConnection connection = pool.borrow();
+        try {
+            deleteStatus = deleter.delete(filePaths, connection.getChannel());
+        } finally {
+            pool.release(connection);
+        }
+
+        assertEquals(Arrays.asList(FOLDER_A + "/a1.txt", FOLDER_B + "/b1.txt", FOLDER_A + "/a2.txt"),
+                deleteStatus.get(FileTransferResults.SUCCESS));
+        assertEquals(Arrays.asList(FOLDER_B + "/missing.txt", FOLDER_A + "/missing.txt",
+                EmbeddedSftpServer.HOME_PATH + "/missing/c1.txt"), deleteStatus.get(FileTransferResults.MISSING));
+        assertEquals(Arrays.asList(FOLDER_A + "/folder", FOLDER_B + "/full"),
+                deleteStatus.get(FileTransferResults.FAILURE));
+        assertFalse(Files.exists(server.resolve(FOLDER_A + "/a1.txt")));
+        assertFalse(Files.exists(server.resolve(FOLDER_A + "/a2.txt")));
+        assertFalse(Files.exists(server.resolve(FOLDER_B + "/b1.txt")));
+        assertTrue(Files.isDirectory(server.resolve(FOLDER_A + "/folder")));
+        assertTrue(Files.exists(server.resolve(FOLDER_B + "/full/b2.txt")));
+    }
+
+    @Test(timeout = 30_000L)
+    public void deleteMultipleFilesReportsMissingAndFailedFilesInTheGivenOrder() throws Exception {
+        SftpService sftpService = new SftpServiceImpl();
+        sftpService.initialize(server.configBuilder(3).parallelism(3).build());
+        try {
+            List <String> failedFiles = sftpService.deleteMultipleFiles(Arrays.asList(FOLDER_A + "/folder",
+                    FOLDER_B + "/b1.txt", FOLDER_B + "/missing.txt", FOLDER_A + "/a1.txt", FOLDER_B + "/full",
+                    FOLDER_A + "/missing.txt"));
+
+            assertEquals(Arrays.asList(FOLDER_A + "/folder", FOLDER_B + "/missing.txt", FOLDER_B + "/full",
+                    FOLDER_A + "/missing.txt"), failedFiles);
+        } finally {
+            sftpService.shutdown();
+        }
+    }
+
+    private void createFile(String remotePath) throws Exception {
+        Path file = server.resolve(remotePath);
+        Files.createDirectories(file.getParent());
+        Files.write(file, remotePath.getBytes("UTF-8"));
+    }
+}
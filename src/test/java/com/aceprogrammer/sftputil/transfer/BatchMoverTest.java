@@ -0,0 +1,108 @@
+package com.aceprogrammer.sftputil.transfer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.aceprogrammer.sftputil.config.SftpConfig;
+import com.aceprogrammer.sftputil.constants.FileTransferResults;
+import com.aceprogrammer.sftputil.pool.PooledConnection;
+import com.aceprogrammer.sftputil.pool.SftpConnectionPool;
+import com.aceprogrammer.sftputil.support.EmbeddedSftpServer;
+
+/**
+ * @author Mohammed Salman Shaikh
+ */
+public class BatchMoverTest {
+
+    private static final String SOURCE_FOLDER = EmbeddedSftpServer.HOME_PATH + "/in";
+
+    private static final String TARGET_FOLDER = EmbeddedSftpServer.HOME_PATH + "/archive";
+
+    private EmbeddedSftpServer server;
+
+    private ExecutorService executor;
+
+    private SftpConnectionPool pool;
+
+    private BatchMover mover;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new EmbeddedSftpServer();
+        executor = Executors.newCachedThreadPool();
+        SftpConfig sftpConfig = server.configBuilder(3).parallelism(3).build();
+        pool = new SftpConnectionPool(sftpConfig);
+        mover = new BatchMover(pool, executor, sftpConfig);
+        writeFile(SOURCE_FOLDER + "/new.txt", "new");
+        writeFile(SOURCE_FOLDER + "/existing.txt", "moved");
+        writeFile(TARGET_FOLDER + "/existing.txt", "kept");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        pool.close();
+        executor.shutdownNow();
+        server.close();
+    }
+
+    @Test(timeout = 30_000L)
+    public void existingTargetFailsWithoutOverwrite() throws Exception {
+        Map <String, List <String>> moveStatus = move(false);
+
+        assertEquals(Collections.singletonList(SOURCE_FOLDER + "/new.txt"),
+                moveStatus.get(FileTransferResults.SUCCESS));
+        assertEquals(Collections.singletonList(SOURCE_FOLDER + "/existing.txt"),
+                moveStatus.get(FileTransferResults.FAILURE));
+        assertEquals("new", readFile(TARGET_FOLDER + "/new.txt"));
+        assertEquals("kept", readFile(TARGET_FOLDER + "/existing.txt"));
+        assertEquals("moved", readFile(SOURCE_FOLDER + "/existing.txt"));
+        assertFalse(Files.exists(server.resolve(SOURCE_FOLDER + "/new.txt")));
+    }
+
+    @Test(timeout = 30_000L)
+    public void existingTargetIsReplacedWithOverwrite() throws Exception {
+        Map <String, List <String>> moveStatus = move(true);
+
+        assertEquals(Arrays.asList(SOURCE_FOLDER + "/new.txt", SOURCE_FOLDER + "/existing.txt"),
+                moveStatus.get(FileTransferResults.SUCCESS));
+        assertTrue(moveStatus.get(FileTransferResults.FAILURE).isEmpty());
+        assertEquals("new", readFile(TARGET_FOLDER + "/new.txt"));
+        assertEquals("moved", readFile(TARGET_FOLDER + "/existing.txt"));
+        assertFalse(Files.exists(server.resolve(SOURCE_FOLDER + "/existing.txt")));
+    }
+
+    private Map <String, List <String>> move(boolean overwrite) throws Exception {
+        PooledConnection connection = pool.borrow();
+        try {
+            return mover.move(Arrays.asList(SOURCE_FOLDER + "/new.txt", SOURCE_FOLDER + "/existing.txt"),
+                    TARGET_FOLDER, overwrite, connection.getChannel());
+        } finally {
+            pool.release(connection);
+        }
+    }
+
+    private void writeFile(String remotePath, String content) throws Exception {
+        Path file = server.resolve(remotePath);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String readFile(String remotePath) throws Exception {
+        return new String(Files.readAllBytes(server.resolve(remotePath)), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,125 @@
+package com.aceprogrammer.sftputil.transfer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.aceprogrammer.sftputil.config.RetryPolicy;
+import com.aceprogrammer.sftputil.metrics.OperationType;
+import com.aceprogrammer.sftputil.metrics.TransferListener;
+import com.aceprogrammer.sftputil.pool.SftpConnectionPool;
+import com.aceprogrammer.sftputil.support.EmbeddedSftpServer;
+import com.jcraft.jsch.SftpException;
+
+/**
+ * @author Mohammed Salman Shaikh
+ */
+public class ResumableUploaderTest {
+
+    private static final String REMOTE_FOLDER = EmbeddedSftpServer.HOME_PATH + "/upload";
+
+    private static final String REMOTE_FILE = REMOTE_FOLDER + "/large.bin";
+
+    private static final int PRESENT_BYTES = 300_000;
+
+    private EmbeddedSftpServer server;
+
+    private SftpConnectionPool pool;
+
+    private Path checkpointDirectory;
+
+    private File localFile;
+
+    private byte[] content;
+
+    private final AtomicLong bytes = new AtomicLong();
+
+    private ResumableUploader uploader;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new EmbeddedSftpServer();
+        pool = new SftpConnectionPool(server.configBuilder(1).build());
+        checkpointDirectory = Files.createTempDirectory("sftputil-test-checkpoints");
+        content = new byte[1_000_000];
+        new Random(content.length).nextBytes(content);
+        localFile = Files.write(Files.createTempDirectory("sftputil-test-local").resolve("large.bin"), content)
+                .toFile();
+        TransferListener listener = new TransferListener() {
+            @Override
+            public void bytesTransferred(OperationType type, long count) {
+                bytes.addAndGet(count);
+            }
+        };
+        uploader = new ResumableUploader(pool, new LocalFiles(new DirectBufferPool(16 * 1024, 2), Long.MAX_VALUE),
+                RetryPolicy.NONE, checkpointDirectory, listener);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        pool.close();
+        server.close();
+    }
+
+    @Test(timeout = 30_000L)
+    public void matchingCheckpointSendsOnlyTheMissingTail() throws Exception {
+        interruptedUpload();
+
+        uploader.upload(localFile, REMOTE_FILE);
+
+        assertArrayEquals(content, Files.readAllBytes(server.resolve(REMOTE_FILE)));
+        assertEquals(content.length - PRESENT_BYTES, bytes.get());
+        assertFalse(hasCheckpoint());
+    }
+
+    @Test(timeout = 30_000L)
+    public void staleCheckpointRestartsFromZero() throws Exception {
+        interruptedUpload();
+        // the local file changed after the interrupted attempt, so the partial remote file is not trusted
+        assertTrue(localFile.setLastModified(localFile.lastModified() - 60_000L));
+
+        uploader.upload(localFile, REMOTE_FILE);
+
+        assertArrayEquals(content, Files.readAllBytes(server.resolve(REMOTE_FILE)));
+        assertEquals(content.length, bytes.get());
+        assertFalse(hasCheckpoint());
+    }
+
+    /**
+     * Leaves the checkpoint of a failed attempt behind, together with the start of the file on the server
+     * as an interrupted transfer would
+     */
+    private void interruptedUpload() throws Exception {
+        try {
+            // the remote folder does not exist yet
+            uploader.upload(localFile, REMOTE_FILE);
+            fail("Upload into a missing folder succeeded");
+        } catch (SftpException expected) {
+            assertTrue(hasCheckpoint());
+        }
+        Path remoteFile = server.resolve(REMOTE_FILE);
+        Files.createDirectories(remoteFile.getParent());
+        Files.write(remoteFile, Arrays.copyOf(content, PRESENT_BYTES));
+        bytes.set(0);
+    }
+
+    private boolean hasCheckpoint() throws Exception {
+        try (Stream <Path> files = Files.list(checkpointDirectory)) {
+            return files.findAny().isPresent();
+        }
+    }
+}
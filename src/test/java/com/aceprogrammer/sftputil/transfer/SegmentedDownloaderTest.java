@@ -0,0 +1,100 @@
+package com.aceprogrammer.sftputil.transfer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.aceprogrammer.sftputil.config.RetryPolicy;
+import com.aceprogrammer.sftputil.metrics.OperationType;
+import com.aceprogrammer.sftputil.metrics.TransferListener;
+import com.aceprogrammer.sftputil.pool.PooledConnection;
+import com.aceprogrammer.sftputil.pool.SftpConnectionPool;
+import com.aceprogrammer.sftputil.support.EmbeddedSftpServer;
+
+/**
+ * @author Mohammed Salman Shaikh
+ */
+public class SegmentedDownloaderTest {
+
+    private static final long SEGMENT_SIZE = 100_000L;
+
+    private EmbeddedSftpServer server;
+
+    private ExecutorService executor;
+
+    private SftpConnectionPool pool;
+
+    private Path localFolder;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new EmbeddedSftpServer();
+        executor = Executors.newCachedThreadPool();
+        pool = new SftpConnectionPool(server.configBuilder(3).build());
+        localFolder = Files.createTempDirectory("sftputil-test-local");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        pool.close();
+        executor.shutdownNow();
+        server.close();
+    }
+
+    /**
+     * The last segment is shorter than the others and every segment spans several buffers, while
+     * jsch reads ahead beyond the end of each segment
+     */
+    @Test(timeout = 30_000L)
+    public void segmentedDownloadIsByteIdentical() throws Exception {
+        byte[] content = randomBytes(1_234_567);
+        assertDownloaded(content);
+    }
+
+    @Test(timeout = 30_000L)
+    public void fileSmallerThanOneSegmentIsByteIdentical() throws Exception {
+        byte[] content = randomBytes(12_345);
+        assertDownloaded(content);
+    }
+
+    private void assertDownloaded(byte[] content) throws Exception {
+        Files.write(server.resolve(EmbeddedSftpServer.HOME_PATH + "/large.bin"), content);
+        AtomicLong bytes = new AtomicLong();
+        TransferListener listener = new TransferListener() {
+            @Override
+            public void bytesTransferred(OperationType type, long count) {
+                bytes.addAndGet(count);
+            }
+        };
+        SegmentedDownloader downloader = new SegmentedDownloader(pool, executor, 3, SEGMENT_SIZE,
+                new DirectBufferPool(16 * 1024, 3), RetryPolicy.NONE, listener);
+        Path localFile = localFolder.resolve("large.bin");
+
+        PooledConnection connection = pool.borrow();
+        try {
+            downloader.download(EmbeddedSftpServer.HOME_PATH + "/large.bin", localFile, connection.getChannel());
+        } finally {
+            pool.release(connection);
+        }
+
+        assertArrayEquals(content, Files.readAllBytes(localFile));
+        // the bytes read beyond the end of a segment are dropped and not reported
+        assertEquals(content.length, bytes.get());
+    }
+
+    private byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        return bytes;
+    }
+}
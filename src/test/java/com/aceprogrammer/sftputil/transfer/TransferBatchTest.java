@@ -0,0 +1,263 @@
+package com.aceprogrammer.sftputil.transfer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.aceprogrammer.sftputil.config.RetryPolicy;
+import com.aceprogrammer.sftputil.exception.ConnectionUnavailableException;
+import com.aceprogrammer.sftputil.pool.PooledConnection;
+import com.aceprogrammer.sftputil.pool.SftpConnectionPool;
+import com.aceprogrammer.sftputil.support.EmbeddedSftpServer;
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.SftpException;
+
+/**
+ * @author Mohammed Salman Shaikh
+ */
+public class TransferBatchTest {
+
+    private EmbeddedSftpServer server;
+
+    private ExecutorService executor;
+
+    private SftpConnectionPool pool;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new EmbeddedSftpServer();
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (pool != null) {
+            pool.close();
+        }
+        executor.shutdownNow();
+        server.close();
+    }
+
+    /**
+     * The helpers take the only connection of the pool, the submitting thread has none and must not
+     * wait for one while the helpers keep it
+     */
+    @Test(timeout = 20_000L)
+    public void helpersHoldingTheWholePoolDoNotBlockTheSubmitter() throws Exception {
+        pool = new SftpConnectionPool(server.configBuilder(1).build());
+        CountingListener listener = new CountingListener();
+        TransferBatch <Integer> batch = new TransferBatch <>(pool, executor, 4, 1, (item, sftp) -> {
+            sftp.pwd();
+            Thread.sleep(5);
+        }, listener);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 30; i++) {
+            batch.submit(i);
+        }
+        batch.await();
+
+        assertEquals(30, listener.succeeded.get());
+        assertEquals(0, listener.failed.get());
+        // well below the borrow timeout of 5 seconds
+        assertTrue(System.nanoTime() - start < 4_000_000_000L);
+        assertEquals(0, pool.getActiveCount());
+    }
+
+    /**
+     * All connections of the pool are held outside the batch, so its helpers get none and every item
+     * runs on the channel of the caller
+     */
+    @Test(timeout = 20_000L)
+    public void saturatedPoolRunsAllItemsOnTheCallerChannel() throws Exception {
+        pool = new SftpConnectionPool(server.configBuilder(2).build());
+        PooledConnection callerConnection = pool.borrow();
+        PooledConnection otherConnection = pool.borrow();
+        Set <ChannelSftp> channels = Collections.synchronizedSet(new HashSet <>());
+        CountingListener listener = new CountingListener();
+        try {
+            TransferBatch <Integer> batch = new TransferBatch <>(pool, executor, 4, 2, (item, sftp) -> {
+                channels.add(sftp);
+                sftp.pwd();
+            }, listener, callerConnection.getChannel());
+            for (int i = 0; i < 20; i++) {
+                batch.submit(i);
+            }
+            batch.await();
+        } finally {
+            pool.release(callerConnection);
+            pool.release(otherConnection);
+        }
+
+        assertEquals(20, listener.succeeded.get());
+        assertEquals(Collections.singleton(callerConnection.getChannel()), channels);
+    }
+
+    @Test(timeout = 20_000L)
+    public void itemsAreSpreadOverSeveralChannels() throws Exception {
+        pool = new SftpConnectionPool(server.configBuilder(4).build());
+        Set <ChannelSftp> channels = Collections.synchronizedSet(new HashSet <>());
+        CountingListener listener = new CountingListener();
+        TransferBatch <Integer> batch = new TransferBatch <>(pool, executor, 4, 8, (item, sftp) -> {
+            channels.add(sftp);
+            Thread.sleep(20);
+        }, listener);
+        for (int i = 0; i < 40; i++) {
+            batch.submit(i);
+        }
+        batch.await();
+
+        assertEquals(40, listener.succeeded.get());
+        assertTrue("Expected several channels but got " + channels.size(), channels.size() > 1);
+        assertEquals(0, pool.getActiveCount());
+    }
+
+    /**
+     * A lost connection is attempted maxAttempts times, a missing file once
+     */
+    @Test(timeout = 20_000L)
+    public void onlyRetryableFailuresAreRetriedUpToMaxAttempts() throws Exception {
+        pool = new SftpConnectionPool(server.configBuilder(2).build());
+        RetryPolicy retryPolicy = RetryPolicy.builder().maxAttempts(3).initialBackoffMillis(10L).build();
+        Map <Integer, AtomicInteger> attempts = new ConcurrentHashMap <>();
+        CountingListener listener = new CountingListener();
+        TransferBatch <Integer> batch = new TransferBatch <>(pool, executor, 2, 4, (item, sftp) -> {
+            attempts.computeIfAbsent(item, key -> new AtomicInteger()).incrementAndGet();
+            if (item == 0) {
+                throw new SftpException(ChannelSftp.SSH_FX_CONNECTION_LOST, "connection lost");
+            }
+            if (item == 1) {
+                throw new SftpException(ChannelSftp.SSH_FX_NO_SUCH_FILE, "no such file");
+            }
+        }, listener, null, retryPolicy);
+        for (int i = 0; i < 3; i++) {
+            batch.submit(i);
+        }
+        batch.await();
+
+        assertEquals(3, attempts.get(0).get());
+        assertEquals(1, attempts.get(1).get());
+        assertEquals(1, attempts.get(2).get());
+        assertEquals(1, listener.succeeded.get());
+        assertEquals(2, listener.failed.get());
+        assertEquals(0, pool.getActiveCount());
+    }
+
+    /**
+     * The channel of the caller got disconnected by a failed item, which is retried although its failure is
+     * not transient, and neither the retry nor the later items use that channel again
+     */
+    @Test(timeout = 20_000L)
+    public void disconnectedCallerChannelIsRetired() throws Exception {
+        pool = new SftpConnectionPool(server.configBuilder(2).build());
+        RetryPolicy retryPolicy = RetryPolicy.builder().maxAttempts(2).initialBackoffMillis(10L).build();
+        PooledConnection callerConnection = pool.borrow();
+        ChannelSftp callerChannel = callerConnection.getChannel();
+        List <ChannelSftp> channelsAfterFailure = Collections.synchronizedList(new ArrayList <>());
+        AtomicInteger firstItemAttempts = new AtomicInteger();
+        CountingListener listener = new CountingListener();
+        try {
+            TransferBatch <Integer> batch = new TransferBatch <>(pool, executor, 1, 1, (item, sftp) -> {
+                if (item == 0 && firstItemAttempts.incrementAndGet() == 1) {
+                    sftp.disconnect();
+                    throw new SftpException(ChannelSftp.SSH_FX_FAILURE, "channel closed");
+                }
+                channelsAfterFailure.add(sftp);
+                sftp.pwd();
+            }, listener, callerChannel, retryPolicy);
+            for (int i = 0; i < 5; i++) {
+                batch.submit(i);
+            }
+            batch.await();
+        } finally {
+            pool.release(callerConnection);
+        }
+
+        assertEquals(2, firstItemAttempts.get());
+        assertEquals(5, listener.succeeded.get());
+        assertEquals(0, listener.failed.get());
+        assertEquals(5, channelsAfterFailure.size());
+        for (ChannelSftp channel : channelsAfterFailure) {
+            assertNotSame(callerChannel, channel);
+            assertFalse(channel.isClosed());
+        }
+    }
+
+    /**
+     * The caller holds the only connection of the pool and its channel gets lost, the remaining items fail
+     * after their attempts instead of waiting out the borrow timeout for the connection of the caller. A
+     * single worker keeps the items in the order of submission.
+     */
+    @Test(timeout = 20_000L)
+    public void lostCallerChannelDoesNotWaitForTheConnectionOfTheCaller() throws Exception {
+        pool = new SftpConnectionPool(server.configBuilder(1).build());
+        RetryPolicy retryPolicy = RetryPolicy.builder().maxAttempts(2).initialBackoffMillis(10L).build();
+        PooledConnection callerConnection = pool.borrow();
+        List <Exception> failures = Collections.synchronizedList(new ArrayList <>());
+        long start = System.nanoTime();
+        try {
+            TransferBatch <Integer> batch = new TransferBatch <>(pool, executor, 1, 2, (item, sftp) -> {
+                if (item == 0) {
+                    sftp.disconnect();
+                    throw new SftpException(ChannelSftp.SSH_FX_FAILURE, "channel closed");
+                }
+                sftp.pwd();
+            }, new BatchListener <Integer>() {
+                @Override
+                public void onSuccess(Integer item) {
+                }
+
+                @Override
+                public void onFailure(Integer item, Exception e) {
+                    failures.add(e);
+                }
+            }, callerConnection.getChannel(), retryPolicy);
+            for (int i = 0; i < 4; i++) {
+                batch.submit(i);
+            }
+            batch.await();
+        } finally {
+            pool.invalidate(callerConnection);
+        }
+
+        // well below the borrow timeout of 5 seconds
+        assertTrue(System.nanoTime() - start < 4_000_000_000L);
+        assertEquals(4, failures.size());
+        for (Exception failure : failures) {
+            assertTrue(String.valueOf(failure), failure instanceof ConnectionUnavailableException);
+        }
+    }
+
+    static class CountingListener implements BatchListener <Integer> {
+
+        final AtomicInteger succeeded = new AtomicInteger();
+
+        final AtomicInteger failed = new AtomicInteger();
+
+        @Override
+        public void onSuccess(Integer item) {
+            succeeded.incrementAndGet();
+        }
+
+        @Override
+        public void onFailure(Integer item, Exception e) {
+            failed.incrementAndGet();
+        }
+    }
+}
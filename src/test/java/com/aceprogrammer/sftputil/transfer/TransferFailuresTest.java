@@ -0,0 +1,80 @@
+package com.aceprogrammer.sftputil.transfer;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.util.concurrent.CancellationException;
+
+import org.junit.Test;
+
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.SftpException;
+
+/**
+ * @author Mohammed Salman Shaikh
+ */
+public class TransferFailuresTest {
+
+    @Test
+    public void onlyLostConnectionsAreTransientSftpStatusCodes() {
+        int[] fatal = {ChannelSftp.SSH_FX_OK, ChannelSftp.SSH_FX_EOF, ChannelSftp.SSH_FX_NO_SUCH_FILE,
+                ChannelSftp.SSH_FX_PERMISSION_DENIED, ChannelSftp.SSH_FX_FAILURE, ChannelSftp.SSH_FX_BAD_MESSAGE,
+                ChannelSftp.SSH_FX_OP_UNSUPPORTED};
+        for (int id : fatal) {
+            assertFalse("status " + id, TransferFailures.isTransient(new SftpException(id, "status " + id)));
+        }
+        assertTrue(TransferFailures.isTransient(new SftpException(ChannelSftp.SSH_FX_NO_CONNECTION, "no connection")));
+        assertTrue(TransferFailures.isTransient(new SftpException(ChannelSftp.SSH_FX_CONNECTION_LOST, "lost")));
+    }
+
+    @Test
+    public void genericFailureIsTransientOnlyWithTransientCause() {
+        assertTrue(TransferFailures.isTransient(new SftpException(ChannelSftp.SSH_FX_FAILURE, "broken pipe",
+                new SocketException("Broken pipe"))));
+        assertTrue(TransferFailures.isTransient(new SftpException(ChannelSftp.SSH_FX_FAILURE, "closed",
+                new EOFException())));
+        assertFalse(TransferFailures.isTransient(new SftpException(ChannelSftp.SSH_FX_FAILURE, "disk full",
+                new IOException("No space left on device"))));
+        assertFalse(TransferFailures.isTransient(new SftpException(ChannelSftp.SSH_FX_NO_SUCH_FILE, "missing",
+                new SocketException("Broken pipe"))));
+    }
+
+    @Test
+    public void authenticationAndHostKeyFailuresOfJschAreFatal() {
+        String[] messages = {"Auth fail", "Auth cancel", "UnknownHostKey: localhost. RSA key fingerprint is ab:cd",
+                "HostKey has been changed: localhost", "reject HostKey: localhost", "invalid privatekey: [B@1b6d3586",
+                "Algorithm negotiation fail"};
+        for (String message : messages) {
+            assertFalse(message, TransferFailures.isTransient(new JSchException(message)));
+        }
+    }
+
+    @Test
+    public void sessionAndTimeoutFailuresOfJschAreTransient() {
+        assertTrue(TransferFailures.isTransient(new JSchException("session is down")));
+        assertTrue(TransferFailures.isTransient(new JSchException("channel is not opened.")));
+        assertTrue(TransferFailures.isTransient(new JSchException("timeout: socket is not established")));
+        assertTrue(TransferFailures.isTransient(new JSchException("java.net.SocketTimeoutException: Read timed out",
+                new SocketTimeoutException("Read timed out"))));
+    }
+
+    @Test
+    public void jschFailuresAreClassifiedByTheirCause() {
+        assertFalse(TransferFailures.isTransient(new JSchException("java.net.UnknownHostException: nohost",
+                new UnknownHostException("nohost"))));
+        assertTrue(TransferFailures.isTransient(new JSchException("java.net.SocketException: Connection reset",
+                new SocketException("Connection reset"))));
+    }
+
+    @Test
+    public void cancellationAndMissingFailureAreFatal() {
+        assertFalse(TransferFailures.isTransient(new CancellationException("Transfer was cancelled")));
+        assertFalse(TransferFailures.isTransient(null));
+    }
+}